@@ -18,9 +18,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Maps;
+import com.siemens.dls.archiveanalytics.alertsongate.AlarmOverlapSweep;
 import com.siemens.dls.archiveanalytics.alertsongate.AlertsOnGateHandler;
 import com.siemens.dls.archiveanalytics.alertsongate.AlertsOnGateReason;
 import com.siemens.dls.archiveanalytics.alertsongate.FilterParams;
+import com.siemens.dls.archiveanalytics.alertsongate.NegationDetector;
 import com.siemens.dls.archiveanalytics.alertsongate.NodeReason;
 import com.siemens.dls.archiveanalytics.ddb.DlsDdbClient;
 import com.siemens.dls.archiveanalytics.model.Alarm;
@@ -29,14 +31,16 @@ import com.siemens.dls.archiveanalytics.model.BinaryTrend;
 import com.siemens.dls.archiveanalytics.model.Network;
 import com.siemens.dls.archiveanalytics.model.Port;
 import com.siemens.dls.archiveanalytics.model.PortDirection;
-import com.siemens.dls.archiveanalytics.model.Trend;
+import com.siemens.dls.archiveanalytics.model.TrendWindowIndex;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -84,19 +88,24 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
         .putAll(ALLOWED_MODULE_PORT_IDS)
         .putAll(ALLOWED_NEGATED_MODULE_PORT_IDS).build();
 
-    Network network = s3DataLoader.loadNetwork(moduleMapping, moduleMapping);
+    //load the alarm types while the network and then alarms and trends of its ports are loaded
+    AsyncS3DataLoader loader = AsyncS3DataLoader.of(s3DataLoader);
+    CompletableFuture<Map<Integer, AlarmType>> alarmTypesFuture = loader.getAlarmTypes();
+    CompletableFuture<Network> networkFuture = loader.loadNetwork(moduleMapping, moduleMapping);
 
-    Map<Port, List<Alarm>> potentialAlarms = s3DataLoader
-        .getAlarmsFromS3(network.getFilteredPorts(ALARM_NOT_OUT_PORT_IDS));
+    CompletableFuture<Map<Port, List<Alarm>>> potentialAlarmsFuture = loader.getAlarms(
+        networkFuture.thenApply(network -> network.getFilteredPorts(ALARM_NOT_OUT_PORT_IDS)));
 
     //load binary for specified ports in the network
-    binaryTrends = s3DataLoader
-        .getBinaryTrends(network
-            .getFilteredPorts(m -> true, m -> p -> p.getDirection() == PortDirection.O));
+    CompletableFuture<Map<Port, BinaryTrend>> binaryTrendsFuture = loader.getBinaryTrends(
+        networkFuture.thenApply(network -> network
+            .getFilteredPorts(m -> true, m -> p -> p.getDirection() == PortDirection.O)));
 
-    //load alarm type
+    Map<Port, List<Alarm>> potentialAlarms = AsyncS3DataLoader.await(potentialAlarmsFuture);
+    binaryTrends = AsyncS3DataLoader.await(binaryTrendsFuture);
+    Network network = AsyncS3DataLoader.await(networkFuture);
     Map<Integer, String> alarmTypes = Maps
-        .transformValues(s3DataLoader.getAlarmTypesFromS3(), AlarmType::getAbbrev);
+        .transformValues(AsyncS3DataLoader.await(alarmTypesFuture), AlarmType::getAbbrev);
 
     Map<Port, List<Alarm>> alarms = potentialAlarms.entrySet().stream()
         .filter(entrySet ->
@@ -115,7 +124,7 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
               entry.getKey());
           System.out.println(hierarchy);
         })
-        .map(e -> breadthFirstSearch(e, binaryTrends, getSimpleReasonFilter()))
+        .map(e -> breadthFirstSearch(e, binaryTrends, network, getSimpleReasonFilter()))
         .flatMap(Collection::stream)
         .filter(reason -> reason.getCode() != 0)
         .map(
@@ -144,7 +153,7 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
     return new DlsProducerLambdaResult(true, items.size());
   }
 
-  private void updateNotGateDuplicateReasonsCount(AlertsOnGateReason reason,
+  protected void updateNotGateDuplicateReasonsCount(AlertsOnGateReason reason,
       Map<Port, BinaryTrend> binaryTrends, Map<Port, List<Alarm>> alarms) {
     Port potentialArchivedPort = reason.getPotentialArchivedPort();
 
@@ -179,7 +188,8 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
       if (negatedPortOptional.isPresent() && negatedPortOptional.get().isArchive()
           && negatedPortOptional.get().isAlarm() &&
           currentNode.isArchive() && currentNode.isAlarm()) {
-        int negatedCount = calculateSignalNegatedCount(currentNode, negatedPortOptional.get());
+        int negatedCount = calculateSignalNegatedCount(currentNode, negatedPortOptional.get(),
+            params.getBinaryTrends());
         if (negatedCount == 0) {
           return Optional.empty();
         }
@@ -212,6 +222,9 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
     }
   };
 
+  protected Function<FilterParams, Optional<AlertsOnGateReason>> getDuplicateFilter() {
+    return duplicateFilter;
+  }
 
   private AtomicInteger calculateSignalNegatedOverlappingCount(Port port, FilterParams params) {
 
@@ -226,63 +239,39 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
       throw new IllegalStateException(
           "for alert: " + params.getStartNode().getUniqueName() + " : no alarms dates");
     }
-    //sourceTrendsMap: <value,Set<millis>>
-    Map<Integer, List<Integer>> sourceTrendsMap = sourceTrends.getAcceptableQualityTrends()
-        .stream()
-        .collect(Collectors
-            .groupingBy(t -> (int) t.getValue(), signalClassificationCollector));
+    //edges of the acceptable quality trends, memoized by the trend
+    int[] risingMillis = sourceTrends.getRisingMillis();
 
-    List<Integer> risingTimeLists = sourceTrendsMap.get(1);
+    int[] fallingMillis = sourceTrends.getFallingMillis();
 
-    List<Integer> fallingTimeLists = sourceTrendsMap.get(0);
-
-    if (risingTimeLists == null) {
+    if (risingMillis.length == 0) {
       return count;
     }
 
-    if (fallingTimeLists == null) {
+    if (fallingMillis.length == 0) {
       return new AtomicInteger(alarms.size());
     }
 
-    alarms.forEach(
-        alarm -> {
-          int startMillis = Utils.toMillisOfDay(alarm.getTime());
-          //find falling signal
-
-          Optional<Integer> fallingSignal = fallingTimeLists.stream()
-              .filter(t -> t >= startMillis - MILLIS_TO_SECOND * CYCLE && t <= startMillis)
-              .reduce((t1, t2) -> t2);
-
-          if (!fallingSignal.isPresent()) {
-            count.updateAndGet(prev -> prev);
-          } else {
-            //find rising signal
-            Optional<Integer> risingSignal = risingTimeLists.stream()
-                .filter(t -> t > fallingSignal.get())
-                .findFirst();
-            if (!risingSignal.isPresent() || risingSignal.get() > startMillis) {
-              count.updateAndGet(prev -> prev + 1);
-            }
-          }
-        });
+    //falling signal within the cycle before the alarm, not risen until the alarm
+    count.set(AlarmOverlapSweep.countUnchanged(params.getAlarmMillis(), fallingMillis,
+        risingMillis, CYCLE * MILLIS_TO_SECOND));
 
     return count;
   }
 
-  private int calculateSignalNegatedCount(Port outputPort, Port negatedPort) {
+  private int calculateSignalNegatedCount(Port outputPort, Port negatedPort,
+      Map<Port, BinaryTrend> binaryTrends) {
     BinaryTrend outputTrends = binaryTrends.get(outputPort);
     BinaryTrend negatedTrends = binaryTrends.get(negatedPort);
 
-    long notMatchedCount = outputTrends.getAcceptableQualityTrends().stream()
-        .filter(trend -> {
-          int millis = trend.getMillis();
-          double value = trend.getValue();
-          boolean isNegated = negatedTrends.getAcceptableQualityTrends().stream()
-              .anyMatch(negatedTrend -> negatedTrend.getMillis() == millis
-                  && negatedTrend.getValue() + value == 1);
-          return !isNegated;
-        }).count();
-    return notMatchedCount == 0 ? outputTrends.getRisingCount() : 0;
+    OptionalInt notNegated = NegationDetector.findFirstNotNegated(
+        outputTrends.getAcceptableQualitySeries(), negatedTrends.getAcceptableQualitySeries());
+    if (notNegated.isPresent()) {
+      LOG.debug(String.format("%s is not negated by %s at millis %d", outputPort.getUniqueName(),
+          negatedPort.getUniqueName(), notNegated.getAsInt()));
+      return 0;
+    }
+    return outputTrends.getRisingCount();
   }
 
   private boolean isNegatedOverlapping(Alarm alarm, Port outputPort,
@@ -295,25 +284,21 @@ public class AlarmNotHandler extends AlertsOnGateHandler {
       return false;
     }
 
-    //find falling signal
-    Optional<Trend> fallingSignal = binaryTrend.getAcceptableQualityTrends().stream()
-        .filter(trend -> trend.getValue() == 0)
-        .filter(trend -> trend.getMillis() <= startMillis &&
-            trend.getMillis() >= startMillis - CYCLE * MILLIS_TO_SECOND)
-        .reduce((t1, t2) -> t2);
-
-    if (!fallingSignal.isPresent()) {
-      return false;
-    }
-
-    //find rising signal
-    Optional<Trend> risingSignal = binaryTrend.getAcceptableQualityTrends().stream()
-        .filter(trend -> trend.getValue() == 1)
-        .filter(trend -> trend.getMillis() > fallingSignal.get().getMillis())
-        .findFirst();
-
-    return !risingSignal.isPresent() || risingSignal.get().getMillis() > startMillis;
+    return isNegatedOverlapping(startMillis, binaryTrend.getRisingEdges(),
+        binaryTrend.getFallingEdges());
+  }
 
+  /**
+   * Checks if the signal fell within the cycle before startMillis and did not rise again until
+   * startMillis
+   */
+  private boolean isNegatedOverlapping(int startMillis, TrendWindowIndex risingEdges,
+      TrendWindowIndex fallingEdges) {
+    //find the last falling signal within the cycle before the alarm
+    int fallingSignal = fallingEdges
+        .lastInRange(startMillis - CYCLE * MILLIS_TO_SECOND, startMillis);
+    return fallingSignal != TrendWindowIndex.NOT_FOUND
+        && isUnchangedUntil(risingEdges, fallingEdges.get(fallingSignal), startMillis);
   }
 
   private Optional<Port> findNegatedPort(Port outputPort) {
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import com.google.common.collect.Multimap;
+import com.siemens.dls.archiveanalytics.model.Alarm;
+import com.siemens.dls.archiveanalytics.model.AlarmType;
+import com.siemens.dls.archiveanalytics.model.AnalogTrend;
+import com.siemens.dls.archiveanalytics.model.BinaryTrend;
+import com.siemens.dls.archiveanalytics.model.Network;
+import com.siemens.dls.archiveanalytics.model.OperatorAction;
+import com.siemens.dls.archiveanalytics.model.Port;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous view on a {@link S3DataLoader}. Every dataset is loaded by a task on an executor
+ * and provided as a {@link CompletableFuture}. A dataset that depends on another one, e.g. the
+ * alarms of the ports of a network, takes the future of its input and starts as soon as the input
+ * is complete, so a handler declares all of its inputs up front and independent downloads and
+ * parses overlap:
+ * <pre>
+ * CompletableFuture&lt;Network&gt; network = loader.loadNetwork(mapping, mapping);
+ * CompletableFuture&lt;Map&lt;Integer, AlarmType&gt;&gt; alarmTypes = loader.getAlarmTypes();
+ * CompletableFuture&lt;Map&lt;Port, List&lt;Alarm&gt;&gt;&gt; alarms = loader
+ *     .getAlarms(network.thenApply(n -&gt; n.getFilteredPorts(portIds)));
+ * </pre>
+ * Use {@link #await(CompletableFuture)} to get a result with the exception the synchronous
+ * method would have thrown.
+ * <p>
+ * The tasks block while they read from S3, so they run on their own executor rather than on the
+ * common pool or the parsing pool of the loader, which must not wait for itself.
+ */
+public class AsyncS3DataLoader {
+
+  private static ExecutorService defaultExecutor;
+
+  private final S3DataLoader loader;
+  private final Executor executor;
+
+  /**
+   * Constructor for AsyncS3DataLoader
+   *
+   * @param loader the loader that loads the datasets, must be safe to use from several threads
+   * @param executor runs the loading tasks, owned by the caller
+   */
+  public AsyncS3DataLoader(S3DataLoader loader, Executor executor) {
+    this.loader = loader;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates an asynchronous view that runs its tasks on a shared pool of daemon threads, which is
+   * kept for later requests to the same Lambda container
+   *
+   * @param loader the loader that loads the datasets
+   * @return A new asynchronous view on the loader
+   */
+  public static AsyncS3DataLoader of(S3DataLoader loader) {
+    return new AsyncS3DataLoader(loader, getDefaultExecutor());
+  }
+
+  private static synchronized ExecutorService getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      defaultExecutor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "s3-data-loader");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Loads a dataset asynchronously
+   *
+   * @param load loads the dataset
+   * @param <T> type of the dataset
+   * @return the future dataset
+   */
+  public <T> CompletableFuture<T> supply(S3DataLoader.Load<T> load) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return load.get();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * Loads a dataset asynchronously once the dataset it depends on is complete. If the input
+   * fails, the dataset fails with the same exception without being loaded.
+   *
+   * @param input the future input
+   * @param load loads the dataset for the input
+   * @param <I> type of the input
+   * @param <T> type of the dataset
+   * @return the future dataset
+   */
+  public <I, T> CompletableFuture<T> then(CompletableFuture<I> input,
+      DependentLoad<? super I, T> load) {
+    return input.thenApplyAsync(value -> {
+      try {
+        return load.apply(value);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * @see S3DataLoader#loadNetwork(Map, Map)
+   */
+  public CompletableFuture<Network> loadNetwork(Map<Integer, Set<Integer>> portIdsByModuleTypeIds,
+      Map<Integer, Set<Integer>> extensionPoints) {
+    return supply(() -> loader.loadNetwork(portIdsByModuleTypeIds, extensionPoints));
+  }
+
+  /**
+   * @see S3DataLoader#loadPlantNetwork()
+   */
+  public CompletableFuture<Network> loadPlantNetwork() {
+    return supply(loader::loadPlantNetwork);
+  }
+
+  /**
+   * @see S3DataLoader#getAlarmTypesFromS3()
+   */
+  public CompletableFuture<Map<Integer, AlarmType>> getAlarmTypes() {
+    return supply(loader::getAlarmTypesFromS3);
+  }
+
+  /**
+   * @see S3DataLoader#getAlarmsFromS3(Set)
+   */
+  public CompletableFuture<Map<Port, List<Alarm>>> getAlarms(
+      CompletableFuture<? extends Set<Port>> ports) {
+    return then(ports, loader::getAlarmsFromS3);
+  }
+
+  /**
+   * @see S3DataLoader#getBinaryTrends(Set)
+   */
+  public CompletableFuture<Map<Port, BinaryTrend>> getBinaryTrends(
+      CompletableFuture<? extends Set<Port>> ports) {
+    return then(ports, loader::getBinaryTrends);
+  }
+
+  /**
+   * @see S3DataLoader#getAnalogTrends(Set)
+   */
+  public CompletableFuture<Map<Port, AnalogTrend>> getAnalogTrends(
+      CompletableFuture<? extends Set<Port>> ports) {
+    return then(ports, loader::getAnalogTrends);
+  }
+
+  /**
+   * @see S3DataLoader#getOperatorActions(Set)
+   */
+  public CompletableFuture<Multimap<Port, OperatorAction>> getOperatorActions(
+      CompletableFuture<? extends Set<Port>> ports) {
+    return then(ports, loader::getOperatorActions);
+  }
+
+  /**
+   * Waits for a dataset
+   *
+   * @param future the future dataset
+   * @param <T> type of the dataset
+   * @return the dataset
+   * @throws IOException if loading the dataset or one of its inputs failed with an
+   * {@link IOException}; unchecked exceptions are rethrown as they are
+   */
+  public static <T> T await(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      while (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Loads a dataset that depends on another one
+   *
+   * @param <I> type of the input
+   * @param <T> type of the dataset
+   */
+  @FunctionalInterface
+  public interface DependentLoad<I, T> {
+
+    /**
+     * Loads the dataset
+     *
+     * @param input the complete input
+     * @return the dataset
+     * @throws IOException if the dataset could not be read
+     */
+    T apply(I input) throws IOException;
+  }
+}
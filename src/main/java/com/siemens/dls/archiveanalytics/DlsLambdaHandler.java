@@ -67,7 +67,9 @@ public abstract class DlsLambdaHandler {
   }
 
   private static S3DataLoader prepareDefaultS3DataLoader() {
-    return new S3DataLoader();
+    S3DataLoader s3DataLoader = new S3DataLoader();
+    s3DataLoader.configure(System::getenv);
+    return s3DataLoader;
   }
 
   /**
@@ -12,18 +12,26 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.siemens.dls.archiveanalytics.ddb.DlsDdbClient;
 import com.siemens.dls.archiveanalytics.model.Connection;
 import com.siemens.dls.archiveanalytics.model.JoinRow;
+import com.siemens.dls.archiveanalytics.model.LongObjectMap;
+import com.siemens.dls.archiveanalytics.model.LongSet;
 import com.siemens.dls.archiveanalytics.model.Module;
 import com.siemens.dls.archiveanalytics.model.Port;
 import com.siemens.dls.archiveanalytics.model.PortDirection;
 import com.siemens.dls.archiveanalytics.model.PortKey;
-import com.siemens.dls.archiveanalytics.model.Tuple;
+import com.siemens.dls.archiveanalytics.model.TrendSeries;
+import com.siemens.dls.archiveanalytics.parser.CsvLineFilter;
+import com.siemens.dls.archiveanalytics.parser.CsvScan;
+import com.siemens.dls.archiveanalytics.parser.DlsCsvParser;
+import com.siemens.dls.archiveanalytics.parser.ProjectedFilter;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -67,6 +75,22 @@ public abstract class FumHandler extends DlsLambdaHandler {
           "FUM_BSMON", ImmutableSet.of(10, 20),
           "FUM_TTMON", ImmutableSet.of(10, 20));
 
+  /**
+   * Keeps the output ports during a {@link CsvScan} of the ports, see
+   * {@link #loadHwOutputPorts(Map, CsvScan.Deferred)}
+   */
+  protected static final CsvLineFilter OUTPUT_PORT_FILTER = ProjectedFilter.of(
+      line -> line.hasColumn(Port.IO_COLUMN_INDEX)
+          && PortDirection.O == Port.extractDirection(line), Port.IO_COLUMN_INDEX);
+
+  /**
+   * The columns of the output ports kept during a {@link CsvScan} of the ports, i.e. the ones
+   * the engineering result needs of the hardware output ports
+   */
+  private static final int[] HW_OUTPUT_PORT_COLUMNS = {Port.AFI_COLUMN_INDEX,
+      Port.ID_COLUMN_INDEX, Port.NAME_COLUMN_INDEX, Port.IO_COLUMN_INDEX,
+      Port.UNIQUENAME_COLUMN_INDEX};
+
   private static final String STATUS_SUFFIX = "_STATUS";
   private static final String DDB_FIELDDIAG = "diag";
   private static final String DDB_FIELD_RISING = "rising";
@@ -89,21 +113,32 @@ public abstract class FumHandler extends DlsLambdaHandler {
     super(s3, ddb);
   }
 
+  /**
+   * Constructor for creating the handler with a given {@link S3DataLoader} and
+   * {@link DlsDdbClient}
+   *
+   * @param s3DataLoader the S3DataLoader that will be used
+   * @param ddbClient the DlsDdbClient that will be used
+   */
+  public FumHandler(S3DataLoader s3DataLoader, DlsDdbClient ddbClient) {
+    super(s3DataLoader, ddbClient);
+  }
+
   /**
    * Combine the engineering data to one {@link List}
    *
    * @param connections The {@link Set} of module connections
-   * @param hwOutputPortsByKey Map of output ports indexed by port key
-   * @param fumInputPortsByKey Map of input ports indexed by port key
+   * @param hwOutputPortsByKey Map of output ports indexed by packed port key
+   * @param fumInputPortsByKey Map of input ports indexed by packed port key
    * @return A {@link List} of the joined ports by their connections
    */
   protected List<JoinRow> collectEngResult(Set<Connection> connections,
-      ImmutableMap<PortKey, Port> hwOutputPortsByKey,
-      ImmutableMap<PortKey, Port> fumInputPortsByKey) {
+      LongObjectMap<Port> hwOutputPortsByKey,
+      LongObjectMap<Port> fumInputPortsByKey) {
     return connections.stream()
         .peek(c -> {
-          c.setInPort(fumInputPortsByKey.get(c.getIn()));
-          c.setOutPort(hwOutputPortsByKey.get(c.getOut()));
+          c.setInPort(fumInputPortsByKey.get(c.getIn().toLong()));
+          c.setOutPort(hwOutputPortsByKey.get(c.getOut().toLong()));
         })
         .filter(c -> findStatusPort(c) != null)
         .map(c -> new JoinRow()
@@ -154,14 +189,40 @@ public abstract class FumHandler extends DlsLambdaHandler {
    * @return A {@link List} of {@link Port}s
    */
   protected List<Port> loadHwOutputPorts(Map<Integer, Module> hwModulesById) throws IOException {
-    List<Port> hwOutputPorts = s3DataLoader.loadPortsFromS3(
-        line -> line.length > Port.IO_COLUMN_INDEX &&
-            hwModulesById.containsKey(Port.extractAfiId(line)) &&
-            PortDirection.O == Port.extractDirection(line), hwModulesById);
+    List<Port> hwOutputPorts = s3DataLoader.streamPortsFromS3(hwOutputPortFilter(hwModulesById),
+        hwModulesById)
+        .collect(Collectors.toList());
     LOGGER.info("loaded hw output ports: " + hwOutputPorts.size());
     return hwOutputPorts;
   }
 
+  /**
+   * Select the output ports of hardware modules from the output ports kept by a {@link CsvScan}
+   * of the ports. The scan only keeps the columns the engineering result needs, so the selected
+   * ports have an id, name, direction and unique name, but their other fields are empty.
+   *
+   * @param hwModulesById A {@link Map} of modules indexed by their id
+   * @param outputPorts the output ports kept by the scan, see {@link #OUTPUT_PORT_FILTER}
+   * @return A {@link List} of {@link Port}s
+   * @throws IOException if the scan could not keep the output ports
+   */
+  protected List<Port> loadHwOutputPorts(Map<Integer, Module> hwModulesById,
+      CsvScan.Deferred outputPorts) throws IOException {
+    List<Port> hwOutputPorts = S3DataLoader.addToModules(
+        outputPorts.select(hwOutputPortFilter(hwModulesById), DlsCsvParser::lineToPort),
+        hwModulesById);
+    LOGGER.info("selected hw output ports: " + hwOutputPorts.size());
+    return hwOutputPorts;
+  }
+
+  private static CsvLineFilter hwOutputPortFilter(Map<Integer, Module> hwModulesById) {
+    return ProjectedFilter.of(
+        line -> line.hasColumn(Port.IO_COLUMN_INDEX) &&
+            hwModulesById.containsKey(Port.extractAfiId(line)) &&
+            PortDirection.O == Port.extractDirection(line),
+        Port.AFI_COLUMN_INDEX, Port.IO_COLUMN_INDEX);
+  }
+
   /**
    * Load the hardware modules from S3
    *
@@ -169,9 +230,9 @@ public abstract class FumHandler extends DlsLambdaHandler {
    * @return The hardware {@link Module} instances indexed by their id
    */
   protected Map<Integer, Module> loadHwModules(Set<Integer> hwModuleIds) throws IOException {
-    Map<Integer, Module> hwModulesById = s3DataLoader.getModulesByIdFromS3(
-        line -> line.length > Module.ID_COLUMN_INDEX &&
-            hwModuleIds.contains(Module.extractId(line)));
+    Map<Integer, Module> hwModulesById = s3DataLoader.getModulesByIdFromS3(ProjectedFilter.of(
+        line -> line.hasColumn(Module.ID_COLUMN_INDEX) &&
+            hwModuleIds.contains(Module.extractId(line)), Module.ID_COLUMN_INDEX));
     LOGGER.info("loaded hw modules: " + hwModulesById.size());
     return hwModulesById;
   }
@@ -183,41 +244,34 @@ public abstract class FumHandler extends DlsLambdaHandler {
    * @throws IOException if th loading operation failed
    */
   protected Set<Connection> loadConnectionsToFumInputPorts(
-      Set<Tuple<Integer, Integer>> fumInputPortKeyRefs) throws IOException {
-    Set<Connection> connections = s3DataLoader.loadConnections(
-        line -> line.length > Connection.PORT2_COLUMN_INDEX
+      LongSet fumInputPortKeyRefs) throws IOException {
+    Set<Connection> connections = s3DataLoader.streamConnections(ProjectedFilter.of(
+        line -> line.hasColumn(Connection.PORT2_COLUMN_INDEX)
             && fumInputPortKeyRefs.contains(
-            new Tuple<>(Connection.extractAfi2(line),
-                Connection.extractPort2(line)))).collect(Collectors.toSet());
+            PortKey.pack(Connection.extractAfi2(line), Connection.extractPort2(line))),
+        Connection.AFI2_COLUMN_INDEX, Connection.PORT2_COLUMN_INDEX))
+        .collect(Collectors.toSet());
     LOGGER.info("loaded connections: " + connections.size());
     return connections;
   }
 
   /**
-   * Converts a {@link List} of input {@link Port}s to a {@link Set} of their key references
+   * Converts a {@link List} of input {@link Port}s to a {@link LongSet} of their packed keys
    *
    * @param fumInputPorts The input {@link List}
-   * @return The created {@link Set}
+   * @return The created {@link LongSet}
    */
-  protected Set<Tuple<Integer, Integer>> collectFumInputPortKeyRefs(List<Port> fumInputPorts) {
-    Set<Tuple<Integer, Integer>> fumInputPortKeyRefs = fumInputPorts.stream()
-        .map(p -> new Tuple<>(p.getAfiId(), p.getId()))
-        .collect(Collectors.toSet());
+  protected LongSet collectFumInputPortKeyRefs(List<Port> fumInputPorts) {
+    LongSet fumInputPortKeyRefs = new LongSet(fumInputPorts.size());
+    fumInputPorts.forEach(p -> fumInputPortKeyRefs.add(p.getPackedKey()));
     LOGGER.info("Collected fumInputPorts key refs: " + fumInputPortKeyRefs.size());
     return fumInputPortKeyRefs;
   }
 
-  /**
-   * Load ports for specified FUM modules from S3
-   *
-   * @param fumModulesById An id-indexec {@link Map} of FUM {@link Module}s
-   * @return A {@link List} of {@link Port}s
-   */
-  protected List<Port> loadFumInputAndTrblAlPorts(Map<Integer, Module> fumModulesById)
-      throws IOException {
-    List<Port> fumInputAndTrblAlPorts = s3DataLoader.loadPortsFromS3(
+  private static CsvLineFilter fumInputAndTrblAlPortFilter(Map<Integer, Module> fumModulesById) {
+    return ProjectedFilter.of(
         line -> {
-          if (line.length <= Port.IO_COLUMN_INDEX) {
+          if (!line.hasColumn(Port.IO_COLUMN_INDEX)) {
             return false;
           }
           int afiid = Port.extractAfiId(line);
@@ -227,12 +281,10 @@ public abstract class FumHandler extends DlsLambdaHandler {
                   && FUM_SYMBOLS.get(fumModulesById.get(afiid)
                   .getSymbol()) //port is one of the allowed input ports for the FUM module type
                   .contains(Port.extractId(line)) ||
-                  PORT_NAME_TRBL_AL.equals(Port.extractName(line))); //port is TRBL_AL
+                  line.contentEquals(Port.NAME_COLUMN_INDEX, PORT_NAME_TRBL_AL)); //port is TRBL_AL
 
-        }, fumModulesById);
-
-    LOGGER.info("Loaded fumInputAndTrblAlPorts from S3: " + fumInputAndTrblAlPorts.size());
-    return fumInputAndTrblAlPorts;
+        }, Port.AFI_COLUMN_INDEX, Port.ID_COLUMN_INDEX, Port.NAME_COLUMN_INDEX,
+        Port.IO_COLUMN_INDEX);
   }
 
   /**
@@ -242,9 +294,9 @@ public abstract class FumHandler extends DlsLambdaHandler {
    */
   protected Map<Integer, Module> loadFumModules() throws IOException {
     LOGGER.info("Reading FUM modules from S3");
-    Map<Integer, Module> fumModulesById = s3DataLoader.getModulesByIdFromS3(
-        line -> line.length > Module.SYMBOL_COLUMN_INDEX && FUM_SYMBOLS
-            .containsKey(Module.extractSymbol(line)));
+    Map<Integer, Module> fumModulesById = s3DataLoader.getModulesByIdFromS3(ProjectedFilter.of(
+        line -> line.hasColumn(Module.SYMBOL_COLUMN_INDEX) && FUM_SYMBOLS
+            .containsKey(Module.extractSymbol(line)), Module.SYMBOL_COLUMN_INDEX));
     LOGGER.info("Read and indexed FUM modules from S3: " + fumModulesById.size());
     return fumModulesById;
   }
@@ -319,31 +371,48 @@ public abstract class FumHandler extends DlsLambdaHandler {
   protected List<JoinRow> calculateEngData()
       throws IOException {
     Map<Integer, Module> fumModulesById = loadFumModules();
-    List<Port> fumInputAndTrblAlPorts = loadFumInputAndTrblAlPorts(
-        fumModulesById);
-    Map<PortDirection, List<Port>> fumPortsGroupedByDirection = fumInputAndTrblAlPorts.stream()
-        .collect(Collectors.groupingBy(Port::getDirection));
-    Set<Tuple<Integer, Integer>> fumInputPortKeyRefs = collectFumInputPortKeyRefs(
-        fumPortsGroupedByDirection.get(PortDirection.I));
-
-    Set<Connection> connections = loadConnectionsToFumInputPorts(fumInputPortKeyRefs);
-
-    Set<Integer> hwModuleIds = connections.stream().map(c -> c.getOut().getAfiId())
-        .collect(Collectors.toSet());
-    LOGGER.info("collected hwModuleIds: " + hwModuleIds.size());
-
-    Map<Integer, Module> hwModulesById = loadHwModules(hwModuleIds);
-
-    List<Port> hwOutputPorts = loadHwOutputPorts(hwModulesById);
-
-    ImmutableMap<PortKey, Port> hwOutputPortsByKey = Maps
-        .uniqueIndex(hwOutputPorts, Port::getKey);
-    ImmutableMap<PortKey, Port> fumPortsByKey = Maps
-        .uniqueIndex(fumInputAndTrblAlPorts, Port::getKey);
-    LOGGER.info("indexed all ports");
-
-    return collectEngResult(connections, hwOutputPortsByKey,
-        fumPortsByKey);
+    // the hardware modules are only known once the connections to the FUM ports have been
+    // loaded, so their output ports are selected afterwards from the output ports kept by the scan
+    try (CsvScan portsScan = s3DataLoader.scanEngineeringFile(S3DataLoader.PORTS_CSV)) {
+      Supplier<List<Port>> fumPorts = portsScan
+          .subscribe(fumInputAndTrblAlPortFilter(fumModulesById), DlsCsvParser::lineToPort);
+      CsvScan.Deferred outputPorts = portsScan
+          .defer(OUTPUT_PORT_FILTER, HW_OUTPUT_PORT_COLUMNS);
+      portsScan.run();
+
+      List<Port> fumInputAndTrblAlPorts = S3DataLoader
+          .addToModules(fumPorts.get(), fumModulesById);
+      LOGGER.info("Loaded fumInputAndTrblAlPorts from S3: " + fumInputAndTrblAlPorts.size());
+      Map<PortDirection, List<Port>> fumPortsGroupedByDirection = fumInputAndTrblAlPorts.stream()
+          .collect(Collectors.groupingBy(Port::getDirection));
+      LongSet fumInputPortKeyRefs = collectFumInputPortKeyRefs(
+          fumPortsGroupedByDirection.get(PortDirection.I));
+
+      Set<Connection> connections = loadConnectionsToFumInputPorts(fumInputPortKeyRefs);
+
+      Set<Integer> hwModuleIds = connections.stream().map(c -> c.getOut().getAfiId())
+          .collect(Collectors.toSet());
+      LOGGER.info("collected hwModuleIds: " + hwModuleIds.size());
+
+      Map<Integer, Module> hwModulesById = loadHwModules(hwModuleIds);
+
+      List<Port> hwOutputPorts;
+      try {
+        hwOutputPorts = loadHwOutputPorts(hwModulesById, outputPorts);
+      } catch (IOException e) {
+        LOGGER.warn("Could not keep the output ports during the scan, reading them again", e);
+        hwOutputPorts = loadHwOutputPorts(hwModulesById);
+      }
+
+      LongObjectMap<Port> hwOutputPortsByKey = LongObjectMap
+          .uniqueIndex(hwOutputPorts, Port::getPackedKey);
+      LongObjectMap<Port> fumPortsByKey = LongObjectMap
+          .uniqueIndex(fumInputAndTrblAlPorts, Port::getPackedKey);
+      LOGGER.info("indexed all ports");
+
+      return collectEngResult(connections, hwOutputPortsByKey,
+          fumPortsByKey);
+    }
   }
 
   /**
@@ -358,10 +427,12 @@ public abstract class FumHandler extends DlsLambdaHandler {
     return Maps
         .transformEntries(s3DataLoader.loadAnalogTrends(uniquePortNames), (uniqueName, analogTrend) -> {
           Map<Integer, Integer> countsByValue = new HashMap<>();
-          analogTrend.getTrends().stream()
-              .filter(t -> t.getMillis() != 0)
-              .filter(t -> t.getValue() > 0)  //defcode (diag) > 0
-              .forEach(t -> countsByValue.merge((int) t.getValue(), 1, (i1, i2) -> i1 + i2));
+          TrendSeries series = analogTrend.getSeries();
+          for (int i = 0; i < series.size(); i++) {
+            if (series.getMillis(i) != 0 && series.getValue(i) > 0) { //defcode (diag) > 0
+              countsByValue.merge((int) series.getValue(i), 1, (i1, i2) -> i1 + i2);
+            }
+          }
           return countsByValue;
         });
   }
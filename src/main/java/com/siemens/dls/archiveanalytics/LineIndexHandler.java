@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.siemens.dls.archiveanalytics.ddb.DlsDdbClient;
+import java.io.IOException;
+import org.apache.log4j.Logger;
+
+/**
+ * Builds the line indexes of the files of a plant, see {@link S3DataLoader#buildLineIndexes()}.
+ * Run it after the files have been uploaded and before the handlers that read them, which use
+ * the indexes if {@link S3DataLoader#USE_LINE_INDEXES} is set.
+ */
+public class LineIndexHandler extends DlsLambdaHandler {
+
+  private static final String USECASE = "lineindex";
+
+  private static final Logger LOG = Logger.getLogger(LineIndexHandler.class);
+
+  public LineIndexHandler() {
+    // noop
+  }
+
+  public LineIndexHandler(S3DataLoader loader, DlsDdbClient ddb) {
+    super(loader, ddb);
+  }
+
+  /**
+   * @see DlsLambdaHandler::getUseCase
+   */
+  @Override
+  public String getUseCase() {
+    return USECASE;
+  }
+
+  @Override
+  protected DlsProducerLambdaResult handleRequestInternal(DlsProducerLambdaParams params,
+      Context context) throws IOException {
+    LOG.info(String.format("Line Index Handler: begin handling request for plant %s",
+        params.getPpid()));
+    s3DataLoader.buildLineIndexes();
+    return new DlsProducerLambdaResult(true);
+  }
+}
@@ -9,16 +9,41 @@ package com.siemens.dls.archiveanalytics;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Strings;
 import com.google.common.collect.*;
+import com.google.common.hash.Hashing;
 import com.opencsv.bean.CsvToBeanFilter;
 import com.siemens.dls.archiveanalytics.model.*;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
+import com.siemens.dls.archiveanalytics.parser.CsvLineFilter;
+import com.siemens.dls.archiveanalytics.parser.ContentEncoding;
+import com.siemens.dls.archiveanalytics.parser.DiskEngineeringDataCache;
+import com.siemens.dls.archiveanalytics.parser.CsvScan;
 import com.siemens.dls.archiveanalytics.parser.DlsCsvParser;
+import com.siemens.dls.archiveanalytics.parser.EngineeringDataCache;
+import com.siemens.dls.archiveanalytics.parser.FieldSet;
+import com.siemens.dls.archiveanalytics.parser.IndexedS3Reader;
+import com.siemens.dls.archiveanalytics.parser.LineIndex;
+import com.siemens.dls.archiveanalytics.parser.ParallelRangeS3Reader;
+import com.siemens.dls.archiveanalytics.parser.ProjectedFilter;
 import com.siemens.dls.archiveanalytics.parser.S3Reader;
 import org.apache.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -39,15 +64,53 @@ public class S3DataLoader {
   protected static final String ALARM_TYPE_CSV = "AlarmType.csv";
   protected static final String ANALOG_TREND_CSV = "AnalogTrend.csv";
   protected static final String BINARY_TREND_CSV = "BinaryTrend.csv";
+  /**
+   * Environment variable for {@link #setParsingParallelism(int)}
+   */
+  public static final String PARSING_PARALLELISM = "PARSING_PARALLELISM";
+  /**
+   * Environment variable for {@link #setParsingChunkSize(int)}
+   */
+  public static final String PARSING_CHUNK_SIZE = "PARSING_CHUNK_SIZE";
+  /**
+   * Environment variable for {@link #setPreserveOrder(boolean)}, true or false
+   */
+  public static final String PARSING_PRESERVE_ORDER = "PARSING_PRESERVE_ORDER";
+  /**
+   * Environment variable for the directory of a {@link DiskEngineeringDataCache}, see
+   * {@link #setEngineeringDataCache(EngineeringDataCache)}
+   */
+  public static final String ENGINEERING_DATA_CACHE_DIRECTORY = "ENGINEERING_DATA_CACHE_DIRECTORY";
+  /**
+   * Environment variable for {@link #setNetworkSnapshotDirectory(Path)}
+   */
+  public static final String NETWORK_SNAPSHOT_DIRECTORY = "NETWORK_SNAPSHOT_DIRECTORY";
+  /**
+   * Environment variable for {@link #setUseLineIndexes(boolean)}, true or false
+   */
+  public static final String USE_LINE_INDEXES = "USE_LINE_INDEXES";
   private static final ImmutableMap<Class<? extends AbstractTrend>, String> TREND_FILE_NAMES =
       ImmutableMap.of(
           AnalogTrend.class, ANALOG_TREND_CSV,
           BinaryTrend.class, BINARY_TREND_CSV
       );
+  /**
+   * Lines of other keys between the lines of a {@link LineIndex} up to this size are fetched
+   * and filtered out rather than split into another GET
+   */
+  private static final int LINE_INDEX_MAX_GAP = 64 * 1024;
 
   private final AmazonS3 s3Client;
   private String bucket;
   private DlsProducerLambdaParams params;
+  private int parsingParallelism = 1;
+  private int parsingChunkSize = ParallelRangeS3Reader.DEFAULT_CHUNK_SIZE;
+  private boolean preserveOrder = true;
+  private ForkJoinPool parsingPool;
+  private EngineeringDataCache engineeringDataCache;
+  private Path networkSnapshotDirectory;
+  private boolean useLineIndexes;
+  private final Map<String, LineIndex> lineIndexes = new ConcurrentHashMap<>();
 
   private static final Logger LOGGER = Logger.getLogger(S3DataLoader.class);
 
@@ -90,6 +153,242 @@ public class S3DataLoader {
     }
   }
 
+  /**
+   * Applies the optional settings of the environment, see {@link #PARSING_PARALLELISM},
+   * {@link #PARSING_CHUNK_SIZE}, {@link #PARSING_PRESERVE_ORDER},
+   * {@link #ENGINEERING_DATA_CACHE_DIRECTORY}, {@link #NETWORK_SNAPSHOT_DIRECTORY} and
+   * {@link #USE_LINE_INDEXES}. Settings that are not defined keep their defaults.
+   *
+   * @param environment provides the value of an environment variable or null, e.g.
+   * {@code System::getenv}
+   * @throws IllegalArgumentException if a setting is malformed
+   */
+  void configure(Function<String, String> environment) {
+    String parallelism = environment.apply(PARSING_PARALLELISM);
+    if (!Strings.isNullOrEmpty(parallelism)) {
+      setParsingParallelism(parseInt(PARSING_PARALLELISM, parallelism));
+    }
+    String chunkSize = environment.apply(PARSING_CHUNK_SIZE);
+    if (!Strings.isNullOrEmpty(chunkSize)) {
+      setParsingChunkSize(parseInt(PARSING_CHUNK_SIZE, chunkSize));
+    }
+    String preserveOrder = environment.apply(PARSING_PRESERVE_ORDER);
+    if (!Strings.isNullOrEmpty(preserveOrder)) {
+      setPreserveOrder(Boolean.parseBoolean(preserveOrder));
+    }
+    String cacheDirectory = environment.apply(ENGINEERING_DATA_CACHE_DIRECTORY);
+    if (!Strings.isNullOrEmpty(cacheDirectory)) {
+      setEngineeringDataCache(new DiskEngineeringDataCache(
+          FileSystems.getDefault().getPath(cacheDirectory)));
+    }
+    String snapshotDirectory = environment.apply(NETWORK_SNAPSHOT_DIRECTORY);
+    if (!Strings.isNullOrEmpty(snapshotDirectory)) {
+      setNetworkSnapshotDirectory(FileSystems.getDefault().getPath(snapshotDirectory));
+    }
+    String useLineIndexes = environment.apply(USE_LINE_INDEXES);
+    if (!Strings.isNullOrEmpty(useLineIndexes)) {
+      setUseLineIndexes(Boolean.parseBoolean(useLineIndexes));
+    }
+  }
+
+  private static int parseInt(String variable, String value) {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          String.format("Environment variable %s must be a number: %s", variable, value), e);
+    }
+  }
+
+  /**
+   * Setter for the number of threads that fetch and parse the large files, i.e. ports,
+   * connections and trends. With more than one thread these files are read by a
+   * {@link ParallelRangeS3Reader} and parsed chunk by chunk on a {@link ForkJoinPool}.
+   *
+   * @param parsingParallelism the number of threads, 1 to read the files sequentially
+   */
+  void setParsingParallelism(int parsingParallelism) {
+    if (parsingParallelism < 1) {
+      throw new IllegalArgumentException(
+          String.format("Parsing parallelism %d must be positive", parsingParallelism));
+    }
+    this.parsingParallelism = parsingParallelism;
+  }
+
+  /**
+   * Setter for the number of bytes a parallel reader fetches and parses at once
+   *
+   * @param parsingChunkSize the chunk size, {@link ParallelRangeS3Reader#DEFAULT_CHUNK_SIZE} by
+   * default
+   */
+  void setParsingChunkSize(int parsingChunkSize) {
+    if (parsingChunkSize < 1) {
+      throw new IllegalArgumentException(
+          String.format("Parsing chunk size %d must be positive", parsingChunkSize));
+    }
+    this.parsingChunkSize = parsingChunkSize;
+  }
+
+  /**
+   * Setter for the order of objects parsed in parallel
+   *
+   * @param preserveOrder true to provide them in file order, false to provide each chunk of a
+   * file as soon as it has been parsed
+   */
+  void setPreserveOrder(boolean preserveOrder) {
+    this.preserveOrder = preserveOrder;
+  }
+
+  /**
+   * Setter for the cache of the engineering files, i.e. modules, ports, connections and alarm
+   * types. With a parsing parallelism above 1, the cached files are parsed in parallel as well,
+   * see {@link EngineeringDataCache#getParallelReader}. Line indexes are not used for cached
+   * files.
+   *
+   * @param engineeringDataCache the cache, e.g. a {@link DiskEngineeringDataCache}, or null to
+   * always read the files from S3
+   */
+  void setEngineeringDataCache(EngineeringDataCache engineeringDataCache) {
+    this.engineeringDataCache = engineeringDataCache;
+  }
+
+  /**
+   * Setter for the directory of the {@link NetworkSnapshot}s written by
+   * {@link #loadPlantNetwork()} and {@link #loadNetwork(Map, Map)}
+   *
+   * @param networkSnapshotDirectory the directory, created on demand, or null to always load the
+   * networks from the CSV files
+   */
+  void setNetworkSnapshotDirectory(Path networkSnapshotDirectory) {
+    this.networkSnapshotDirectory = networkSnapshotDirectory;
+  }
+
+  /**
+   * Setter for the use of the {@link LineIndex}es written by {@link #buildLineIndexes()}. With
+   * line indexes, the trends of some ports and the ports of some modules are read by ranged GETs
+   * of their lines only. Files without an index or with a stale one are read as a whole.
+   *
+   * @param useLineIndexes true to use the line indexes
+   */
+  void setUseLineIndexes(boolean useLineIndexes) {
+    this.useLineIndexes = useLineIndexes;
+  }
+
+  /**
+   * Builds the {@link LineIndex}es of Ports.csv by afiid and of the trend files by tagname and
+   * writes each of them as a sidecar object next to its file, see
+   * {@link LineIndex#sidecarKey(String)}. Run it once after the files have been uploaded, e.g. by
+   * the {@link LineIndexHandler}; until then, the loader reads the files as a whole. Compressed
+   * files are not indexed.
+   *
+   * @throws IOException if a file could not be read
+   */
+  public void buildLineIndexes() throws IOException {
+    buildLineIndex(getEngFileKey(params, PORTS_CSV), Port.AFI_COLUMN_INDEX);
+    for (String fileName : TREND_FILE_NAMES.values()) {
+      buildLineIndex(getArcFileKey(params, fileName), AbstractTrend.TAGNAME_COLUMN_INDEX);
+    }
+  }
+
+  private void buildLineIndex(String key, int keyColumn) throws IOException {
+    LineIndex index;
+    try (S3Object object = s3Client.getObject(bucket, key)) {
+      if (ContentEncoding.of(key, object.getObjectMetadata()) != ContentEncoding.IDENTITY) {
+        LOGGER.info("Not indexing compressed file " + key);
+        object.getObjectContent().abort();
+        return;
+      }
+      index = LineIndex.build(object.getObjectContent(), keyColumn, S3Reader.DEFAULT_CHARSET,
+          object.getObjectMetadata().getETag());
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    index.write(bytes);
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(bytes.size());
+    s3Client.putObject(bucket, LineIndex.sidecarKey(key),
+        new ByteArrayInputStream(bytes.toByteArray()), metadata);
+    LOGGER.info(String.format("Wrote line index of %s, %d bytes", key, bytes.size()));
+  }
+
+  /**
+   * Provides a reader for the lines of some keys of a file, if line indexes are used and the file
+   * has an up to date index
+   *
+   * @param key the object key of the file
+   * @param keys the values of the indexed column
+   * @return the reader or null to read the whole file
+   */
+  private IndexedS3Reader getIndexedReader(String key, Collection<String> keys) {
+    if (!useLineIndexes) {
+      return null;
+    }
+    String eTag = s3Client.getObjectMetadata(bucket, key).getETag();
+    LineIndex index = lineIndexes.get(key);
+    if (index == null || !index.getETag().equals(eTag)) {
+      try (S3Object object = s3Client.getObject(bucket, LineIndex.sidecarKey(key))) {
+        index = LineIndex.read(object.getObjectContent());
+      } catch (AmazonS3Exception e) {
+        if (e.getStatusCode() != 404) {
+          throw e;
+        }
+        LOGGER.info("No line index of " + key);
+        return null;
+      } catch (IOException e) {
+        LOGGER.warn("Could not read line index of " + key, e);
+        return null;
+      }
+      if (!index.getETag().equals(eTag)) {
+        LOGGER.warn("Ignoring stale line index of " + key);
+        return null;
+      }
+      lineIndexes.put(key, index);
+    }
+    List<LineIndex.Range> ranges = index.ranges(keys, LINE_INDEX_MAX_GAP,
+        ParallelRangeS3Reader.DEFAULT_CHUNK_SIZE);
+    LOGGER.info(String.format("Reading %d ranges of %s", ranges.size(), key));
+    return new IndexedS3Reader(s3Client, bucket, key, getParsingPool(), 2 * parsingParallelism,
+        ranges, eTag);
+  }
+
+  /**
+   * Provides the reader for an engineering file, from the cache if there is one
+   *
+   * @param fileName the relative file name, e.g. {@link #PORTS_CSV}
+   * @return the reader
+   */
+  private S3Reader getEngineeringReader(String fileName) {
+    String key = getEngFileKey(params, fileName);
+    if (engineeringDataCache == null) {
+      return getLargeFileReader(key);
+    }
+    if (parsingParallelism <= 1) {
+      return engineeringDataCache.getReader(s3Client, bucket, key);
+    }
+    return engineeringDataCache.getParallelReader(s3Client, bucket, key, getParsingPool(),
+        parsingChunkSize, 2 * parsingParallelism);
+  }
+
+  /**
+   * Provides the reader for a large file, depending on the parsing parallelism
+   *
+   * @param key the object key of the file
+   * @return a parallel reader or a plain {@link S3Reader} for a parallelism of 1
+   */
+  private S3Reader getLargeFileReader(String key) {
+    if (parsingParallelism <= 1) {
+      return new S3Reader(s3Client, bucket, key);
+    }
+    return new ParallelRangeS3Reader(s3Client, bucket, key, getParsingPool(), parsingChunkSize,
+        2 * parsingParallelism);
+  }
+
+  private synchronized ForkJoinPool getParsingPool() {
+    if (parsingPool == null || parsingPool.getParallelism() != parsingParallelism) {
+      parsingPool = new ForkJoinPool(parsingParallelism);
+    }
+    return parsingPool;
+  }
+
   /**
    * Same as {@link #loadPortsFromS3(CsvToBeanFilter, Map)}, but returns the {@link Stream}
    * collected to {@link List}
@@ -115,29 +414,96 @@ public class S3DataLoader {
    */
   public Stream<Port> streamPortsFromS3(CsvToBeanFilter filter, Map<Integer, Module> moduleLookup)
       throws IOException {
-    S3Reader portsReader = new S3Reader(s3Client, bucket, getEngFileKey(params, PORTS_CSV));
+    return streamPortsFromS3(CsvLineFilter.of(filter), moduleLookup);
+  }
+
+  /**
+   * Same as {@link #streamPortsFromS3(CsvToBeanFilter, Map)}, but filters by a
+   * {@link CsvLineFilter}. Use a {@link ProjectedFilter} to reject lines without splitting them.
+   *
+   * @param filter a filter to reduce the number of CSV records to be converted to {@link Port}s
+   * @param moduleLookup id-indexed {@link Map} of modules, see
+   * {@link #streamPortsFromS3(CsvToBeanFilter, Map)}
+   */
+  public Stream<Port> streamPortsFromS3(CsvLineFilter filter, Map<Integer, Module> moduleLookup)
+      throws IOException {
+    return streamPorts(getEngineeringReader(PORTS_CSV), filter, moduleLookup);
+  }
+
+  /**
+   * Same as {@link #streamPortsFromS3(CsvLineFilter, Map)}, but reads only the lines of the given
+   * modules if Ports.csv has a {@link LineIndex} that is used
+   *
+   * @param filter a filter to reduce the number of CSV records to be converted, must reject the
+   * ports of other modules
+   * @param moduleLookup id-indexed {@link Map} of the modules
+   */
+  private Stream<Port> streamPortsOfModules(CsvLineFilter filter,
+      Map<Integer, Module> moduleLookup) throws IOException {
+    S3Reader portsReader = engineeringDataCache != null ? null : getIndexedReader(
+        getEngFileKey(params, PORTS_CSV),
+        moduleLookup.keySet().stream().map(String::valueOf).collect(Collectors.toList()));
+    if (portsReader == null) {
+      return streamPortsFromS3(filter, moduleLookup);
+    }
+    return streamPorts(portsReader, filter, moduleLookup);
+  }
+
+  private Stream<Port> streamPorts(S3Reader portsReader, CsvLineFilter filter,
+      Map<Integer, Module> moduleLookup) throws IOException {
     return Utils.iteratorAsStream(getDlsCsvParser().loadPorts(portsReader, filter))
         .peek(p -> Optional.ofNullable(moduleLookup).map(l -> l.get(p.getAfiId()))
             .ifPresent(m -> m.addPort(p)));
   }
 
+  /**
+   * Assigns ports to their modules the same way {@link #streamPortsFromS3(CsvLineFilter, Map)}
+   * does, e.g. the ports of a {@link CsvScan}
+   *
+   * @param ports the ports
+   * @param moduleLookup id-indexed {@link Map} of modules
+   * @return the ports
+   */
+  static List<Port> addToModules(List<Port> ports, Map<Integer, Module> moduleLookup) {
+    ports.forEach(p -> Optional.ofNullable(moduleLookup.get(p.getAfiId()))
+        .ifPresent(m -> m.addPort(p)));
+    return ports;
+  }
+
+  /**
+   * Starts a scan of an engineering file that is shared by several consumers, so the file is
+   * read and tokenized once for all of them
+   *
+   * @param fileName the relative file name, e.g. {@link #PORTS_CSV}
+   * @return the scan, to be run once all consumers have subscribed
+   */
+  public CsvScan scanEngineeringFile(String fileName) {
+    return new CsvScan(getEngineeringReader(fileName), getDlsCsvParser());
+  }
+
   DlsCsvParser getDlsCsvParser() {
-    return new DlsCsvParser();
+    return new DlsCsvParser(preserveOrder);
   }
 
   /**
    * Load all {@link Connection}s from S3
    */
   public Stream<Connection> loadConnections() throws IOException {
-    return loadConnections(null);
+    return streamConnections(null);
   }
 
   /**
    * Load {@link Connection}s from S3, filtered by {@link CsvToBeanFilter}
    */
   public Stream<Connection> loadConnections(CsvToBeanFilter filter) throws IOException {
-    S3Reader connReader = new S3Reader(s3Client, bucket,
-        getEngFileKey(params, S3DataLoader.CONNECTIONS_CSV));
+    return streamConnections(CsvLineFilter.of(filter));
+  }
+
+  /**
+   * Load {@link Connection}s from S3, filtered by {@link CsvLineFilter}
+   */
+  public Stream<Connection> streamConnections(CsvLineFilter filter) throws IOException {
+    S3Reader connReader = getEngineeringReader(S3DataLoader.CONNECTIONS_CSV);
     DlsCsvParser parser = getDlsCsvParser();
     return Utils.iteratorAsStream(parser.loadConnections(connReader, filter));
   }
@@ -148,9 +514,7 @@ public class S3DataLoader {
    * @return An id-indexed {@link Map} of AlarmTypes
    */
   public Map<Integer, AlarmType> getAlarmTypesFromS3() {
-    S3Reader alarmTypesReader = new S3Reader(
-        s3Client, bucket, getEngFileKey(params, ALARM_TYPE_CSV)
-    );
+    S3Reader alarmTypesReader = getEngineeringReader(ALARM_TYPE_CSV);
     return Utils.iteratorAsStream(getDlsCsvParser().loadAlarmTypes(alarmTypesReader))
         .collect(Collectors.toMap(AlarmType::getId, at -> at));
   }
@@ -188,8 +552,18 @@ public class S3DataLoader {
    * @return An id-indexed {@link Map} of {@link Module}s
    */
   public Map<Integer, Module> getModulesByIdFromS3(CsvToBeanFilter filter) throws IOException {
-    S3Reader modulesReader = new S3Reader(s3Client, bucket,
-        getEngFileKey(params, S3DataLoader.AFI_CSV));
+    return getModulesByIdFromS3(CsvLineFilter.of(filter));
+  }
+
+  /**
+   * Same as {@link #getModulesByIdFromS3(CsvToBeanFilter)}, but filters by a
+   * {@link CsvLineFilter}
+   *
+   * @param filter A validation filter for the CSV-format
+   * @return An id-indexed {@link Map} of {@link Module}s
+   */
+  public Map<Integer, Module> getModulesByIdFromS3(CsvLineFilter filter) throws IOException {
+    S3Reader modulesReader = getEngineeringReader(S3DataLoader.AFI_CSV);
     return Utils.iteratorAsStream(getDlsCsvParser().loadModules(modulesReader, filter))
         .collect(Collectors.toMap(Module::getId, m -> m));
   }
@@ -198,6 +572,13 @@ public class S3DataLoader {
    * Load {@link Alarm}s from S3, filtered by {@link CsvToBeanFilter}
    */
   public Set<Alarm> getAlarmsFromS3(@Nullable CsvToBeanFilter filter) {
+    return getAlarms(CsvLineFilter.of(filter));
+  }
+
+  /**
+   * Load {@link Alarm}s from S3, filtered by {@link CsvLineFilter}
+   */
+  public Set<Alarm> getAlarms(@Nullable CsvLineFilter filter) {
     S3Reader alarmReader = new S3Reader(s3Client, bucket,
         getArcFileKey(params, S3DataLoader.ALARM_CSV));
     return Utils.iteratorAsStream(getDlsCsvParser().loadAlarms(alarmReader, filter))
@@ -215,8 +596,8 @@ public class S3DataLoader {
     ImmutableMap<String, Port> portsByTagname = Maps
         .uniqueIndex(ports, Port::getUniqueName);
 
-    Set<Alarm> alarmsFromS3 = getAlarmsFromS3(
-        line -> portsByTagname.containsKey(Alarm.extractTagname(line)));
+    Set<Alarm> alarmsFromS3 = getAlarms(
+        FieldSet.of(portsByTagname.keySet()).filter(Alarm.TAGNAME_COLUMN_INDEX));
 
     return alarmsFromS3.stream()
         .peek(a -> a.setPort(portsByTagname.get(a.getTagname())))
@@ -254,9 +635,9 @@ public class S3DataLoader {
   }
 
   /**
-   * Load {@link OperatorAction}s from S3, filtered by {@link CsvToBeanFilter}
+   * Load {@link OperatorAction}s from S3, filtered by {@link CsvLineFilter}
    */
-  private Set<OperatorAction> loadOperatorActionsFromS3(@Nullable CsvToBeanFilter filter) {
+  private Set<OperatorAction> loadOperatorActionsFromS3(@Nullable CsvLineFilter filter) {
     S3Reader operActReader = new S3Reader(s3Client, bucket,
         getArcFileKey(params, S3DataLoader.OPER_ACT_CSV));
     return Utils.iteratorAsStream(getDlsCsvParser().loadOperatorActions(operActReader, filter))
@@ -268,7 +649,7 @@ public class S3DataLoader {
         .uniqueIndex(ports, Port::getUniqueName);
 
     Set<OperatorAction> operActsFromS3 = loadOperatorActionsFromS3(
-        line -> portsByTagname.keySet().contains(OperatorAction.extractTagname(line)));
+        FieldSet.of(portsByTagname.keySet()).filter(OperatorAction.TAGNAME_COLUMN_INDEX));
     HashMultimap<Port, OperatorAction> result = HashMultimap.create();
     operActsFromS3.stream()
         .peek(oa -> oa.setPort(portsByTagname.get(oa.getTagname())))
@@ -293,20 +674,23 @@ public class S3DataLoader {
    * @return A {@link Map} of {@link AbstractTrend} values, indexed by the original port name
    */
   private <T extends AbstractTrend<T>> Map<String, T> loadTrends(Class<T> trendClazz,
-      Set<String> uniquePortNames, Function<String[], T> transformer) throws IOException {
+      Set<String> uniquePortNames, Function<CsvLine, T> transformer) throws IOException {
     LOGGER.info("Reading trends from S3");
-    S3Reader trendsReader = new S3Reader(s3Client, bucket,
-        getArcFileKey(params, TREND_FILE_NAMES.get(trendClazz)));
+    String key = getArcFileKey(params, TREND_FILE_NAMES.get(trendClazz));
+    S3Reader trendsReader = getIndexedReader(key, uniquePortNames);
+    if (trendsReader == null) {
+      trendsReader = getLargeFileReader(key);
+    }
     Map<String, T> trendsByUniqueName = Utils.iteratorAsStream(getDlsCsvParser()
         .<T>loadTrends(trendsReader,
-            line -> uniquePortNames.contains(AbstractTrend.extractTagname(line)), transformer))
+            FieldSet.of(uniquePortNames).filter(AbstractTrend.TAGNAME_COLUMN_INDEX), transformer))
         .collect(Collectors.toMap(T::getUniqueName, m -> m));
     LOGGER.info("Read and indexed trends from S3: " + trendsByUniqueName.size());
     return trendsByUniqueName;
   }
 
   private <T extends AbstractTrend<T>> Map<Port, T> getTrends(Class<T> clazz, Set<Port> ports,
-      Function<String[], T> transformer)
+      Function<CsvLine, T> transformer)
       throws IOException {
     // In the rare case when the plant has been engineered incorrectly and has multiple ports
     // with the same uniquename, the trends for these ports will be cloned and assigned to
@@ -348,26 +732,117 @@ public class S3DataLoader {
       Function<Map<Integer, Module>, CsvToBeanFilter> portFilterCreator) throws IOException {
     Stream<Connection> connectionStream = loadConnections();
 
-    return loadNetworkInternal(moduleFilter, portFilterCreator, connectionStream);
+    return loadNetworkInternal(CsvLineFilter.of(moduleFilter),
+        modulesById -> CsvLineFilter.of(portFilterCreator.apply(modulesById)), connectionStream);
   }
 
-  private Network loadNetworkInternal(CsvToBeanFilter moduleFilter,
-      Function<Map<Integer, Module>, CsvToBeanFilter> portFilterCreator,
+  private Network loadNetworkInternal(CsvLineFilter moduleFilter,
+      Function<Map<Integer, Module>, CsvLineFilter> portFilterCreator,
       Stream<Connection> connectionStream) throws IOException {
     LOGGER.info("Loading complete plant network. This may take a while.");
     Map<Integer, Module> modulesById = getModulesByIdFromS3(moduleFilter);
     LOGGER.info("Loaded modules: " + modulesById.size());
 
-    CsvToBeanFilter portFilter = portFilterCreator.apply(modulesById);
+    // most ports do not belong to the loaded modules, reject them by their first column only
+    CsvLineFilter portFilter = ProjectedFilter
+        .of(line -> modulesById.containsKey(line.getInt(Port.AFI_COLUMN_INDEX)),
+            Port.AFI_COLUMN_INDEX)
+        .and(portFilterCreator.apply(modulesById));
 
-    Stream<Port> ports = streamPortsFromS3(
-        (String[] line) -> modulesById.containsKey(Port.extractAfiId(line)) &&
-            portFilter.allowLine(line),
-        modulesById);
+    Stream<Port> ports = streamPortsOfModules(portFilter, modulesById);
 
     return new Network(modulesById, connectionStream, ports);
   }
 
+  /**
+   * Load the complete plant {@link Network} with all modules, ports and connections. If a
+   * snapshot directory is set, the network is written there as a {@link NetworkSnapshot} once per
+   * version of the engineering files, identified by their ETags, and later calls rebuild it from
+   * the snapshot instead of parsing the files again.
+   *
+   * @see #setNetworkSnapshotDirectory(Path)
+   */
+  public Network loadPlantNetwork() throws IOException {
+    return loadThroughSnapshot("plant",
+        () -> loadNetworkInternal(null, modulesById -> null, loadConnections()));
+  }
+
+  /**
+   * Provides a network from its snapshot for the current version of the engineering files, or
+   * loads it and writes the snapshot
+   *
+   * @param scope identifies the part of the plant network, e.g. by the filters that select it
+   * @param load loads the network from the CSV files
+   * @return the network
+   */
+  private Network loadThroughSnapshot(String scope, Load<Network> load)
+      throws IOException {
+    Path snapshot = getNetworkSnapshotFile(scope);
+    if (snapshot != null && Files.isRegularFile(snapshot)) {
+      try {
+        LOGGER.info(String.format("Loading %s network from %s", scope, snapshot));
+        return NetworkSnapshot.read(snapshot);
+      } catch (IOException e) {
+        LOGGER.warn("Could not read network snapshot " + snapshot, e);
+      }
+    }
+    Network network = load.get();
+    if (snapshot != null) {
+      try {
+        deleteNetworkSnapshots(snapshot);
+        NetworkSnapshot.write(network, snapshot);
+      } catch (IOException e) {
+        LOGGER.warn("Could not write network snapshot " + snapshot, e);
+      }
+    }
+    return network;
+  }
+
+  /**
+   * Provides the snapshot file for the current version of the engineering files. Its name
+   * consists of a part that identifies the engineering path and the scope and a part that
+   * identifies the version.
+   *
+   * @param scope identifies the part of the plant network
+   * @return the file or null if there is no snapshot directory or a file has no ETag
+   */
+  private Path getNetworkSnapshotFile(String scope) {
+    if (networkSnapshotDirectory == null) {
+      return null;
+    }
+    StringBuilder version = new StringBuilder().append(NetworkSnapshot.FORMAT_VERSION);
+    for (String fileName : Arrays.asList(AFI_CSV, PORTS_CSV, CONNECTIONS_CSV)) {
+      String eTag = s3Client.getObjectMetadata(bucket, getEngFileKey(params, fileName)).getETag();
+      if (eTag == null) {
+        return null;
+      }
+      version.append('/').append(eTag);
+    }
+    return networkSnapshotDirectory.resolve(
+        sha256(bucket + '/' + getEngFileKey(params, "") + '#' + scope)
+            + '-' + sha256(version.toString()));
+  }
+
+  private static String sha256(String value) {
+    return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Deletes the snapshots of the same scope for older versions of the engineering files
+   */
+  private void deleteNetworkSnapshots(Path snapshot) throws IOException {
+    if (!Files.isDirectory(networkSnapshotDirectory)) {
+      return;
+    }
+    String name = snapshot.getFileName().toString();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(networkSnapshotDirectory,
+        name.substring(0, name.indexOf('-') + 1) + "*")) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
   /**
    * Load an interconnected {@link Network} of modules, filtering the available data to provide
    * a sub-view on the complete plant network.
@@ -397,51 +872,75 @@ public class S3DataLoader {
    * defined by this filter. Has to be a subset of {@code portIdsByModuleTypeIds}, otherwise the
    * returned network may not make much sense.
    * @see Network
+   * @see #setNetworkSnapshotDirectory(Path)
    */
   public Network  loadNetwork(Map<Integer, Set<Integer>> portIdsByModuleTypeIds,
       Map<Integer, Set<Integer>> extensionPoints) throws IOException {
+    String scope = String.format("network of %s extended at %s",
+        sorted(portIdsByModuleTypeIds), sorted(extensionPoints));
+    return loadThroughSnapshot(scope,
+        () -> loadNetworkFromCsv(portIdsByModuleTypeIds, extensionPoints));
+  }
+
+  /**
+   * Provides a filter map in a canonical order, to identify the network it selects
+   */
+  private static Map<Integer, List<Integer>> sorted(Map<Integer, Set<Integer>> map) {
+    Map<Integer, List<Integer>> sorted = new TreeMap<>();
+    map.forEach((key, values) -> sorted.put(key, Ordering.natural().sortedCopy(values)));
+    return sorted;
+  }
+
+  private Network loadNetworkFromCsv(Map<Integer, Set<Integer>> portIdsByModuleTypeIds,
+      Map<Integer, Set<Integer>> extensionPoints) throws IOException {
     Stream<Connection> connectionStream = loadConnections();
-    final Set<PortKey> additionalPortKeysToLoad;
+    final LongSet additionalPortKeysToLoad = new LongSet();
     final Stream<Connection> readableConnectionsStream;
 
     // not strictly necessary, but saves iterating over connections and loading modules
     // when no extensions are requested
     if (extensionPoints.isEmpty()) {
-      additionalPortKeysToLoad = Collections.emptySet();
       readableConnectionsStream = connectionStream;
     } else {
-      Set<Connection> allConnections = connectionStream.collect(Collectors.toSet());
-      Map<Integer, Module> modulesById = getModulesByIdFromS3(line ->
-          portIdsByModuleTypeIds.keySet().contains(Module.extractAfiType(line)));
-
-      additionalPortKeysToLoad = allConnections.stream()
-          .filter(c ->
-              isPortAcceptedByFilterMap(c.getOut(), extensionPoints, modulesById) ||
-                  isPortAcceptedByFilterMap(c.getIn(), extensionPoints, modulesById))
-          .map(c -> isPortAcceptedByFilterMap(c.getIn(), extensionPoints, modulesById) ? c.getOut()
-              : c.getIn())
-          .collect(Collectors.toSet());
-      readableConnectionsStream = allConnections.stream();
+      Map<Integer, Module> modulesById = getModulesByIdFromS3(ProjectedFilter.of(line ->
+              portIdsByModuleTypeIds.containsKey(line.getInt(Module.AFI_TYPE_COLUMN_INDEX)),
+          Module.AFI_TYPE_COLUMN_INDEX));
+      // the network is built around these modules, so connections that touch none of them are
+      // dropped while streaming instead of being collected
+      List<Connection> touchingConnections = connectionStream
+          .filter(c -> modulesById.containsKey(c.getIn().getAfiId())
+              || modulesById.containsKey(c.getOut().getAfiId()))
+          .collect(Collectors.toList());
+
+      for (Connection c : touchingConnections) {
+        if (isPortAcceptedByFilterMap(c.getIn(), extensionPoints, modulesById)) {
+          additionalPortKeysToLoad.add(c.getOut().toLong());
+        } else if (isPortAcceptedByFilterMap(c.getOut(), extensionPoints, modulesById)) {
+          additionalPortKeysToLoad.add(c.getIn().toLong());
+        }
+      }
+      readableConnectionsStream = touchingConnections.stream();
     }
 
     LOGGER.info(String.format("Found %d additional port keys to load", additionalPortKeysToLoad.size()));
 
-    Set<Integer> additionalModuleIdsToLoad = additionalPortKeysToLoad.stream()
-        .map(PortKey::getAfiId).collect(Collectors.toSet());
+    Set<Integer> additionalModuleIdsToLoad = new HashSet<>();
+    additionalPortKeysToLoad.forEach(key -> additionalModuleIdsToLoad.add(PortKey.afiIdOf(key)));
 
-    CsvToBeanFilter moduleFilter = line ->
-        portIdsByModuleTypeIds.keySet().contains(Module.extractAfiType(line)) ||
-            additionalModuleIdsToLoad.contains(Module.extractId(line));
+    CsvLineFilter moduleFilter = ProjectedFilter.of(line ->
+            portIdsByModuleTypeIds.containsKey(line.getInt(Module.AFI_TYPE_COLUMN_INDEX)) ||
+                additionalModuleIdsToLoad.contains(line.getInt(Module.ID_COLUMN_INDEX)),
+        Module.ID_COLUMN_INDEX, Module.AFI_TYPE_COLUMN_INDEX);
 
-    Function<Map<Integer, Module>, CsvToBeanFilter> portFilterCreator = modulesById ->
-        (line -> {
-          int afiId = Port.extractAfiId(line);
-          int portId = Port.extractId(line);
+    Function<Map<Integer, Module>, CsvLineFilter> portFilterCreator = modulesById ->
+        ProjectedFilter.of(line -> {
+          int afiId = line.getInt(Port.AFI_COLUMN_INDEX);
+          int portId = line.getInt(Port.ID_COLUMN_INDEX);
           return isPortAcceptedByFilterMap(modulesById.get(afiId).getAfiTypeId(), portId,
               portIdsByModuleTypeIds
           ) ||
-              additionalPortKeysToLoad.contains(new PortKey(afiId, portId));
-        });
+              additionalPortKeysToLoad.contains(PortKey.pack(afiId, portId));
+        }, Port.AFI_COLUMN_INDEX, Port.ID_COLUMN_INDEX);
     return loadNetworkInternal(moduleFilter, portFilterCreator, readableConnectionsStream);
   }
 
@@ -465,15 +964,33 @@ public class S3DataLoader {
    * No other ports of the newly loaded modules are loaded.
    */
   public Network extendNetwork(Network network, Set<Port> danglingInputPorts) throws IOException {
-    Set<PortKey> portKeys = network.getMissingPortKeys(danglingInputPorts);
-    Set<Integer> moduleIds = portKeys.stream().map(PortKey::getAfiId).collect(Collectors.toSet());
-    Map<Integer, Module> newModules = getModulesByIdFromS3(
-        line -> moduleIds.contains(Module.extractId(line)));
-    Stream<Port> newPorts = streamPortsFromS3(
-        line -> portKeys.contains(new PortKey(Port.extractAfiId(line), Port.extractId(line))),
-        newModules);
+    LongSet portKeys = network.getMissingPackedPortKeys(danglingInputPorts);
+    Set<Integer> moduleIds = new HashSet<>();
+    portKeys.forEach(key -> moduleIds.add(PortKey.afiIdOf(key)));
+    Map<Integer, Module> newModules = getModulesByIdFromS3(ProjectedFilter.of(
+        line -> moduleIds.contains(line.getInt(Module.ID_COLUMN_INDEX)), Module.ID_COLUMN_INDEX));
+    Stream<Port> newPorts = streamPortsOfModules(ProjectedFilter.of(
+        line -> portKeys.contains(Port.extractPackedKey(line)),
+        Port.AFI_COLUMN_INDEX, Port.ID_COLUMN_INDEX), newModules);
     return network.extendWith(newModules, newPorts);
   }
+
+  /**
+   * Loads a dataset
+   *
+   * @param <T> type of the dataset
+   */
+  @FunctionalInterface
+  public interface Load<T> {
+
+    /**
+     * Loads the dataset
+     *
+     * @return the dataset
+     * @throws IOException if the dataset could not be read
+     */
+    T get() throws IOException;
+  }
 }
 
 /*
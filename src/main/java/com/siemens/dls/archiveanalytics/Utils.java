@@ -6,6 +6,9 @@
 
 package com.siemens.dls.archiveanalytics;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.Iterator;
 import java.util.Spliterator;
@@ -41,16 +44,27 @@ public class Utils {
   }
 
   /**
-   * Makes an iterator usable as a stream
+   * Makes an iterator usable as a stream. If the iterator is {@link Closeable}, closing the stream
+   * closes it, e.g. to stop reading a file early.
    *
    * @param iterator that shall be used as a stream
    * @param <T> type of the stream
    * @return a Stream of the iterator
    */
   public static <T> Stream<T> iteratorAsStream(Iterator<T> iterator) {
-    return StreamSupport
+    Stream<T> stream = StreamSupport
         .stream(Spliterators.spliteratorUnknownSize(iterator,
             Spliterator.ORDERED), false);
+    if (iterator instanceof Closeable) {
+      return stream.onClose(() -> {
+        try {
+          ((Closeable) iterator).close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+    return stream;
   }
 
   public static int toMillisOfDay(LocalDateTime time) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.alertsongate;
+
+import com.siemens.dls.archiveanalytics.Utils;
+import com.siemens.dls.archiveanalytics.model.Alarm;
+import com.siemens.dls.archiveanalytics.model.BinaryTrend;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sweeps the alarms of a root port and the edges of one source {@link BinaryTrend} in a single
+ * pass. Both are walked with their own pointer in ascending time order, so all alarms are checked
+ * in O(alarms + edges) instead of searching the edges once per alarm.
+ */
+public final class AlarmOverlapSweep {
+
+  /**
+   * Window for {@link #countUnchanged(int[], int[], int[], int)} that accepts any edge before the
+   * alarm
+   */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private AlarmOverlapSweep() {
+    //noop
+  }
+
+  /**
+   * Converts the alarm times to millis of the day, in ascending order as required by
+   * {@link #countUnchanged(int[], int[], int[], int)}
+   *
+   * @param alarms the alarms, may be null
+   * @return the sorted times or null if alarms is null
+   */
+  public static int[] toSortedMillisOfDay(List<Alarm> alarms) {
+    if (alarms == null) {
+      return null;
+    }
+    int[] millis = new int[alarms.size()];
+    int i = 0;
+    for (Alarm alarm : alarms) {
+      millis[i++] = Utils.toMillisOfDay(alarm.getTime());
+    }
+    Arrays.sort(millis);
+    return millis;
+  }
+
+  /**
+   * Counts the alarms for which the signal changed shortly before and did not change back until
+   * the alarm. For every alarm the last edge within {@code [alarm - windowMillis, alarm]} is
+   * looked up; the alarm counts if there is such an edge and no opposite edge in
+   * {@code (edge, alarm]}.
+   *
+   * @param alarmMillis the times of the alarms in ascending order
+   * @param edges the times of the edges that change the signal, in ascending order, e.g.
+   * {@link BinaryTrend#getRisingMillis()}
+   * @param oppositeEdges the times of the edges that change it back, in ascending order
+   * @param windowMillis how long before the alarm an edge may be, or {@link #UNBOUNDED}
+   * @return the number of alarms
+   */
+  public static int countUnchanged(int[] alarmMillis, int[] edges, int[] oppositeEdges,
+      int windowMillis) {
+    int count = 0;
+    int edge = 0;
+    int oppositeEdge = 0;
+    for (int alarm : alarmMillis) {
+      while (edge < edges.length && edges[edge] <= alarm) {
+        edge++;
+      }
+      if (edge == 0) {
+        continue;
+      }
+      int lastEdge = edges[edge - 1];
+      if ((long) alarm - lastEdge > windowMillis) {
+        continue;
+      }
+      // the last edge never moves backwards, so neither does the next opposite edge
+      while (oppositeEdge < oppositeEdges.length && oppositeEdges[oppositeEdge] <= lastEdge) {
+        oppositeEdge++;
+      }
+      if (oppositeEdge == oppositeEdges.length || oppositeEdges[oppositeEdge] > alarm) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
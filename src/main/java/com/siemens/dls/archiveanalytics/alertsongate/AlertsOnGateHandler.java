@@ -32,25 +32,22 @@ import com.google.common.collect.Sets.SetView;
 import com.oracle.tools.packager.Log;
 import com.siemens.dls.archiveanalytics.DlsLambdaHandler;
 import com.siemens.dls.archiveanalytics.S3DataLoader;
-import com.siemens.dls.archiveanalytics.Utils;
 import com.siemens.dls.archiveanalytics.ddb.DlsDdbClient;
 import com.siemens.dls.archiveanalytics.model.Alarm;
 import com.siemens.dls.archiveanalytics.model.BinaryTrend;
 import com.siemens.dls.archiveanalytics.model.Module;
 import com.siemens.dls.archiveanalytics.model.Network;
+import com.siemens.dls.archiveanalytics.model.NetworkGraph;
 import com.siemens.dls.archiveanalytics.model.Port;
-import com.siemens.dls.archiveanalytics.model.Trend;
+import com.siemens.dls.archiveanalytics.model.TrendWindowIndex;
 import com.siemens.dls.archiveanalytics.model.Tuple;
 
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BiConsumer;
-import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
-import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -198,6 +195,33 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
     }
 
 
+    /**
+     * Int counterpart of {@code getInputPorts(node).map(Port::getConnectedOutPort)}: provides the
+     * output ports connected to the allowed input ports of the module of a node
+     *
+     * @param graph the graph of the network
+     * @param node the number of the node in the graph
+     * @param consumer receives the number of every adjacent node
+     */
+    public void forEachAdjacentNode(NetworkGraph graph, int node, IntConsumer consumer) {
+        int module = graph.getModuleOf(node);
+        Set<Integer> allowedPortIds = module == NetworkGraph.NONE ? null
+                : ALLOWED_INTER_MODULE_PORT_IDS.get(graph.getAfiTypeId(module));
+        if (allowedPortIds == null) {
+            return;
+        }
+        for (int i = 0; i < graph.getInPortCount(module); i++) {
+            int inPort = graph.getInPort(module, i);
+            if (allowedPortIds.contains(graph.getPortId(inPort))) {
+                int adjacentNode = graph.getConnectedOutPort(inPort);
+                if (adjacentNode != NetworkGraph.NONE) {
+                    consumer.accept(adjacentNode);
+                }
+            }
+        }
+    }
+
+
     public boolean isFunctionalOr(Module module) {
         //check module is OR or AND with only one input port
         // include T2000P_OR and T2000P_AND
@@ -329,6 +353,14 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
                                                           Map<Port, BinaryTrend> binaryTrends, Network network,
                                                           Function<FilterParams, Optional<AlertsOnGateReason>> filter) {
 
+        if (network != null) {
+            NetworkGraph graph = network.getGraph();
+            int start = graph.indexOf(startVertexMap.getKey());
+            if (start != NetworkGraph.NONE) {
+                return breadthFirstSearch(startVertexMap, binaryTrends, network, graph, start, filter);
+            }
+        }
+
         Port startVertex = startVertexMap.getKey();
         int depth = 0;
 
@@ -341,6 +373,9 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
         //collections for node which satisfy with given filter
         List<AlertsOnGateReason> resultSets = Lists.newArrayList();
 
+        //alarm times, sorted once for all nodes
+        int[] alarmMillis = AlarmOverlapSweep.toSortedMillisOfDay(startVertexMap.getValue());
+
         //mark the first<current> vertex as visited and enqueue it into searchQueue
         visitedAdjacentMap.put(startVertex, null);
         searchQueue.add(startVertex);
@@ -370,6 +405,7 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
                                     .setDepth(depth)
                                     .setBinaryTrends(binaryTrends)
                                     .setAlarms(startVertexMap.getValue())
+                                    .setAlarmMillis(alarmMillis)
                                     .setVisitedAdjacentMap(visitedAdjacentMap)
                                     .setNetwork(network)
                                     .build());
@@ -414,35 +450,114 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
         return resultSets;
     }
 
-    protected Collector<Trend, List<Integer>, List<Integer>> signalClassificationCollector = new Collector<Trend, List<Integer>, List<Integer>>() {
-        @Override
-        public Supplier<List<Integer>> supplier() {
-            return ArrayList::new;
+    /**
+     * Same search as {@link #breadthFirstSearch(Entry, Map, Network, Function)}, following the
+     * connections by the numbers of the ports in the graph of the network. Only the visited nodes
+     * are looked up as {@link Port}s, for the filter.
+     */
+    private List<AlertsOnGateReason> breadthFirstSearch(Entry<Port, List<Alarm>> startVertexMap,
+                                                        Map<Port, BinaryTrend> binaryTrends, Network network,
+                                                        NetworkGraph graph, int start,
+                                                        Function<FilterParams, Optional<AlertsOnGateReason>> filter) {
+
+        Port startVertex = startVertexMap.getKey();
+        int depth = 0;
+
+        //search queue of node numbers, the nodes of the current depth end at levelEnd
+        NodeQueue searchQueue = new NodeQueue();
+        int levelEnd = 1;
+        BitSet visited = new BitSet(graph.getPortCount());
+
+        // visited nodes with their ancestor, as the filter expects them
+        HashMap<Port, Port> visitedAdjacentMap = Maps.newHashMap();
+
+        List<AlertsOnGateReason> resultSets = Lists.newArrayList();
+
+        int[] alarmMillis = AlarmOverlapSweep.toSortedMillisOfDay(startVertexMap.getValue());
+
+        visited.set(start);
+        visitedAdjacentMap.put(startVertex, null);
+        searchQueue.add(start);
+
+        while (searchQueue.hasNext()) {
+            int node = searchQueue.next();
+            Port currentNode = graph.getPort(node);
+
+            Optional<AlertsOnGateReason> result;
+            if (node != start) {
+                result = filter.apply(new FilterParams.Builder(currentNode, startVertex)
+                        .setDepth(depth)
+                        .setBinaryTrends(binaryTrends)
+                        .setAlarms(startVertexMap.getValue())
+                        .setAlarmMillis(alarmMillis)
+                        .setVisitedAdjacentMap(visitedAdjacentMap)
+                        .setNetwork(network)
+                        .build());
+            } else {
+                result = Optional.empty();
+            }
+
+            if (result.isPresent()) {
+                resultSets.add(result.get());
+            } else {
+                forEachAdjacentNode(graph, node, nextNode -> {
+                    if (!visited.get(nextNode)) {
+                        visited.set(nextNode);
+                        visitedAdjacentMap.put(graph.getPort(nextNode), currentNode);
+                        searchQueue.add(nextNode);
+                    }
+                });
+            }
+
+            if (searchQueue.position() == levelEnd && searchQueue.hasNext()) {
+                depth++;
+                levelEnd = searchQueue.size();
+                if (depth >= MAX_DEPTH) {
+                    LOG.info(String.format("reached the maximal depth, current depth is %d", depth));
+                    break;
+                }
+            }
+        }
+
+        LOG.info(String.format("for alert module %d, %d modules haven been visited",
+                startVertex.getModule().getId(),
+                visitedAdjacentMap.keySet().size()));
+        return resultSets;
+    }
+
+    /**
+     * FIFO queue of node numbers. Every node is added at most once per search, so the added nodes
+     * are kept until the search ends.
+     */
+    private static final class NodeQueue {
+
+        private int[] nodes = new int[16];
+        private int size;
+        private int position;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
         }
 
-        @Override
-        public BiConsumer<List<Integer>, Trend> accumulator() {
-            return (list, t) -> list.add(t.getMillis());
+        boolean hasNext() {
+            return position < size;
         }
 
-        @Override
-        public BinaryOperator<List<Integer>> combiner() {
-            return (l1, l2) -> {
-                l1.addAll(l2);
-                return l1;
-            };
+        int next() {
+            return nodes[position++];
         }
 
-        @Override
-        public Function<List<Integer>, List<Integer>> finisher() {
-            return (list) -> list;
+        int position() {
+            return position;
         }
 
-        @Override
-        public Set<Characteristics> characteristics() {
-            return EnumSet.of(Characteristics.IDENTITY_FINISH);
+        int size() {
+            return size;
         }
-    };
+    }
 
     private boolean isConnectedProxyModule(Module module) {
         return isFunctionalOr(module) || BIN_AFITYPE_ID == module.getAfiTypeId()
@@ -465,51 +580,35 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
                     "for alert: " + alertPort.getUniqueName() + " : no alarms dates");
         }
 
-        //sourceTrendsMap: <value,Set<millis>>
-        Map<Integer, List<Integer>> sourceTrendsMap = sourceTrends.getAcceptableQualityTrends()
-                .stream()
-                .collect(Collectors
-                        .groupingBy(t -> (int) t.getValue(), signalClassificationCollector));
-        List<Integer> risingTimeLists = sourceTrendsMap.get(1);
-        List<Integer> fallingTimeLists = sourceTrendsMap.get(0);
+        //edges of the acceptable quality trends, memoized by the trend
+        int[] risingMillis = sourceTrends.getRisingMillis();
+        int[] fallingMillis = sourceTrends.getFallingMillis();
 
-        if (risingTimeLists == null) {
+        if (risingMillis.length == 0) {
             return count;
         }
 
-        if (fallingTimeLists == null) {
+        if (fallingMillis.length == 0) {
             return new AtomicInteger(alarms.size());
         }
 
-        alarms.forEach(
-                alarm -> {
-                    int startMillis = Utils.toMillisOfDay(alarm.getTime());
-                    //find rising signal
-                    Optional<Integer> risingSignal = risingTimeLists.stream()
-                            .filter(t -> t >= startMillis - CYCLE * MILLIS_TO_SECOND
-                                    && t <= startMillis)
-                            .reduce((t1, t2) -> t2);
-
-                    if (!risingSignal.isPresent()) {
-                        count.updateAndGet(prev -> prev);
-                    } else {
-                        //find falling signal
-                        calculateCount(count, fallingTimeLists, startMillis, risingSignal.get());
-                    }
-
-                });
+        //rising signal within the cycle before the alarm, not fallen until the alarm
+        count.set(AlarmOverlapSweep.countUnchanged(filterParams.getAlarmMillis(), risingMillis,
+                fallingMillis, CYCLE * MILLIS_TO_SECOND));
 
         return count;
     }
 
-    private void calculateCount(AtomicInteger count, List<Integer> fallingTimeLists, int startMillis,
-                                Integer risingSignal) {
-        Optional<Integer> fallingSignal = fallingTimeLists.stream()
-                .filter(t -> t > risingSignal)
-                .findFirst();
-        if (!fallingSignal.isPresent() || fallingSignal.get() > startMillis) {
-            count.updateAndGet(prev -> prev + 1);
-        }
+    /**
+     * Checks if a signal that changed at edgeMillis has not changed back until untilMillis
+     *
+     * @param oppositeEdges the edges that change the signal back, e.g. the falling edges for a
+     * rising signal
+     */
+    protected static boolean isUnchangedUntil(TrendWindowIndex oppositeEdges, int edgeMillis,
+                                              int untilMillis) {
+        int nextEdge = oppositeEdges.firstAfter(edgeMillis);
+        return nextEdge == oppositeEdges.size() || oppositeEdges.get(nextEdge) > untilMillis;
     }
 
     private AtomicInteger calculateSignalBeforeOrSameCount(Port archivedPort, Port rootPort,
@@ -528,38 +627,21 @@ public abstract class AlertsOnGateHandler extends DlsLambdaHandler {
 
         AtomicInteger validCount = new AtomicInteger(0);
 
-        //sourceTrendsMap: <value,Set<millis>>
-        Map<Integer, List<Integer>> sourceTrendsMap = sourceTrends.getAcceptableQualityTrends()
-                .stream()
-                .collect(Collectors
-                        .groupingBy(t -> (int) t.getValue(), signalClassificationCollector));
-
-        List<Integer> risingTimeLists = sourceTrendsMap.get(1);
-        List<Integer> fallingTimeLists = sourceTrendsMap.get(0);
+        //edges of the acceptable quality trends, memoized by the trend
+        int[] risingMillis = sourceTrends.getRisingMillis();
+        int[] fallingMillis = sourceTrends.getFallingMillis();
 
-        if (risingTimeLists == null) {
+        if (risingMillis.length == 0) {
             return validCount;
         }
 
-        if (fallingTimeLists == null) {
+        if (fallingMillis.length == 0) {
             return new AtomicInteger(alarms.size());
         }
 
-        alarms.forEach(
-                alarm -> {
-                    int startMillis = Utils.toMillisOfDay(alarm.getTime());
-                    //find rising signal
-                    Optional<Integer> risingSignal = risingTimeLists.stream()
-                            .filter(t -> t <= startMillis)
-                            .reduce((t1, t2) -> t2);
-                    if (!risingSignal.isPresent()) {
-                        validCount.updateAndGet(prev -> prev);
-                    } else {
-                        //find falling signal
-                        calculateCount(validCount, fallingTimeLists, startMillis, risingSignal.get());
-                    }
-
-                });
+        //rising signal before or at the alarm, not fallen until the alarm
+        validCount.set(AlarmOverlapSweep.countUnchanged(filterParams.getAlarmMillis(), risingMillis,
+                fallingMillis, AlarmOverlapSweep.UNBOUNDED));
 
         return validCount;
 
@@ -20,6 +20,7 @@ public class FilterParams {
   private final int depth;
   private final Map<Port, BinaryTrend> binaryTrends;
   private final List<Alarm> alarms;
+  private final int[] alarmMillis;
   private final HashMap<Port, Port> visitedAdjacentMap;
   private final Network network;
 
@@ -29,6 +30,8 @@ public class FilterParams {
     this.depth = builder.depth;
     this.binaryTrends = builder.binaryTrends;
     this.alarms = builder.alarms;
+    this.alarmMillis = builder.alarmMillis != null ? builder.alarmMillis
+        : AlarmOverlapSweep.toSortedMillisOfDay(builder.alarms);
     this.visitedAdjacentMap = builder.visitedAdjacentMap;
     this.network = builder.network;
   }
@@ -41,6 +44,7 @@ public class FilterParams {
     private int depth;
     private Map<Port, BinaryTrend> binaryTrends;
     private List<Alarm> alarms;
+    private int[] alarmMillis;
     private HashMap<Port, Port> visitedAdjacentMap;
     private Network network;
 
@@ -65,6 +69,15 @@ public class FilterParams {
       return this;
     }
 
+    /**
+     * Sets the times of the alarms as computed by
+     * {@link AlarmOverlapSweep#toSortedMillisOfDay(List)}, so they are not computed for every node
+     */
+    public Builder setAlarmMillis(int[] alarmMillis) {
+      this.alarmMillis = alarmMillis;
+      return this;
+    }
+
     public Builder setVisitedAdjacentMap(
         HashMap<Port, Port> visitedAdjacentMap) {
       this.visitedAdjacentMap = visitedAdjacentMap;
@@ -102,6 +115,13 @@ public class FilterParams {
     return alarms;
   }
 
+  /**
+   * Getter for the times of the alarms in millis of the day, in ascending order
+   */
+  public int[] getAlarmMillis() {
+    return alarmMillis;
+  }
+
   public HashMap<Port, Port> getVisitedAdjacentMap() {
     return visitedAdjacentMap;
   }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.alertsongate;
+
+import com.siemens.dls.archiveanalytics.model.TrendSeries;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+/**
+ * Checks if one binary signal is the negation of another one, e.g. Q and Q_N of a flip-flop. A
+ * sample of the output is negated if the other signal has a sample at the same time whose value
+ * adds up to 1 with the output's value. Both series are merge-joined by time, so a check is
+ * O(n + m) for time ordered series; series that are not ordered are sorted first.
+ */
+public final class NegationDetector {
+
+  private NegationDetector() {
+    //noop
+  }
+
+  /**
+   * Checks if every sample of output is negated by negated
+   *
+   * @param output the output signal
+   * @param negated the signal that should be its negation
+   * @return true if every sample of output is negated
+   */
+  public static boolean isNegation(TrendSeries output, TrendSeries negated) {
+    return !findFirstNotNegated(output, negated).isPresent();
+  }
+
+  /**
+   * Finds the earliest sample of output that is not negated by negated, e.g. for diagnostics
+   *
+   * @param output the output signal
+   * @param negated the signal that should be its negation
+   * @return the time of the sample or empty if every sample is negated
+   */
+  public static OptionalInt findFirstNotNegated(TrendSeries output, TrendSeries negated) {
+    int[] outputOrder = timeOrder(output);
+    int[] negatedOrder = timeOrder(negated);
+    int groupStart = 0;
+    for (int i = 0; i < output.size(); i++) {
+      int sample = outputOrder == null ? i : outputOrder[i];
+      int millis = output.getMillis(sample);
+      double value = output.getValue(sample);
+      while (groupStart < negated.size()
+          && negated.getMillis(at(negatedOrder, groupStart)) < millis) {
+        groupStart++;
+      }
+      boolean isNegated = false;
+      for (int j = groupStart; !isNegated && j < negated.size()
+          && negated.getMillis(at(negatedOrder, j)) == millis; j++) {
+        isNegated = negated.getValue(at(negatedOrder, j)) + value == 1;
+      }
+      if (!isNegated) {
+        return OptionalInt.of(millis);
+      }
+    }
+    return OptionalInt.empty();
+  }
+
+  private static int at(int[] order, int position) {
+    return order == null ? position : order[position];
+  }
+
+  /**
+   * Provides the sample indexes of a series ordered by time
+   *
+   * @return the ordered indexes or null if the series is already ordered by time
+   */
+  private static int[] timeOrder(TrendSeries series) {
+    int size = series.size();
+    boolean ordered = true;
+    for (int i = 1; ordered && i < size; i++) {
+      ordered = series.getMillis(i - 1) <= series.getMillis(i);
+    }
+    if (ordered) {
+      return null;
+    }
+    // sort time and index packed into one long, which keeps equal times in sample order
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = (long) series.getMillis(i) << Integer.SIZE | i;
+    }
+    Arrays.sort(keys);
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+}
@@ -6,12 +6,13 @@
 
 package com.siemens.dls.archiveanalytics.model;
 
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * An abstract class for any kind of XXXTrend bean.
- * Trends do always contain the client, the unique/tagname and a set of {@link Trend}s
+ * Trends do always contain the client, the unique/tagname and a set of {@link Trend}s. The
+ * {@link Trend}s are stored column by column in a {@link TrendSeries}.
  */
 public abstract class AbstractTrend<T extends AbstractTrend> {
 
@@ -19,6 +20,8 @@ public abstract class AbstractTrend<T extends AbstractTrend> {
   public static final int TAGNAME_COLUMN_INDEX = 1;
   public static final int NOT_BAD_QUALITY_THRESHOLD = 64;
   private Port port;
+  private TrendSeries series;
+  private TrendSeries acceptableQualitySeries;
 
   /**
    * Extracts client from a split CSV line.
@@ -40,6 +43,26 @@ public abstract class AbstractTrend<T extends AbstractTrend> {
     return line[TAGNAME_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts client from a tokenized CSV line.
+   *
+   * @param line A tokenized CSV line
+   * @return The raw value at the client index
+   */
+  public static String extractClient(CsvLine line) {
+    return line.getString(CLIENT_COLUMN_INDEX);
+  }
+
+  /**
+   * Extracts tagname from a tokenized CSV line.
+   *
+   * @param line A tokenized CSV line
+   * @return The raw value at the tagname index
+   */
+  public static String extractTagname(CsvLine line) {
+    return line.getString(TAGNAME_COLUMN_INDEX);
+  }
+
   /**
    * Getter for ppid. Every {@link AbstractTrend} instance must provide a valid getter.
    *
@@ -55,11 +78,44 @@ public abstract class AbstractTrend<T extends AbstractTrend> {
   public abstract String getUniqueName();
 
   /**
-   * Getter for the {@link Trend} values
+   * Getter for the {@link Trend} values. Every call creates new {@link Trend} objects, use
+   * {@link #getSeries()} to access the values without.
    *
    * @return The {@link Trend} values as {@link List}
    */
-  public abstract List<Trend> getTrends();
+  public List<Trend> getTrends() {
+    return series == null ? null : series.toList();
+  }
+
+  /**
+   * Getter for the {@link Trend} values
+   *
+   * @return The {@link Trend} values as {@link TrendSeries}
+   */
+  public TrendSeries getSeries() {
+    return series;
+  }
+
+  /**
+   * Getter for the {@link Trend} values with a quality above "not bad" threshold. The view is
+   * computed once when the values are set.
+   *
+   * @return The acceptable {@link Trend} values as {@link TrendSeries}
+   */
+  public TrendSeries getAcceptableQualitySeries() {
+    return acceptableQualitySeries;
+  }
+
+  /**
+   * Stores the {@link Trend} values and precomputes the acceptable quality view
+   *
+   * @param series the values, may be null
+   */
+  protected void storeSeries(TrendSeries series) {
+    this.series = series;
+    this.acceptableQualitySeries = series == null ? null
+        : series.withQualityAtLeast(NOT_BAD_QUALITY_THRESHOLD);
+  }
 
   public Port getPort() {
     return port;
@@ -73,15 +129,8 @@ public abstract class AbstractTrend<T extends AbstractTrend> {
    * get trends filtered with quality above "not bad" threshold
    */
   public List<Trend> getAcceptableQualityTrends(){
-    return getTrends().stream()
-        .filter(t -> t.getQuality() >= NOT_BAD_QUALITY_THRESHOLD)
-        .collect(Collectors.toList());
+    return acceptableQualitySeries.toList();
   }
 
   public abstract T copy();
-
-  List<Trend> copyTrends(AbstractTrend<?> original) {
-    return original.getTrends() == null ? null
-        : original.getTrends().stream().map(Trend::new).collect(Collectors.toList());
-  }
 }
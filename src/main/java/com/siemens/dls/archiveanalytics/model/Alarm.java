@@ -10,6 +10,7 @@ import static org.apache.commons.lang3.math.NumberUtils.toInt;
 
 import com.opencsv.bean.CsvBindByPosition;
 import com.opencsv.bean.CsvCustomBindByPosition;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
 import com.siemens.dls.archiveanalytics.parser.CsvStringToLocalDateTimeConverter;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -65,6 +66,13 @@ public class Alarm {
     return line[TAGNAME_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts tagname id from a tokenized CSV line.
+   */
+  public static String extractTagname(CsvLine line) {
+    return line.getString(TAGNAME_COLUMN_INDEX);
+  }
+
   /**
    * Extracts quality from a split CSV line.
    */
@@ -9,6 +9,7 @@ package com.siemens.dls.archiveanalytics.model;
 import static org.apache.commons.lang3.math.NumberUtils.toInt;
 
 import com.opencsv.bean.CsvBindByPosition;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
 
 /**
  * Defines an Alarm.
@@ -45,6 +46,13 @@ public class AlarmType {
     return line[ABBREV_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts abbrev from a tokenized CSV line.
+   */
+  public static String extractAbbrev(CsvLine line) {
+    return line.getString(ABBREV_COLUMN_INDEX);
+  }
+
   /**
    * Getter for abbrev of a module
    */
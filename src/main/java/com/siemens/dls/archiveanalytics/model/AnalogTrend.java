@@ -7,10 +7,9 @@
 package com.siemens.dls.archiveanalytics.model;
 
 import com.opencsv.bean.CsvBindByPosition;
-import com.opencsv.bean.CsvCustomBindByPosition;
 import com.opencsv.exceptions.CsvDataTypeMismatchException;
-import com.siemens.dls.archiveanalytics.parser.CsvStringToTrendListConverter;
-import java.util.Comparator;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
+import com.siemens.dls.archiveanalytics.parser.TrendStringDecoder;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,8 +24,6 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
   private String ppid;
   @CsvBindByPosition(position = TAGNAME_COLUMN_INDEX)
   private String uniqueName;
-  @CsvCustomBindByPosition(position = TREND_COLUMN_INDEX, converter = CsvStringToTrendListConverter.class)
-  private List<Trend> trends;
   private int badCount;
   private Optional<Double> minValue;
   private Optional<Double> maxValue;
@@ -83,22 +80,13 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
     return this;
   }
 
-  /**
-   * Getter for Trends
-   *
-   * @return trends
-   */
-  public List<Trend> getTrends() {
-    return trends;
-  }
-
   @Override
   public AnalogTrend copy() {
     if (getPort() != null) {
       throw new IllegalArgumentException("Cannot copy a trend that has been assigned a port");
     }
     AnalogTrend copy = new AnalogTrend();
-    copy.setTrends(copyTrends(this));
+    copy.setSeries(getSeries());
     copy.setUniqueName(getUniqueName());
     copy.setPpid(getPpid());
     return copy;
@@ -111,10 +99,35 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
    * @return Fluent interface
    */
   public AnalogTrend setTrends(List<Trend> trends) {
-    this.trends = trends;
-    badCount = (int) trends.stream().filter(t -> t.getQuality() < NOT_BAD_QUALITY_THRESHOLD).count();
-    minValue = trends.stream().min(Comparator.comparing(Trend::getValue)).map(Trend::getValue);
-    maxValue = trends.stream().max(Comparator.comparing(Trend::getValue)).map(Trend::getValue);
+    return setSeries(TrendSeries.of(trends));
+  }
+
+  /**
+   * Setter for the Trends
+   *
+   * @param series The trends
+   * @return Fluent interface
+   */
+  public AnalogTrend setSeries(TrendSeries series) {
+    storeSeries(series);
+    badCount = series.size() - getAcceptableQualitySeries().size();
+    minValue = Optional.empty();
+    maxValue = Optional.empty();
+    if (!series.isEmpty()) {
+      double min = series.getValue(0);
+      double max = min;
+      for (int i = 1; i < series.size(); i++) {
+        double value = series.getValue(i);
+        if (Double.compare(value, min) < 0) {
+          min = value;
+        }
+        if (Double.compare(value, max) > 0) {
+          max = value;
+        }
+      }
+      minValue = Optional.of(min);
+      maxValue = Optional.of(max);
+    }
     return this;
   }
 
@@ -135,7 +148,26 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
     t.setPpid(extractClient(line));
     t.setUniqueName(extractTagname(line));
     try {
-      t.setTrends(CsvStringToTrendListConverter.stringToTrendList(extractTrends(line)));
+      t.setSeries(TrendStringDecoder.decode(extractTrends(line)).trimmed());
+    } catch (CsvDataTypeMismatchException e) {
+      throw new IllegalArgumentException(e);
+    }
+    return t;
+  }
+
+  /**
+   * Converts a tokenized CSV line to an AnalogTrend. The trend field is decoded directly from the
+   * line buffer.
+   *
+   * @param line A tokenized CSV line
+   * @return A new AnalogTrend
+   */
+  public static AnalogTrend lineToTrend(CsvLine line) {
+    AnalogTrend t = new AnalogTrend();
+    t.setPpid(extractClient(line));
+    t.setUniqueName(extractTagname(line));
+    try {
+      t.setSeries(TrendStringDecoder.decode(line, TREND_COLUMN_INDEX).trimmed());
     } catch (CsvDataTypeMismatchException e) {
       throw new IllegalArgumentException(e);
     }
@@ -152,7 +184,7 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
     return "AnalogTrend{" +
         "ppid='" + ppid + '\'' +
         ", uniqueName='" + uniqueName + '\'' +
-        ", trends=" + trends +
+        ", trends=" + getSeries() +
         '}';
   }
 
@@ -179,7 +211,7 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
     if (uniqueName != null ? !uniqueName.equals(that.uniqueName) : that.uniqueName != null) {
       return false;
     }
-    return trends != null ? trends.equals(that.trends) : that.trends == null;
+    return getSeries() != null ? getSeries().equals(that.getSeries()) : that.getSeries() == null;
   }
 
   /**
@@ -190,7 +222,7 @@ public class AnalogTrend extends AbstractTrend<AnalogTrend> {
   public int hashCode() {
     int result = ppid != null ? ppid.hashCode() : 0;
     result = 31 * result + (uniqueName != null ? uniqueName.hashCode() : 0);
-    result = 31 * result + (trends != null ? trends.hashCode() : 0);
+    result = 31 * result + (getSeries() != null ? getSeries().hashCode() : 0);
     return result;
   }
 }
@@ -7,11 +7,13 @@
 package com.siemens.dls.archiveanalytics.model;
 
 import com.opencsv.bean.CsvBindByPosition;
-import com.opencsv.bean.CsvCustomBindByPosition;
 import com.opencsv.exceptions.CsvDataTypeMismatchException;
+import com.siemens.dls.archiveanalytics.parser.CsvFieldDecoder;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
 import com.siemens.dls.archiveanalytics.parser.CsvStringToBooleanConverter;
-import com.siemens.dls.archiveanalytics.parser.CsvStringToTrendListConverter;
+import com.siemens.dls.archiveanalytics.parser.TrendStringDecoder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.joda.time.Interval;
 
@@ -33,12 +35,11 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
   protected Boolean alarm;
   @CsvBindByPosition(position = ACTIVE_COLUMN_INDEX)
   protected Boolean active;
-  @CsvCustomBindByPosition(position = TREND_COLUMN_INDEX_BINARY, converter = CsvStringToTrendListConverter.class)
-  protected List<Trend> trends;
   private int count;
   private int risingCount;
   private int totalCount;
   private int fallingCount;
+  private volatile Edges edges;
 
   public BinaryTrend() {
     // noop
@@ -129,35 +130,38 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
   }
 
   /**
-   * Getter for Trends
+   * Setter for the Trends
    *
-   * @return trends
+   * @param trends The trends
+   * @return Fluent interface
    */
-  public List<Trend> getTrends() {
-    return trends;
+  public BinaryTrend setTrends(List<Trend> trends) {
+    return setSeries(TrendSeries.of(trends).compactBinary());
   }
 
   /**
    * Setter for the Trends
    *
-   * @param trends The trends
+   * @param series The trends
    * @return Fluent interface
    */
-  public BinaryTrend setTrends(List<Trend> trends) {
-    this.trends = trends;
+  public BinaryTrend setSeries(TrendSeries series) {
+    storeSeries(series);
+    edges = null;
     count = 0;
     risingCount = 0;
     totalCount = 0;
-    trends.stream().filter(t -> t.getMillis() > 0)
-        .forEach(t -> {
-          if (t.getQuality() >= NOT_BAD_QUALITY_THRESHOLD){
-            count += 1;
-            if (t.getValue() == 1){ // 1 encodes 'true'
-              risingCount += 1;
-            }
+    for (int i = 0; i < series.size(); i++) {
+      if (series.getMillis(i) > 0) {
+        if (series.getQuality(i) >= NOT_BAD_QUALITY_THRESHOLD) {
+          count += 1;
+          if (series.getValue(i) == 1) { // 1 encodes 'true'
+            risingCount += 1;
           }
-          totalCount += 1;
-        });
+        }
+        totalCount += 1;
+      }
+    }
     fallingCount = count - risingCount;
     return this;
   }
@@ -168,7 +172,8 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
       throw new IllegalArgumentException("Cannot copy a trend that has been assigned a port");
     }
     BinaryTrend copy = new BinaryTrend();
-    copy.setTrends(copyTrends(this));
+    copy.setSeries(getSeries());
+    copy.edges = edges;
     copy.setUniqueName(getUniqueName());
     copy.setPpid(getPpid());
     copy.setActive(isActive());
@@ -176,23 +181,73 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
     return copy;
   }
 
+  /**
+   * Getter for the times of the rising edges, i.e. of the acceptable quality samples with value 1.
+   * The edges are built on first access and cached, the returned array must not be modified.
+   *
+   * @return the times of the rising edges in ascending order
+   */
+  public int[] getRisingMillis() {
+    return edges().rising;
+  }
+
+  /**
+   * Provides time window queries on the rising edges, see {@link #getRisingMillis()}
+   *
+   * @return the index of the rising edges
+   */
+  public TrendWindowIndex getRisingEdges() {
+    return edges().risingIndex;
+  }
+
+  /**
+   * Getter for the times of the falling edges, i.e. of the acceptable quality samples with value
+   * 0. The edges are built on first access and cached, the returned array must not be modified.
+   *
+   * @return the times of the falling edges in ascending order
+   */
+  public int[] getFallingMillis() {
+    return edges().falling;
+  }
+
+  /**
+   * Provides time window queries on the falling edges, see {@link #getFallingMillis()}
+   *
+   * @return the index of the falling edges
+   */
+  public TrendWindowIndex getFallingEdges() {
+    return edges().fallingIndex;
+  }
+
+  private Edges edges() {
+    Edges result = edges;
+    if (result == null) {
+      result = new Edges(getAcceptableQualitySeries());
+      edges = result;
+    }
+    return result;
+  }
+
   public List<Interval> asIntervals(){
-    List<Trend> aqTrends = getAcceptableQualityTrends();
-    return getIntervalsFromTrends(aqTrends);
+    return getIntervalsFromTrends(getAcceptableQualitySeries());
   }
 
   public static List<Interval> getIntervalsFromTrends(List<Trend> aqTrends) {
+    return getIntervalsFromTrends(TrendSeries.of(aqTrends));
+  }
+
+  public static List<Interval> getIntervalsFromTrends(TrendSeries aqTrends) {
     List<Interval> result = new ArrayList<>();
 
     long currentIntervalStart = -1;
-    for (Trend trend : aqTrends) {
-      if (trend.getValue() == 1) {
-        if (trend.getMillis() != 0 && currentIntervalStart == -1) {
-          currentIntervalStart = trend.getMillis();
+    for (int i = 0; i < aqTrends.size(); i++) {
+      if (aqTrends.getValue(i) == 1) {
+        if (aqTrends.getMillis(i) != 0 && currentIntervalStart == -1) {
+          currentIntervalStart = aqTrends.getMillis(i);
         }
       } else { // value == 0
         if (currentIntervalStart != -1) {
-          result.add(new Interval(currentIntervalStart, trend.getMillis()));
+          result.add(new Interval(currentIntervalStart, aqTrends.getMillis(i)));
           currentIntervalStart = -1;
         }
       }
@@ -223,7 +278,28 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
     t.setAlarm(extractIsAlarm(line));
     t.setActive(extractIsActive(line));
     try {
-      t.setTrends(CsvStringToTrendListConverter.stringToTrendList(extractTrends(line)));
+      t.setSeries(TrendStringDecoder.decode(extractTrends(line)).compactBinary());
+    } catch (CsvDataTypeMismatchException e) {
+      throw new IllegalArgumentException(e);
+    }
+    return t;
+  }
+
+  /**
+   * Converts a tokenized CSV line to a BinaryTrend. The trend field is decoded directly from the
+   * line buffer.
+   *
+   * @param line A tokenized CSV line
+   * @return A new BinaryTrend
+   */
+  public static BinaryTrend lineToTrend(CsvLine line) {
+    BinaryTrend t = new BinaryTrend();
+    t.setPpid(extractClient(line));
+    t.setUniqueName(extractTagname(line));
+    t.setAlarm(CsvFieldDecoder.toBoolean(line, ALARM_COLUMN_INDEX));
+    t.setActive(CsvFieldDecoder.toBoolean(line, ACTIVE_COLUMN_INDEX));
+    try {
+      t.setSeries(TrendStringDecoder.decode(line, TREND_COLUMN_INDEX_BINARY).compactBinary());
     } catch (CsvDataTypeMismatchException e) {
       throw new IllegalArgumentException(e);
     }
@@ -254,7 +330,7 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
         ", uniqueName='" + uniqueName + '\'' +
         ", alarm='" + alarm + '\'' +
         ", active='" + active + '\'' +
-        ", trends=" + trends +
+        ", trends=" + getSeries() +
         '}';
   }
 
@@ -277,8 +353,8 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
 
     return (ppid != null ? ppid.equals(that.ppid) : that.ppid == null) && (uniqueName != null
         ? uniqueName.equals(that.uniqueName) : that.uniqueName == null) && alarm == that.alarm
-        && active == that.active && (trends != null ? trends.equals(that.trends)
-        : that.trends == null);
+        && active == that.active && (getSeries() != null ? getSeries().equals(that.getSeries())
+        : that.getSeries() == null);
   }
 
   /**
@@ -291,7 +367,57 @@ public class BinaryTrend extends AbstractTrend<BinaryTrend> {
     result = 31 * result + (uniqueName != null ? uniqueName.hashCode() : 0);
     result = 31 * result + (alarm != null ? alarm.hashCode() : 0);
     result = 31 * result + (active != null ? active.hashCode() : 0);
-    result = 31 * result + (trends != null ? trends.hashCode() : 0);
+    result = 31 * result + (getSeries() != null ? getSeries().hashCode() : 0);
     return result;
   }
+
+  /**
+   * Rising and falling edge times of the acceptable quality samples. The samples are grouped by
+   * their value truncated to int, the same way the reason filters always grouped them.
+   */
+  private static final class Edges {
+
+    private final int[] rising;
+    private final int[] falling;
+    private final TrendWindowIndex risingIndex;
+    private final TrendWindowIndex fallingIndex;
+
+    private Edges(TrendSeries series) {
+      int risingCount = 0;
+      int fallingCount = 0;
+      for (int i = 0; i < series.size(); i++) {
+        int value = (int) series.getValue(i);
+        if (value == 1) {
+          risingCount++;
+        } else if (value == 0) {
+          fallingCount++;
+        }
+      }
+      rising = new int[risingCount];
+      falling = new int[fallingCount];
+      int r = 0;
+      int f = 0;
+      for (int i = 0; i < series.size(); i++) {
+        int value = (int) series.getValue(i);
+        if (value == 1) {
+          rising[r++] = series.getMillis(i);
+        } else if (value == 0) {
+          falling[f++] = series.getMillis(i);
+        }
+      }
+      sortIfNeeded(rising);
+      sortIfNeeded(falling);
+      risingIndex = new TrendWindowIndex(rising);
+      fallingIndex = new TrendWindowIndex(falling);
+    }
+
+    private static void sortIfNeeded(int[] millis) {
+      for (int i = 1; i < millis.length; i++) {
+        if (millis[i] < millis[i - 1]) {
+          Arrays.sort(millis);
+          return;
+        }
+      }
+    }
+  }
 }
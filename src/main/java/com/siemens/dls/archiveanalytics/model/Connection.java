@@ -8,6 +8,8 @@ package com.siemens.dls.archiveanalytics.model;
 
 import static org.apache.commons.lang3.math.NumberUtils.toInt;
 
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
+
 /**
  * Class that defines an Connection. Connections describe the connection between two modules on a
  * through a specific port
@@ -48,6 +50,16 @@ public class Connection {
     return toInt(line[PORT2_COLUMN_INDEX]);
   }
 
+  /**
+   * Get the port 2 value from a tokenized csv line without materializing the field
+   *
+   * @param line A tokenized CSV-line
+   * @return The port 2 value as int
+   */
+  public static int extractPort2(CsvLine line) {
+    return line.getInt(PORT2_COLUMN_INDEX);
+  }
+
   /**
    * Get the afi 2 value from a splitted csv line
    *
@@ -58,6 +70,16 @@ public class Connection {
     return toInt(line[AFI2_COLUMN_INDEX]);
   }
 
+  /**
+   * Get the afi 2 value from a tokenized csv line without materializing the field
+   *
+   * @param line A tokenized CSV-line
+   * @return The afi 2 value as int
+   */
+  public static int extractAfi2(CsvLine line) {
+    return line.getInt(AFI2_COLUMN_INDEX);
+  }
+
   /**
    * Get the port 1 value from a splitted csv line
    *
@@ -68,6 +90,16 @@ public class Connection {
     return toInt(line[PORT1_COLUMN_INDEX]);
   }
 
+  /**
+   * Get the port 1 value from a tokenized csv line without materializing the field
+   *
+   * @param line A tokenized CSV-line
+   * @return The port 1 value as int
+   */
+  public static int extractPort1(CsvLine line) {
+    return line.getInt(PORT1_COLUMN_INDEX);
+  }
+
   /**
    * Get the afi 1 value from a splitted csv line
    *
@@ -78,6 +110,16 @@ public class Connection {
     return toInt(line[AFI1_COLUMN_INDEX]);
   }
 
+  /**
+   * Get the afi 1 value from a tokenized csv line without materializing the field
+   *
+   * @param line A tokenized CSV-line
+   * @return The afi 1 value as int
+   */
+  public static int extractAfi1(CsvLine line) {
+    return line.getInt(AFI1_COLUMN_INDEX);
+  }
+
   /**
    * Getter for inPort
    *
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * The {@link Connection}s of a {@link Network}, indexed by their input and by their output port.
+ * Both ports of a connection are kept as packed {@link PortKey}s, see
+ * {@link PortKey#pack(int, int)}, in parallel arrays; the connections of an input port and those
+ * of an output port are chained through two hash tables of their heads. A connection takes about
+ * 32 bytes instead of a connection, two port keys and the entry of a multimap. Duplicate
+ * connections are kept once.
+ */
+final class ConnectionIndex {
+
+  private static final int NONE = -1;
+
+  private long[] ins = new long[16];
+  private long[] outs = new long[16];
+  private int[] next = new int[16];
+  private int[] nextByOut = new int[16];
+  private int[] heads;
+  private int[] outHeads;
+  private int mask;
+  private int size;
+
+  ConnectionIndex() {
+    heads = newHeads(LongSet.capacityFor(0));
+    outHeads = newHeads(heads.length);
+  }
+
+  /**
+   * Adds a connection
+   *
+   * @param in the packed key of the input port
+   * @param out the packed key of the output port
+   */
+  void add(long in, long out) {
+    int slot = LongSet.hash(in) & mask;
+    for (int e = heads[slot]; e != NONE; e = next[e]) {
+      if (ins[e] == in && outs[e] == out) {
+        return;
+      }
+    }
+    if (size == ins.length) {
+      ins = Arrays.copyOf(ins, size * 2);
+      outs = Arrays.copyOf(outs, size * 2);
+      next = Arrays.copyOf(next, size * 2);
+      nextByOut = Arrays.copyOf(nextByOut, size * 2);
+    }
+    ins[size] = in;
+    outs[size] = out;
+    next[size] = heads[slot];
+    heads[slot] = size;
+    int outSlot = LongSet.hash(out) & mask;
+    nextByOut[size] = outHeads[outSlot];
+    outHeads[outSlot] = size;
+    size++;
+    if (size > heads.length / 2) {
+      rehash(heads.length * 2);
+    }
+  }
+
+  /**
+   * Provides the output ports connected to an input port
+   *
+   * @param in the packed key of the input port
+   * @param consumer receives the packed key of every connected output port
+   */
+  void forEachOut(long in, LongConsumer consumer) {
+    for (int e = heads[LongSet.hash(in) & mask]; e != NONE; e = next[e]) {
+      if (ins[e] == in) {
+        consumer.accept(outs[e]);
+      }
+    }
+  }
+
+  /**
+   * Provides the input ports connected to an output port
+   *
+   * @param out the packed key of the output port
+   * @param consumer receives the packed key of every connected input port
+   */
+  void forEachIn(long out, LongConsumer consumer) {
+    for (int e = outHeads[LongSet.hash(out) & mask]; e != NONE; e = nextByOut[e]) {
+      if (outs[e] == out) {
+        consumer.accept(ins[e]);
+      }
+    }
+  }
+
+  /**
+   * Getter for the number of connections
+   *
+   * @return the size
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Getter for the input port of a connection
+   *
+   * @param index the position of the connection, less than {@link #size()}
+   * @return the packed key of the input port
+   */
+  long getIn(int index) {
+    return ins[index];
+  }
+
+  /**
+   * Getter for the output port of a connection
+   *
+   * @param index the position of the connection, less than {@link #size()}
+   * @return the packed key of the output port
+   */
+  long getOut(int index) {
+    return outs[index];
+  }
+
+  /**
+   * Creates the connections as objects, e.g. to compare them
+   *
+   * @return A new multimap of the connections, indexed by their input port
+   */
+  Multimap<PortKey, Connection> toMultimap() {
+    Multimap<PortKey, Connection> connections = HashMultimap.create();
+    for (int i = 0; i < size; i++) {
+      PortKey in = PortKey.fromLong(ins[i]);
+      connections.put(in, new Connection(PortKey.fromLong(outs[i]), in));
+    }
+    return connections;
+  }
+
+  private void rehash(int capacity) {
+    heads = newHeads(capacity);
+    outHeads = newHeads(capacity);
+    for (int e = 0; e < size; e++) {
+      int slot = LongSet.hash(ins[e]) & mask;
+      next[e] = heads[slot];
+      heads[slot] = e;
+      int outSlot = LongSet.hash(outs[e]) & mask;
+      nextByOut[e] = outHeads[outSlot];
+      outHeads[outSlot] = e;
+    }
+  }
+
+  private int[] newHeads(int capacity) {
+    int[] table = new int[capacity];
+    Arrays.fill(table, NONE);
+    mask = capacity - 1;
+    return table;
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Map from primitive longs, e.g. packed {@link PortKey}s, to objects. The keys and values are
+ * kept in two parallel open addressing tables, see {@link LongSet}, so no key or entry objects are
+ * created by a lookup or an insertion. Null values are not supported. Not thread-safe while it is
+ * modified.
+ *
+ * @param <V> type of the values
+ */
+public final class LongObjectMap<V> {
+
+  private static final long EMPTY = 0;
+
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+  private V emptyKeyValue;
+
+  /**
+   * Constructor for an empty LongObjectMap
+   */
+  public LongObjectMap() {
+    this(0);
+  }
+
+  /**
+   * Constructor for an empty LongObjectMap that holds the expected number of entries without
+   * growing
+   *
+   * @param expectedSize the expected number of entries
+   */
+  public LongObjectMap(int expectedSize) {
+    allocate(LongSet.capacityFor(expectedSize));
+  }
+
+  /**
+   * Indexes values by a key, like {@link com.google.common.collect.Maps#uniqueIndex}
+   *
+   * @param values the values
+   * @param keyFunction provides the key of a value
+   * @param <V> type of the values
+   * @return A new map of the values
+   * @throws IllegalArgumentException if two values have the same key
+   */
+  public static <V> LongObjectMap<V> uniqueIndex(Iterable<V> values,
+      ToLongFunction<? super V> keyFunction) {
+    LongObjectMap<V> map = new LongObjectMap<>();
+    for (V value : values) {
+      long key = keyFunction.applyAsLong(value);
+      V previous = map.put(key, value);
+      if (previous != null) {
+        throw new IllegalArgumentException(String
+            .format("Multiple values for key %d: %s and %s", key, previous, value));
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Maps a key to a value
+   *
+   * @param key the key
+   * @param value the value, not null
+   * @return the value previously mapped to the key, or null
+   */
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not supported");
+    }
+    if (key == EMPTY) {
+      V previous = emptyKeyValue;
+      emptyKeyValue = value;
+      if (previous == null) {
+        size++;
+      }
+      return previous;
+    }
+    int slot = LongSet.hash(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        V previous = value(slot);
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    if (size > keys.length / 2) {
+      rehash(keys.length * 2);
+    }
+    return null;
+  }
+
+  /**
+   * Getter for the value of a key
+   *
+   * @param key the key
+   * @return the value, or null if the key is not mapped
+   */
+  public V get(long key) {
+    if (key == EMPTY) {
+      return emptyKeyValue;
+    }
+    for (int slot = LongSet.hash(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return value(slot);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks if a key is mapped
+   *
+   * @param key the key
+   * @return true if the map contains the key
+   */
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Getter for the number of entries
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the map contains no entries
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V value(int slot) {
+    return (V) values[slot];
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = LongSet.hash(oldKeys[i]) & mask;
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+}
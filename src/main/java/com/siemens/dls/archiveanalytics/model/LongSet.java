@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive longs, e.g. of packed {@link PortKey}s, see {@link PortKey#pack(int, int)}.
+ * The values are kept in one open addressing table, so a set takes about 16 bytes per value
+ * instead of the boxed key, entry and node objects of a {@link java.util.HashSet}. Not
+ * thread-safe while it is modified.
+ */
+public final class LongSet {
+
+  private static final int MIN_CAPACITY = 16;
+  private static final long EMPTY = 0;
+
+  private long[] table;
+  private int mask;
+  private int size;
+  private boolean containsEmpty;
+
+  /**
+   * Constructor for an empty LongSet
+   */
+  public LongSet() {
+    this(0);
+  }
+
+  /**
+   * Constructor for an empty LongSet that holds the expected number of values without growing
+   *
+   * @param expectedSize the expected number of values
+   */
+  public LongSet(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Adds a value
+   *
+   * @param value the value
+   * @return true if the value has not been in the set
+   */
+  public boolean add(long value) {
+    if (value == EMPTY) {
+      if (containsEmpty) {
+        return false;
+      }
+      containsEmpty = true;
+      size++;
+      return true;
+    }
+    int slot = slot(value);
+    while (table[slot] != EMPTY) {
+      if (table[slot] == value) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = value;
+    size++;
+    if (size > table.length / 2) {
+      rehash(table.length * 2);
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a value is in the set
+   *
+   * @param value the value
+   * @return true if the set contains the value
+   */
+  public boolean contains(long value) {
+    if (value == EMPTY) {
+      return containsEmpty;
+    }
+    for (int slot = slot(value); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (table[slot] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Getter for the number of values
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the set contains no values
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Provides every value, in no particular order
+   *
+   * @param consumer receives the values
+   */
+  public void forEach(LongConsumer consumer) {
+    if (containsEmpty) {
+      consumer.accept(EMPTY);
+    }
+    for (long value : table) {
+      if (value != EMPTY) {
+        consumer.accept(value);
+      }
+    }
+  }
+
+  /**
+   * Spreads a value over the bits of an int, so packed keys that differ in one half only do not
+   * cluster
+   *
+   * @param value the value
+   * @return the hash
+   */
+  static int hash(long value) {
+    long h = value * 0x9e3779b97f4a7c15L;
+    return (int) (h ^ h >>> 32);
+  }
+
+  private int slot(long value) {
+    return hash(value) & mask;
+  }
+
+  private void rehash(int capacity) {
+    long[] old = table;
+    allocate(capacity);
+    for (long value : old) {
+      if (value != EMPTY) {
+        int slot = slot(value);
+        while (table[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    table = new long[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return the power of two that keeps the table at most half full
+   */
+  static int capacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity / 2 < expectedSize) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+}
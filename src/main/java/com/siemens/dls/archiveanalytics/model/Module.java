@@ -9,15 +9,15 @@ package com.siemens.dls.archiveanalytics.model;
 import static org.apache.commons.lang3.math.NumberUtils.toInt;
 
 import com.opencsv.bean.CsvBindByPosition;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Defines a Module.
@@ -44,6 +44,10 @@ public class Module {
 
   private List<Port> inPorts;
   private List<Port> outPorts;
+  // index of the ports of both directions, sorted by port id
+  private int[] portIds;
+  private Port[] portsById;
+  private int portCount;
 
   /**
    * default constructor
@@ -59,12 +63,27 @@ public class Module {
     return toInt(line[ID_COLUMN_INDEX]);
   }
 
+  /**
+   * Extracts afi id from a tokenized CSV line without materializing the field.
+   */
+  public static int extractId(CsvLine line) {
+    return line.getInt(ID_COLUMN_INDEX);
+  }
+
   /**
    * Extracts node from a split CSV line.
    */
   public static int extractNode(String[] line) {
     return toInt(line[NODE_COLUMN_INDEX]);
   }
+
+  /**
+   * Extracts node from a tokenized CSV line without materializing the field.
+   */
+  public static int extractNode(CsvLine line) {
+    return line.getInt(NODE_COLUMN_INDEX);
+  }
+
   /**
    * Extracts afi type id from a split CSV line.
    */
@@ -72,6 +91,13 @@ public class Module {
     return toInt(line[AFI_TYPE_COLUMN_INDEX]);
   }
 
+  /**
+   * Extracts afi type id from a tokenized CSV line without materializing the field.
+   */
+  public static int extractAfiType(CsvLine line) {
+    return line.getInt(AFI_TYPE_COLUMN_INDEX);
+  }
+
   /**
    * Extracts symbol (module name) from a split CSV line.
    */
@@ -79,6 +105,13 @@ public class Module {
     return line[SYMBOL_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts symbol (module name) from a tokenized CSV line.
+   */
+  public static String extractSymbol(CsvLine line) {
+    return line.getString(SYMBOL_COLUMN_INDEX);
+  }
+
   /**
    * Extracts symbol (module name) from a split CSV line.
    */
@@ -86,6 +119,13 @@ public class Module {
     return line[NAME_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts name from a tokenized CSV line.
+   */
+  public static String extractName(CsvLine line) {
+    return line.getString(NAME_COLUMN_INDEX);
+  }
+
 
 
   /**
@@ -235,17 +275,59 @@ public class Module {
    * Finds a single port of this module by its id
    */
   public Optional<Port> findPortById(int portId){
-    return Stream.concat(getInPorts().stream(), getOutPorts().stream())
-        .filter(p -> p.getId() == portId).findAny();
+    return Optional.ofNullable(getPortById(portId));
+  }
+
+  /**
+   * Finds a single port of this module by its id, by binary search in the index of the ports
+   *
+   * @param portId the id of the port
+   * @return the port or null if the module has no port with the id
+   */
+  public Port getPortById(int portId) {
+    int index = indexOfPortId(portId);
+    return index >= 0 ? portsById[index] : null;
   }
 
   /**
    * Finds all ports of this module that match given ids. Any ids not found are ignored
    */
   public Set<Port> findPortsByIds(Integer ... portId){
-    Set<Integer> portIds = Arrays.stream(portId).collect(Collectors.toSet());
-    return Stream.concat(getInPorts().stream(), getOutPorts().stream())
-        .filter(p -> portIds.contains(p.getId())).collect(Collectors.toSet());
+    Set<Port> ports = new HashSet<>();
+    for (Integer id : portId) {
+      Port port = getPortById(id);
+      if (port != null) {
+        ports.add(port);
+      }
+    }
+    return ports;
+  }
+
+  private int indexOfPortId(int portId) {
+    return portIds == null ? -1 : Arrays.binarySearch(portIds, 0, portCount, portId);
+  }
+
+  /**
+   * Inserts a port into the index. Ports.csv lists the ports of a module by ascending id, so the
+   * port is usually appended.
+   *
+   * @param insertionPoint the position of the port, as returned by a failed binary search
+   */
+  private void indexPort(Port port, int insertionPoint) {
+    if (portIds == null) {
+      portIds = new int[4];
+      portsById = new Port[4];
+    } else if (portCount == portIds.length) {
+      portIds = Arrays.copyOf(portIds, portCount * 2);
+      portsById = Arrays.copyOf(portsById, portCount * 2);
+    }
+    System.arraycopy(portIds, insertionPoint, portIds, insertionPoint + 1,
+        portCount - insertionPoint);
+    System.arraycopy(portsById, insertionPoint, portsById, insertionPoint + 1,
+        portCount - insertionPoint);
+    portIds[insertionPoint] = port.getId();
+    portsById[insertionPoint] = port;
+    portCount++;
   }
 
   /**
@@ -259,7 +341,8 @@ public class Module {
     if (p.getDirection() == null){
       throw new IllegalArgumentException(String.format("Port %d must have a direction to be added to module %d", p.getId(), getId()));
     }
-    if (findPortById(p.getId()).isPresent()){
+    int index = indexOfPortId(p.getId());
+    if (index >= 0){
       throw new IllegalArgumentException(String.format("Module %d already has a port with id %d", getId(), p.getId()));
     }
     switch (p.getDirection()) {
@@ -272,6 +355,7 @@ public class Module {
       default:
         throw new IllegalArgumentException("illegal port direction");
     }
+    indexPort(p, -(index + 1));
     return this;
   }
 
@@ -6,7 +6,6 @@
 
 package com.siemens.dls.archiveanalytics.model;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import org.apache.log4j.Logger;
 
@@ -26,14 +25,29 @@ public class Network {
   public static final Comparator<Port> PORT_COMPARATOR = Comparator.comparing(Port::getAfiId)
       .thenComparing(Port::getId);
   private Map<Integer, Module> modules;
-  private Multimap<PortKey, Connection> connections;
+  private ConnectionIndex connections;
   private Set<Port> ports;
+  private LongObjectMap<Port> portsByKey;
+  private NetworkGraph graph;
   protected static final Logger LOG = Logger.getLogger(Network.class);
 
 
   private Network() {
     modules = new HashMap<>();
     ports = new HashSet<>();
+    portsByKey = new LongObjectMap<>();
+  }
+
+  /**
+   * Constructs a {@link Network} whose ports already have been connected, e.g. by
+   * {@link NetworkSnapshot#read(java.nio.file.Path)}
+   */
+  Network(Map<Integer, Module> modules, ConnectionIndex connections, Set<Port> ports) {
+    this.modules = modules;
+    this.connections = connections;
+    this.ports = ports;
+    portsByKey = new LongObjectMap<>(ports.size());
+    ports.forEach(this::indexPort);
   }
 
   /**
@@ -44,6 +58,11 @@ public class Network {
    *
    * The Network connects all input and output {@link Port}s together, as defined by given
    * {@link Connection}s.
+   *
+   * Only the connections whose input port belongs to one of the given modules are kept, in a
+   * primitive index, so the connections of the rest of the plant are dropped while streaming.
+   * Input ports of modules added later are therefore only connected if their connections are
+   * given to {@link #extendWith(Map, Stream, Stream)}.
    */
   public Network(
       Map<Integer, Module> modules,
@@ -51,8 +70,10 @@ public class Network {
       Stream<Port> portStream) {
     this();
 
-    connections = HashMultimap.create();
-    connectionStream.forEach(c -> connections.put(c.getIn(), c));
+    connections = new ConnectionIndex();
+    connectionStream
+        .filter(c -> modules.containsKey(c.getIn().getAfiId()))
+        .forEach(c -> connections.add(c.getIn().toLong(), c.getOut().toLong()));
     LOG.info("Indexed connections: " + connections.size());
 
     extendWith(modules, portStream);
@@ -67,6 +88,27 @@ public class Network {
     return Collections.unmodifiableMap(modules);
   }
 
+  /**
+   * @return all {@link Port}s in the network
+   */
+  Set<Port> getPorts() {
+    return Collections.unmodifiableSet(ports);
+  }
+
+  /**
+   * @return all {@link Connection}s kept during creation, indexed by their input port
+   */
+  Multimap<PortKey, Connection> getConnections() {
+    return connections.toMultimap();
+  }
+
+  /**
+   * @return the index of all {@link Connection}s kept during creation
+   */
+  ConnectionIndex getConnectionIndex() {
+    return connections;
+  }
+
   /**
    * Given a set of input ports finds all PortKeys of output ports to which those input ports
    * should be connected. Is used to determine what ports and/or modules should be loaded
@@ -75,11 +117,21 @@ public class Network {
    * @return {@link Set} of {@PortKey}s the given input ports should be connected to
    */
   public Set<PortKey> getMissingPortKeys(Set<Port> danglingInputPorts) {
-    return danglingInputPorts.stream()
-        .map(p -> connections.get(p.getKey()))
-        .flatMap(Collection::stream)
-        .map(Connection::getOut)
-        .collect(Collectors.toSet());
+    Set<PortKey> missing = new HashSet<>();
+    getMissingPackedPortKeys(danglingInputPorts).forEach(key -> missing.add(PortKey.fromLong(key)));
+    return missing;
+  }
+
+  /**
+   * Same as {@link #getMissingPortKeys(Set)}, without creating {@link PortKey}s
+   *
+   * @param danglingInputPorts input ports that should be connected
+   * @return {@link LongSet} of the packed keys of the output ports, see {@link PortKey#pack}
+   */
+  public LongSet getMissingPackedPortKeys(Set<Port> danglingInputPorts) {
+    LongSet missing = new LongSet();
+    danglingInputPorts.forEach(p -> connections.forEachOut(p.getPackedKey(), missing::add));
+    return missing;
   }
 
   /**
@@ -87,38 +139,92 @@ public class Network {
    * by connections that were given during creation (old ports get connected to new ports and new
    * ports to each other)
    *
+   * The ports are kept in an index by their packed key, so only the new ports are linked: a new
+   * input port to the output ports of its connections and a new output port to the input ports of
+   * its connections. An extension takes time proportional to its size and the connections of its
+   * ports.
+   *
+   * Only the connections of the modules given during creation are known, input ports of new
+   * modules stay unconnected, see {@link #extendWith(Map, Stream, Stream)}.
+   *
    * @return fluent interface
    */
   public Network extendWith(Map<Integer, Module> newModules, Stream<Port> newPorts) {
     modules.putAll(newModules);
-    Set<Port> newPortsSet = newPorts.collect(Collectors.toSet());
-    ports.addAll(newPortsSet);
-    List<Port> sortedPorts = new ArrayList<>(ports);
-    sortedPorts.sort(PORT_COMPARATOR);
-    LOG.info("Sorted ports: " + sortedPorts.size());
-
-    ports.stream()
-        .filter(p -> p.getDirection() == PortDirection.I)
-        .forEach(port -> {
-          PortKey key = port.getKey();
-          if (connections.containsKey(key)) {
-            Collection<Connection> portConnections = connections.get(key);
-            portConnections.forEach(c -> {
-              int outPortIndex = Collections
-                  .binarySearch(sortedPorts, new Port().setKey(c.getOut()), PORT_COMPARATOR);
-              if (outPortIndex >= 0) {
-                port.addToConnectedPorts(sortedPorts.get(outPortIndex));
-              } else { // corresponding out port has not been loaded
-                // mark the port as connected to something, because there exists a connection
-                port.markConnected();
-              }
-            });
+    List<Port> addedPorts = new ArrayList<>();
+    newPorts.forEach(port -> {
+      if (ports.add(port)) {
+        addedPorts.add(port);
+        indexPort(port);
+      }
+    });
+    LOG.info("Indexed new ports: " + addedPorts.size());
+
+    addedPorts.forEach(port -> {
+      if (port.getDirection() == PortDirection.I) {
+        connections.forEachOut(port.getPackedKey(), out -> {
+          Port outPort = portsByKey.get(out);
+          if (outPort != null) {
+            port.addToConnectedPorts(outPort);
+          } else { // corresponding out port has not been loaded
+            // mark the port as connected to something, because there exists a connection
+            port.markConnected();
           }
         });
+      } else {
+        // input ports loaded earlier may have been waiting for this port
+        connections.forEachIn(port.getPackedKey(), in -> {
+          Port inPort = portsByKey.get(in);
+          if (inPort != null && inPort.getDirection() == PortDirection.I) {
+            inPort.addToConnectedPorts(port);
+          }
+        });
+      }
+    });
     LOG.info("Connected ports");
+    graph = null;
     return this;
   }
 
+  /**
+   * Same as {@link #extendWith(Map, Stream)}, but first keeps the connections whose input port
+   * belongs to one of the new modules, so the input ports of the new modules get connected like
+   * those of the modules given during creation
+   *
+   * @return fluent interface
+   */
+  public Network extendWith(Map<Integer, Module> newModules, Stream<Connection> newConnections,
+      Stream<Port> newPorts) {
+    int indexed = connections.size();
+    newConnections
+        .filter(c -> newModules.containsKey(c.getIn().getAfiId())
+            && !modules.containsKey(c.getIn().getAfiId()))
+        .forEach(c -> connections.add(c.getIn().toLong(), c.getOut().toLong()));
+    LOG.info("Indexed new connections: " + (connections.size() - indexed));
+    return extendWith(newModules, newPorts);
+  }
+
+  private void indexPort(Port port) {
+    long key = port.getPackedKey();
+    if (!portsByKey.containsKey(key)) {
+      portsByKey.put(key, port);
+    }
+  }
+
+  /**
+   * Provides the ports and their connections as an int-indexed graph. The graph is built on the
+   * first call after creation or {@link #extendWith(Map, Stream)} and shared by later calls.
+   *
+   * @return the graph of the current network
+   */
+  public synchronized NetworkGraph getGraph() {
+    if (graph == null) {
+      graph = NetworkGraph.of(this);
+      LOG.info("Built graph of ports: " + graph.getPortCount());
+    }
+    return graph;
+  }
+
   /**
    * Returns a single {@link Set} of all {@link Port}s in the network that match the specified
    * filter. The filter is defined as a map of afiTypeIds to sets of port ids which are to be
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view on the connected {@link Port}s of a {@link Network}, for searches that visit
+ * many ports. Ports and modules are numbered densely from 0, ports in the order of their packed
+ * {@link PortKey}. The connections from input to output ports are kept in compressed sparse row
+ * form: the output ports connected to input port {@code p} are
+ * {@code targets[offsets[p]..offsets[p + 1]]}. The input ports of module {@code m} are kept the
+ * same way, in the order of {@link Module#getInPorts()}, so a traversal needs no objects besides
+ * the ints.
+ *
+ * Built by {@link Network#getGraph()} once the ports have been connected.
+ */
+public final class NetworkGraph {
+
+  public static final int NONE = -1;
+
+  private final Port[] ports;
+  private final long[] keys;
+  private final int[] portIds;
+  private final int[] portModules;
+  private final int[] offsets;
+  private final int[] targets;
+
+  private final Module[] modules;
+  private final int[] afiTypeIds;
+  private final int[] inPortOffsets;
+  private final int[] inPorts;
+
+  private NetworkGraph(Port[] ports, Module[] modules) {
+    this.ports = ports;
+    this.modules = modules;
+    keys = new long[ports.length];
+    portIds = new int[ports.length];
+    for (int p = 0; p < ports.length; p++) {
+      keys[p] = ports[p].getPackedKey();
+      portIds[p] = ports[p].getId();
+    }
+
+    Map<Integer, Integer> moduleIndexes = new HashMap<>();
+    afiTypeIds = new int[modules.length];
+    for (int m = 0; m < modules.length; m++) {
+      moduleIndexes.put(modules[m].getId(), m);
+      afiTypeIds[m] = modules[m].getAfiTypeId();
+    }
+    portModules = new int[ports.length];
+    for (int p = 0; p < ports.length; p++) {
+      portModules[p] = moduleIndexes.getOrDefault(ports[p].getAfiId(), NONE);
+    }
+
+    offsets = new int[ports.length + 1];
+    int[] edges = new int[ports.length];
+    int edgeCount = 0;
+    for (int p = 0; p < ports.length; p++) {
+      offsets[p] = edgeCount;
+      if (ports[p].getDirection() == PortDirection.I) {
+        for (Port other : ports[p].getConnectedPorts()) {
+          int target = other.getDirection() == PortDirection.O ? indexOf(other) : NONE;
+          if (target != NONE) {
+            if (edgeCount == edges.length) {
+              edges = Arrays.copyOf(edges, edgeCount * 2 + 1);
+            }
+            edges[edgeCount++] = target;
+          }
+        }
+      }
+    }
+    offsets[ports.length] = edgeCount;
+    targets = Arrays.copyOf(edges, edgeCount);
+
+    inPortOffsets = new int[modules.length + 1];
+    int[] owned = new int[ports.length];
+    int ownedCount = 0;
+    for (int m = 0; m < modules.length; m++) {
+      inPortOffsets[m] = ownedCount;
+      for (Port port : modules[m].getInPorts()) {
+        int index = indexOf(port);
+        if (index != NONE) {
+          owned[ownedCount++] = index;
+        }
+      }
+    }
+    inPortOffsets[modules.length] = ownedCount;
+    inPorts = Arrays.copyOf(owned, ownedCount);
+  }
+
+  /**
+   * Creates the graph of a network whose ports have been connected
+   *
+   * @param network the network
+   * @return A new graph
+   */
+  static NetworkGraph of(Network network) {
+    Port[] ports = network.getPorts().toArray(new Port[0]);
+    Arrays.sort(ports, Comparator.comparingLong(Port::getPackedKey));
+    List<Module> modules = new ArrayList<>(network.getModules().values());
+    return new NetworkGraph(ports, modules.toArray(new Module[0]));
+  }
+
+  /**
+   * Getter for the number of ports
+   *
+   * @return the number of ports, which are numbered from 0
+   */
+  public int getPortCount() {
+    return ports.length;
+  }
+
+  /**
+   * Getter for the number of modules
+   *
+   * @return the number of modules, which are numbered from 0
+   */
+  public int getModuleCount() {
+    return modules.length;
+  }
+
+  /**
+   * Finds the number of a port
+   *
+   * @param port the port
+   * @return the number of the port, or {@link #NONE} if it is not in the graph
+   */
+  public int indexOf(Port port) {
+    return indexOf(port.getAfiId(), port.getId());
+  }
+
+  /**
+   * Finds the number of a port by its key
+   *
+   * @param afiId the id of the module of the port
+   * @param portId the id of the port within its module
+   * @return the number of the port, or {@link #NONE} if it is not in the graph
+   */
+  public int indexOf(int afiId, int portId) {
+    int index = Arrays.binarySearch(keys, PortKey.pack(afiId, portId));
+    return index >= 0 ? index : NONE;
+  }
+
+  /**
+   * Getter for a port
+   *
+   * @param port the number of the port
+   * @return the port
+   */
+  public Port getPort(int port) {
+    return ports[port];
+  }
+
+  /**
+   * Getter for the id of a port within its module
+   *
+   * @param port the number of the port
+   * @return the id
+   */
+  public int getPortId(int port) {
+    return portIds[port];
+  }
+
+  /**
+   * Getter for the module of a port
+   *
+   * @param port the number of the port
+   * @return the number of the module, or {@link #NONE} if it is not in the graph
+   */
+  public int getModuleOf(int port) {
+    return portModules[port];
+  }
+
+  /**
+   * Getter for a module
+   *
+   * @param module the number of the module
+   * @return the module
+   */
+  public Module getModule(int module) {
+    return modules[module];
+  }
+
+  /**
+   * Getter for the afiTypeId of a module
+   *
+   * @param module the number of the module
+   * @return the afiTypeId
+   */
+  public int getAfiTypeId(int module) {
+    return afiTypeIds[module];
+  }
+
+  /**
+   * Getter for the number of input ports of a module
+   *
+   * @param module the number of the module
+   * @return the number of input ports
+   */
+  public int getInPortCount(int module) {
+    return inPortOffsets[module + 1] - inPortOffsets[module];
+  }
+
+  /**
+   * Getter for an input port of a module
+   *
+   * @param module the number of the module
+   * @param i the position of the input port, less than {@link #getInPortCount(int)}
+   * @return the number of the input port
+   */
+  public int getInPort(int module, int i) {
+    return inPorts[inPortOffsets[module] + i];
+  }
+
+  /**
+   * Getter for the number of output ports connected to a port
+   *
+   * @param port the number of the port
+   * @return the number of connected output ports, 0 for an output port
+   */
+  public int getConnectedOutPortCount(int port) {
+    return offsets[port + 1] - offsets[port];
+  }
+
+  /**
+   * Getter for an output port connected to a port
+   *
+   * @param port the number of the port
+   * @param i the position of the connected port, less than
+   * {@link #getConnectedOutPortCount(int)}
+   * @return the number of the connected output port
+   */
+  public int getConnectedOutPort(int port, int i) {
+    return targets[offsets[port] + i];
+  }
+
+  /**
+   * Int counterpart of {@link Port#getConnectedOutPort()}
+   *
+   * @param port the number of the port
+   * @return the number of the connected output port, or {@link #NONE} if there is none
+   */
+  public int getConnectedOutPort(int port) {
+    return offsets[port] < offsets[port + 1] ? targets[offsets[port]] : NONE;
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.Logger;
+
+/**
+ * Binary snapshot of a {@link Network}, so a network that has been loaded from the CSV files once
+ * can be rebuilt without parsing them again. The file holds
+ * <ul>
+ * <li>a table of all distinct strings, which the other sections refer to by index</li>
+ * <li>the modules</li>
+ * <li>the ports with all their fields, in the order of their modules</li>
+ * <li>the connections as pairs of port keys</li>
+ * <li>the links between the ports as pairs of port indexes, so rebuilding a network does not have
+ * to look up the ports of a connection again</li>
+ * </ul>
+ * All numbers are big endian. A snapshot is read through a memory mapping and therefore limited to
+ * 2 GB.
+ */
+public final class NetworkSnapshot {
+
+  /**
+   * Version of the file format, increased with every incompatible change
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final Logger LOG = Logger.getLogger(NetworkSnapshot.class);
+  private static final int MAGIC = 0x444c534e; // "DLSN"
+  private static final int NULL_REFERENCE = -1;
+  private static final byte NO_DIRECTION = -1;
+  private static final int ARCHIVE_FLAG = 1;
+  private static final int ALARM_FLAG = 1 << 1;
+  private static final int CONNECTED_FLAG = 1 << 2;
+  private static final int IN_MODULE_FLAG = 1 << 3;
+
+  private NetworkSnapshot() {
+    //noop
+  }
+
+  /**
+   * Writes a snapshot of a network. The snapshot is written to a temporary file that replaces the
+   * target file when it is complete, so the target file is either missing or whole.
+   *
+   * @param network the network
+   * @param file the target file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Network network, Path file) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, ".", ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        write(network, out);
+      }
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private static void write(Network network, DataOutputStream out) throws IOException {
+    Map<Integer, Module> modules = network.getModules();
+    // ports in module order first, so the modules get their ports in the same order again
+    Set<Port> ports = new LinkedHashSet<>();
+    modules.values().forEach(m -> {
+      ports.addAll(m.getInPorts());
+      ports.addAll(m.getOutPorts());
+    });
+    ports.addAll(network.getPorts());
+    Map<Port, Integer> portIndexes = new IdentityHashMap<>();
+    for (Port port : ports) {
+      portIndexes.put(port, portIndexes.size());
+    }
+    ConnectionIndex connections = network.getConnectionIndex();
+
+    StringTable strings = new StringTable();
+    modules.values().forEach(m -> strings.add(m.getSymbol(), m.getName()));
+    ports.forEach(p -> strings.add(p.getName(), p.getParameter(), p.getUniqueName(),
+        p.getAbbrev(), p.getActive(), p.getEngineeringUnit()));
+
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    strings.write(out);
+
+    out.writeInt(modules.size());
+    for (Module module : modules.values()) {
+      out.writeInt(module.getId());
+      out.writeInt(module.getAfiTypeId());
+      out.writeInt(module.getNode());
+      out.writeInt(strings.indexOf(module.getSymbol()));
+      out.writeInt(strings.indexOf(module.getName()));
+    }
+
+    out.writeInt(ports.size());
+    for (Port port : ports) {
+      out.writeInt(port.getAfiId());
+      out.writeInt(port.getId());
+      out.writeInt(strings.indexOf(port.getName()));
+      out.writeInt(strings.indexOf(port.getParameter()));
+      out.writeInt(strings.indexOf(port.getUniqueName()));
+      out.writeByte(port.getDirection() == null ? NO_DIRECTION : port.getDirection().ordinal());
+      boolean inModule = port.getModule() != null
+          && port.getModule() == modules.get(port.getAfiId());
+      out.writeByte((port.isArchive() ? ARCHIVE_FLAG : 0)
+          | (port.isAlarm() ? ALARM_FLAG : 0)
+          | (port.isConnected() ? CONNECTED_FLAG : 0)
+          | (inModule ? IN_MODULE_FLAG : 0));
+      out.writeInt(port.getAlarmTypeId());
+      out.writeInt(strings.indexOf(port.getAbbrev()));
+      out.writeInt(strings.indexOf(port.getActive()));
+      out.writeFloat(port.getMinValue());
+      out.writeFloat(port.getMaxValue());
+      out.writeInt(port.getConnAfiId());
+      out.writeInt(port.getConnPortId());
+      out.writeInt(strings.indexOf(port.getEngineeringUnit()));
+    }
+
+    out.writeInt(connections.size());
+    for (int i = 0; i < connections.size(); i++) {
+      out.writeLong(connections.getOut(i));
+      out.writeLong(connections.getIn(i));
+    }
+
+    // every link is held by both ports, so the input side is enough
+    List<int[]> links = new ArrayList<>();
+    for (Port port : ports) {
+      if (port.getDirection() == PortDirection.I) {
+        for (Port other : port.getConnectedPorts()) {
+          Integer otherIndex = portIndexes.get(other);
+          if (otherIndex != null) {
+            links.add(new int[]{portIndexes.get(port), otherIndex});
+          }
+        }
+      }
+    }
+    out.writeInt(links.size());
+    for (int[] link : links) {
+      out.writeInt(link[0]);
+      out.writeInt(link[1]);
+    }
+  }
+
+  /**
+   * Rebuilds a network from a snapshot written by {@link #write(Network, Path)}
+   *
+   * @param file the snapshot
+   * @return a network with the same modules, ports, connections and links as the written one
+   * @throws IOException if the file cannot be read or is not a snapshot of this format version
+   */
+  public static Network read(Path file) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(String.format("Snapshot %s is too large", file));
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      return read(buffer);
+    } catch (RuntimeException e) {
+      throw new IOException(String.format("Snapshot %s is corrupt", file), e);
+    }
+  }
+
+  private static Network read(ByteBuffer in) throws IOException {
+    if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC) {
+      throw new IOException("Not a network snapshot");
+    }
+    int version = in.getInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException(String.format("Unsupported snapshot version %d", version));
+    }
+    String[] strings = new String[in.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[in.getInt()];
+      in.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int moduleCount = in.getInt();
+    Map<Integer, Module> modules = new HashMap<>(moduleCount * 4 / 3 + 1);
+    for (int i = 0; i < moduleCount; i++) {
+      Module module = new Module()
+          .setId(in.getInt())
+          .setAfiTypeId(in.getInt())
+          .setNode(in.getInt())
+          .setSymbol(string(strings, in.getInt()))
+          .setName(string(strings, in.getInt()));
+      modules.put(module.getId(), module);
+    }
+
+    Port[] ports = new Port[in.getInt()];
+    PortDirection[] directions = PortDirection.values();
+    for (int i = 0; i < ports.length; i++) {
+      Port port = new Port()
+          .setAfiId(in.getInt())
+          .setId(in.getInt())
+          .setName(string(strings, in.getInt()))
+          .setParameter(string(strings, in.getInt()))
+          .setUniqueName(string(strings, in.getInt()));
+      byte direction = in.get();
+      port.setDirection(direction == NO_DIRECTION ? null : directions[direction]);
+      int flags = in.get();
+      port.setArchive((flags & ARCHIVE_FLAG) != 0)
+          .setAlarm((flags & ALARM_FLAG) != 0)
+          .setAlarmTypeId(in.getInt())
+          .setAbbrev(string(strings, in.getInt()))
+          .setActive(string(strings, in.getInt()))
+          .setMinValue(in.getFloat())
+          .setMaxValue(in.getFloat());
+      port.setConnAfiId(in.getInt());
+      port.setConnPortId(in.getInt());
+      port.setEngineeringUnit(string(strings, in.getInt()));
+      if ((flags & CONNECTED_FLAG) != 0) {
+        port.markConnected();
+      }
+      if ((flags & IN_MODULE_FLAG) != 0) {
+        modules.get(port.getAfiId()).addPort(port);
+      }
+      ports[i] = port;
+    }
+
+    int connectionCount = in.getInt();
+    ConnectionIndex connections = new ConnectionIndex();
+    for (int i = 0; i < connectionCount; i++) {
+      long outKey = in.getLong();
+      connections.add(in.getLong(), outKey);
+    }
+
+    int linkCount = in.getInt();
+    for (int i = 0; i < linkCount; i++) {
+      ports[in.getInt()].addToConnectedPorts(ports[in.getInt()]);
+    }
+
+    Set<Port> portSet = new HashSet<>(ports.length * 4 / 3 + 1);
+    for (Port port : ports) {
+      portSet.add(port);
+    }
+    LOG.info(String.format("Read snapshot of %d modules, %d ports and %d connections",
+        moduleCount, ports.length, connectionCount));
+    return new Network(modules, connections, portSet);
+  }
+
+  private static String string(String[] strings, int index) {
+    return index == NULL_REFERENCE ? null : strings[index];
+  }
+
+  /**
+   * Distinct strings of a snapshot. Names, units and the like repeat a lot, so each of them is
+   * written once and every rebuilt object shares the same instance.
+   */
+  private static class StringTable {
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private void add(String... values) {
+      for (String value : values) {
+        if (value != null && !indexes.containsKey(value)) {
+          indexes.put(value, strings.size());
+          strings.add(value);
+        }
+      }
+    }
+
+    private int indexOf(String value) {
+      return value == null ? NULL_REFERENCE : indexes.get(value);
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeInt(strings.size());
+      for (String value : strings) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+  }
+}
@@ -11,10 +11,15 @@ import static org.apache.commons.lang3.math.NumberUtils.toInt;
 
 import com.opencsv.bean.CsvBindByPosition;
 import com.opencsv.bean.CsvCustomBindByPosition;
+import com.siemens.dls.archiveanalytics.parser.CsvFieldDecoder;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
 import com.siemens.dls.archiveanalytics.parser.CsvStringToBooleanConverter;
 import com.siemens.dls.archiveanalytics.parser.CsvStringToPortDirectionConverter;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -83,7 +88,10 @@ public class Port {
   private String engineeringUnit;
 
   private Module module;
-  private Set<Port> connectedPorts;
+  // all linked ports in the order they were linked, for an output port its fan-out
+  private List<Port> connectedPorts;
+  // the first linked output port, which drives an input port
+  private Port connectedOutPort;
   private boolean connected = false;
 
   /**
@@ -100,6 +108,13 @@ public class Port {
     return toInt(line[AFI_COLUMN_INDEX]);
   }
 
+  /**
+   * Extracts afi id from a tokenized CSV line without materializing the field.
+   */
+  public static int extractAfiId(CsvLine line) {
+    return line.getInt(AFI_COLUMN_INDEX);
+  }
+
   /**
    * Extracts direction from a split CSV line.
    */
@@ -107,26 +122,70 @@ public class Port {
     return PortDirection.valueOf(line[IO_COLUMN_INDEX]);
   }
 
+  /**
+   * Extracts direction from a tokenized CSV line without materializing the field.
+   */
+  public static PortDirection extractDirection(CsvLine line) {
+    return CsvFieldDecoder.toPortDirection(line, IO_COLUMN_INDEX);
+  }
+
   public static int extractId(String[] line) {
     return toInt(line[ID_COLUMN_INDEX]);
   }
 
+  public static int extractId(CsvLine line) {
+    return line.getInt(ID_COLUMN_INDEX);
+  }
+
   public static PortKey extractPortKey(String[] line) {
     return new PortKey(extractAfiId(line), extractId(line));
   }
 
+  public static PortKey extractPortKey(CsvLine line) {
+    return new PortKey(extractAfiId(line), extractId(line));
+  }
+
+  /**
+   * Extracts the packed port key from a tokenized CSV line without creating a {@link PortKey}.
+   */
+  public static long extractPackedKey(CsvLine line) {
+    return PortKey.pack(extractAfiId(line), extractId(line));
+  }
+
   public static String extractIsArchive(String[] line) {
     return line[IS_ARCHIVE_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts the archive flag from a tokenized CSV line without materializing the field.
+   *
+   * @see CsvStringToBooleanConverter#toBoolean(String)
+   */
+  public static boolean extractArchiveFlag(CsvLine line) {
+    return CsvFieldDecoder.toBoolean(line, IS_ARCHIVE_COLUMN_INDEX);
+  }
+
   public static String extractIsAlarm(String[] line) {
     return line[IS_ALARM_COLUMN_INDEX];
   }
 
+  /**
+   * Extracts the alarm flag from a tokenized CSV line without materializing the field.
+   *
+   * @see CsvStringToBooleanConverter#toBoolean(String)
+   */
+  public static boolean extractAlarmFlag(CsvLine line) {
+    return CsvFieldDecoder.toBoolean(line, IS_ALARM_COLUMN_INDEX);
+  }
+
   public static String extractActive(String[] line) {
     return line[ACTIVE_COLUMN_INDEX];
   }
 
+  public static String extractActive(CsvLine line) {
+    return line.getString(ACTIVE_COLUMN_INDEX);
+  }
+
   /**
    * Extract connected afiid. If none connected, return 0
    *
@@ -137,6 +196,16 @@ public class Port {
     return toInt(line[CONNAFIID_COLUMN_INDEX]);
   }
 
+  /**
+   * Extract connected afiid. If none connected, return 0
+   *
+   * @param line The tokenized line from Ports.csv
+   * @return The afiid as int
+   */
+  public static int extractConnAfiid(CsvLine line) {
+    return line.getInt(CONNAFIID_COLUMN_INDEX);
+  }
+
   /**
    * Extract connected Portid. If none connected, return 0
    *
@@ -147,38 +216,80 @@ public class Port {
     return toInt(line[CONNPORT_COLUMN_INDEX]);
   }
 
+  /**
+   * Extract connected Portid. If none connected, return 0
+   *
+   * @param line The tokenized line from Ports.csv
+   * @return The portid as int
+   */
+  public static int extractConnPortid(CsvLine line) {
+    return line.getInt(CONNPORT_COLUMN_INDEX);
+  }
+
   public static String extractName(String[] line) {
     return line[NAME_COLUMN_INDEX];
   }
 
+  public static String extractName(CsvLine line) {
+    return line.getString(NAME_COLUMN_INDEX);
+  }
+
   public static String extractParameter(String[] line) {
     return line[PARAMETER_COLUMN_INDEX];
   }
 
+  public static String extractParameter(CsvLine line) {
+    return line.getString(PARAMETER_COLUMN_INDEX);
+  }
+
   public static int extractAlarmTypeId(String[] line) {
     return toInt(line[ALARMTYPE_ID_COLUMN_INDEX]);
   }
 
+  public static int extractAlarmTypeId(CsvLine line) {
+    return line.getInt(ALARMTYPE_ID_COLUMN_INDEX);
+  }
+
   public static String extractAbbrev(String[] line) {
     return line[ABBREV_COLUMN_INDEX];
   }
 
+  public static String extractAbbrev(CsvLine line) {
+    return line.getString(ABBREV_COLUMN_INDEX);
+  }
+
   public static float extractMinValue(String[] line) {
     return toFloat(line[MIN_COLUMN_INDEX]);
   }
 
+  public static float extractMinValue(CsvLine line) {
+    return line.getFloat(MIN_COLUMN_INDEX);
+  }
+
   public static float extractMaxValue(String[] line) {
     return toFloat(line[MAX_COLUMN_INDEX]);
   }
 
+  public static float extractMaxValue(CsvLine line) {
+    return line.getFloat(MAX_COLUMN_INDEX);
+  }
+
   public static String extractEngineeringUnit(String[] line) {
     return line[ENGINEERING_UNIT_COLUMN_INDEX];
   }
 
+  public static String extractEngineeringUnit(CsvLine line) {
+    return line.getString(ENGINEERING_UNIT_COLUMN_INDEX);
+  }
+
   public static String extractUniqueName(String[] line) {
     return line[UNIQUENAME_COLUMN_INDEX];
   }
 
+  public static String extractUniqueName(CsvLine line) {
+    return line.getString(UNIQUENAME_COLUMN_INDEX);
+  }
+
 
   /**
    * Getter for a PortKey consisting of the afiId and the id (PortId)
@@ -189,6 +300,15 @@ public class Port {
     return new PortKey(afiId, id);
   }
 
+  /**
+   * Getter for the packed key of the port, see {@link PortKey#pack(int, int)}
+   *
+   * @return the afiId and the id (PortId) packed into one long
+   */
+  public long getPackedKey() {
+    return PortKey.pack(afiId, id);
+  }
+
   public Port setKey(PortKey key) {
     setAfiId(key.getAfiId());
     setId(key.getPortId());
@@ -444,16 +564,36 @@ public class Port {
     this.connPortId = connPortId;
   }
 
+  /**
+   * Getter for the linked ports
+   *
+   * @return An unmodifiable view of the linked ports, in the order they were linked
+   */
   public Set<Port> getConnectedPorts() {
     if (connectedPorts == null) {
       return Collections.emptySet();
     }
-    return Collections.unmodifiableSet(connectedPorts);
+    List<Port> ports = Collections.unmodifiableList(connectedPorts);
+    return new AbstractSet<Port>() {
+      @Override
+      public Iterator<Port> iterator() {
+        return ports.iterator();
+      }
+
+      @Override
+      public int size() {
+        return ports.size();
+      }
+    };
   }
 
+  /**
+   * Getter for the output port that drives this port, kept when the ports are linked
+   *
+   * @return the first linked output port
+   */
   public Optional<Port> getConnectedOutPort() {
-    return getConnectedPorts().stream().filter(p -> p.getDirection() == PortDirection.O)
-        .findFirst();
+    return Optional.ofNullable(connectedOutPort);
   }
 
   public Port addToConnectedPorts(Port other) {
@@ -463,21 +603,38 @@ public class Port {
               + this.toString() + " Port2: " + other.toString());
       return this;
     }
-    if (connectedPorts == null) {
-      connectedPorts = new HashSet<>();
+    if (!isLinkedTo(other)) {
+      link(other);
+      other.link(this);
     }
-    if (!connectedPorts.contains(other)) {
-      connectedPorts.add(other);
-      other.addToConnectedPorts(this);
+    markConnected();
+    return this;
+  }
+
+  private boolean isLinkedTo(Port other) {
+    // both ports hold the link, so search the shorter list, usually that of the input port
+    Port shorter = linkCount() <= other.linkCount() ? this : other;
+    return shorter.connectedPorts != null
+        && shorter.connectedPorts.contains(shorter == this ? other : this);
+  }
+
+  private int linkCount() {
+    return connectedPorts == null ? 0 : connectedPorts.size();
+  }
+
+  private void link(Port other) {
+    if (connectedPorts == null) {
+      connectedPorts = new ArrayList<>(1);
     }
-    if (!connectedPorts.isEmpty()) {
-      markConnected();
+    connectedPorts.add(other);
+    if (connectedOutPort == null && other.getDirection() == PortDirection.O) {
+      connectedOutPort = other;
     }
-    return this;
+    markConnected();
   }
 
   public boolean isDangling() {
-    return !getConnectedOutPort().isPresent() && isConnected();
+    return connectedOutPort == null && isConnected();
   }
 
   public boolean isConnected() {
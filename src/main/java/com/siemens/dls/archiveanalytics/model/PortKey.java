@@ -43,6 +43,52 @@ public class PortKey {
     return portId;
   }
 
+  /**
+   * Packs the PortKey into one long, e.g. for primitive indexes
+   *
+   * @return the packed key, see {@link #pack(int, int)}
+   */
+  public long toLong() {
+    return pack(afiId, portId);
+  }
+
+  /**
+   * Packs a PortKey into one long without creating it
+   *
+   * @param afiId the afiid of the PortKey
+   * @param portId the portId of the PortKey
+   * @return the afiId in the upper and the portId in the lower 32 bits
+   */
+  public static long pack(int afiId, int portId) {
+    return (long) afiId << Integer.SIZE | portId & 0xffffffffL;
+  }
+
+  /**
+   * Unpacks a PortKey packed by {@link #pack(int, int)}
+   *
+   * @param key the packed key
+   * @return a new PortKey
+   */
+  public static PortKey fromLong(long key) {
+    return new PortKey(afiIdOf(key), portIdOf(key));
+  }
+
+  /**
+   * @param key a key packed by {@link #pack(int, int)}
+   * @return the afiId of the packed key
+   */
+  public static int afiIdOf(long key) {
+    return (int) (key >>> Integer.SIZE);
+  }
+
+  /**
+   * @param key a key packed by {@link #pack(int, int)}
+   * @return the portId of the packed key
+   */
+  public static int portIdOf(long key) {
+    return (int) key;
+  }
+
   /**
    * Checks if object is equal
    *
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Columnar, immutable sequence of {@link Trend} samples. The time, quality and value of the
+ * samples are kept in primitive arrays instead of one object per sample. Series whose values are
+ * all 0 or 1 can be compacted to a {@link BitSet}, see {@link #compactBinary()}.
+ */
+public final class TrendSeries {
+
+  private static final TrendSeries EMPTY = new TrendSeries(new int[0], new short[0],
+      new double[0], 0);
+  private static final long ZERO_BITS = Double.doubleToLongBits(0d);
+  private static final long ONE_BITS = Double.doubleToLongBits(1d);
+
+  private final int[] millis;
+  private final short[] qualities;
+  /**
+   * The values, null if the values are kept in {@link #binaryValues}
+   */
+  private final double[] values;
+  private final BitSet binaryValues;
+  private final int size;
+
+  /**
+   * Constructor for TrendSeries. The arrays are taken over, not copied, and may be longer than
+   * size.
+   *
+   * @param millis the times of the samples
+   * @param qualities the qualities of the samples
+   * @param values the values of the samples
+   * @param size the number of samples
+   */
+  public TrendSeries(int[] millis, short[] qualities, double[] values, int size) {
+    this(millis, qualities, values, null, size);
+    if (values.length < size) {
+      throw new IllegalArgumentException("Columns do not contain " + size + " samples");
+    }
+  }
+
+  private TrendSeries(int[] millis, short[] qualities, double[] values, BitSet binaryValues,
+      int size) {
+    if (size < 0 || millis.length < size || qualities.length < size) {
+      throw new IllegalArgumentException("Columns do not contain " + size + " samples");
+    }
+    this.millis = millis;
+    this.qualities = qualities;
+    this.values = values;
+    this.binaryValues = binaryValues;
+    this.size = size;
+  }
+
+  /**
+   * Provides the series without samples
+   *
+   * @return the empty series
+   */
+  public static TrendSeries empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a series from a list of {@link Trend}s
+   *
+   * @param trends the samples
+   * @return a new series with the samples of the list
+   * @throws IllegalArgumentException if a quality does not fit into a short
+   */
+  public static TrendSeries of(List<Trend> trends) {
+    int size = trends.size();
+    int[] millis = new int[size];
+    short[] qualities = new short[size];
+    double[] values = new double[size];
+    int i = 0;
+    for (Trend trend : trends) {
+      if (trend.getQuality() != (short) trend.getQuality()) {
+        throw new IllegalArgumentException("Quality out of range: " + trend);
+      }
+      millis[i] = trend.getMillis();
+      qualities[i] = (short) trend.getQuality();
+      values[i] = trend.getValue();
+      i++;
+    }
+    return new TrendSeries(millis, qualities, values, size);
+  }
+
+  /**
+   * Getter for the number of samples
+   *
+   * @return the number of samples
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the series contains no samples
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Getter for the time of a sample
+   *
+   * @param index the index of the sample
+   * @return the milliseconds when the signal occurred
+   */
+  public int getMillis(int index) {
+    checkIndex(index);
+    return millis[index];
+  }
+
+  /**
+   * Getter for the quality of a sample
+   *
+   * @param index the index of the sample
+   * @return the quality of the signal
+   */
+  public int getQuality(int index) {
+    checkIndex(index);
+    return qualities[index];
+  }
+
+  /**
+   * Getter for the value of a sample
+   *
+   * @param index the index of the sample
+   * @return the value of the signal
+   */
+  public double getValue(int index) {
+    checkIndex(index);
+    return value(index);
+  }
+
+  private double value(int index) {
+    if (values != null) {
+      return values[index];
+    }
+    return binaryValues.get(index) ? 1d : 0d;
+  }
+
+  /**
+   * Creates a {@link Trend} of a sample
+   *
+   * @param index the index of the sample
+   * @return a new Trend
+   */
+  public Trend get(int index) {
+    checkIndex(index);
+    return new Trend(millis[index], qualities[index], value(index));
+  }
+
+  /**
+   * Creates a {@link Trend} for every sample
+   *
+   * @return a new, modifiable list
+   */
+  public List<Trend> toList() {
+    List<Trend> trends = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      trends.add(new Trend(millis[i], qualities[i], value(i)));
+    }
+    return trends;
+  }
+
+  /**
+   * Provides the samples with a quality of at least the given threshold
+   *
+   * @param threshold the lowest acceptable quality
+   * @return this series if all samples are acceptable, otherwise a new series with the
+   * acceptable samples
+   */
+  public TrendSeries withQualityAtLeast(int threshold) {
+    int accepted = 0;
+    for (int i = 0; i < size; i++) {
+      if (qualities[i] >= threshold) {
+        accepted++;
+      }
+    }
+    if (accepted == size) {
+      return this;
+    }
+    int[] acceptedMillis = new int[accepted];
+    short[] acceptedQualities = new short[accepted];
+    double[] acceptedValues = values == null ? null : new double[accepted];
+    BitSet acceptedBinaryValues = values == null ? new BitSet(accepted) : null;
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      if (qualities[i] >= threshold) {
+        acceptedMillis[j] = millis[i];
+        acceptedQualities[j] = qualities[i];
+        if (values != null) {
+          acceptedValues[j] = values[i];
+        } else if (binaryValues.get(i)) {
+          acceptedBinaryValues.set(j);
+        }
+        j++;
+      }
+    }
+    return new TrendSeries(acceptedMillis, acceptedQualities, acceptedValues,
+        acceptedBinaryValues, accepted);
+  }
+
+  /**
+   * Provides a compact copy of this series with the columns trimmed to the number of samples and
+   * the values kept in a {@link BitSet} if every value is exactly 0 or 1
+   *
+   * @return the compacted series or this series if it is already compact
+   */
+  public TrendSeries compactBinary() {
+    if (values == null) {
+      return this;
+    }
+    BitSet bits = new BitSet(size);
+    for (int i = 0; i < size; i++) {
+      long valueBits = Double.doubleToLongBits(values[i]);
+      if (valueBits == ONE_BITS) {
+        bits.set(i);
+      } else if (valueBits != ZERO_BITS) {
+        return trimmed();
+      }
+    }
+    return new TrendSeries(Arrays.copyOf(millis, size), Arrays.copyOf(qualities, size), null,
+        bits, size);
+  }
+
+  /**
+   * Provides a copy of this series with the columns trimmed to the number of samples
+   *
+   * @return the trimmed series or this series if there is nothing to trim
+   */
+  public TrendSeries trimmed() {
+    if (millis.length == size && qualities.length == size
+        && (values == null || values.length == size)) {
+      return this;
+    }
+    return new TrendSeries(Arrays.copyOf(millis, size), Arrays.copyOf(qualities, size),
+        values == null ? null : Arrays.copyOf(values, size), binaryValues, size);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Checks if object is equal. Two series are equal if they contain the same samples, no matter
+   * how the values are stored.
+   *
+   * @param o the Object that has to be checked
+   * @return boolean
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    TrendSeries that = (TrendSeries) o;
+
+    if (size != that.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (millis[i] != that.millis[i] || qualities[i] != that.qualities[i]
+          || Double.compare(value(i), that.value(i)) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return hashcode
+   * @see Object::hashCode
+   */
+  @Override
+  public int hashCode() {
+    int result = size;
+    for (int i = 0; i < size; i++) {
+      long bits = Double.doubleToLongBits(value(i));
+      result = 31 * result + millis[i];
+      result = 31 * result + qualities[i];
+      result = 31 * result + (int) (bits ^ (bits >>> 32));
+    }
+    return result;
+  }
+
+  /**
+   * @return String
+   * @see Object::toString
+   */
+  @Override
+  public String toString() {
+    return "TrendSeries" + toList();
+  }
+}
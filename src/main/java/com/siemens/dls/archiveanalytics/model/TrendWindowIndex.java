@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+/**
+ * Time window queries on the ascending edge times of a {@link BinaryTrend}, see
+ * {@link BinaryTrend#getRisingEdges()} and {@link BinaryTrend#getFallingEdges()}. All queries are
+ * binary searches, i.e. O(log n).
+ */
+public final class TrendWindowIndex {
+
+  /**
+   * Position returned by {@link #lastAtOrBefore(int)} if there is no such edge
+   */
+  public static final int NOT_FOUND = -1;
+
+  private final int[] millis;
+
+  /**
+   * Constructor for TrendWindowIndex
+   *
+   * @param millis the edge times in ascending order, not copied
+   */
+  public TrendWindowIndex(int[] millis) {
+    this.millis = millis;
+  }
+
+  /**
+   * Getter for the number of edges
+   *
+   * @return the number of edges
+   */
+  public int size() {
+    return millis.length;
+  }
+
+  /**
+   * Returns true if there are no edges
+   */
+  public boolean isEmpty() {
+    return millis.length == 0;
+  }
+
+  /**
+   * Getter for the time of an edge
+   *
+   * @param position the position of the edge
+   * @return the time of the edge
+   */
+  public int get(int position) {
+    return millis[position];
+  }
+
+  /**
+   * Finds the last edge at or before the given time
+   *
+   * @param time the time in millis
+   * @return the position of the edge or {@link #NOT_FOUND}
+   */
+  public int lastAtOrBefore(int time) {
+    return firstAfter(time) - 1;
+  }
+
+  /**
+   * Finds the first edge after the given time
+   *
+   * @param time the time in millis
+   * @return the position of the edge or {@link #size()} if there is none
+   */
+  public int firstAfter(int time) {
+    int low = 0;
+    int high = millis.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (millis[mid] <= time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the position of the first edge at or after time or {@link #size()} if there is none
+   */
+  private int firstAtOrAfter(int time) {
+    int low = 0;
+    int high = millis.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (millis[mid] < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the last edge within {@code [from, to]}
+   *
+   * @param from the start of the window in millis, inclusive
+   * @param to the end of the window in millis, inclusive
+   * @return the position of the edge or {@link #NOT_FOUND}
+   */
+  public int lastInRange(int from, int to) {
+    int position = lastAtOrBefore(to);
+    return position != NOT_FOUND && millis[position] >= from ? position : NOT_FOUND;
+  }
+
+  /**
+   * Counts the edges within {@code [from, to]}
+   *
+   * @param from the start of the window in millis, inclusive
+   * @param to the end of the window in millis, inclusive
+   * @return the number of edges
+   */
+  public int countInRange(int from, int to) {
+    if (from > to) {
+      return 0;
+    }
+    return firstAfter(to) - firstAtOrAfter(from);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader for ISO-8859-1 and UTF-8 content that converts the bytes to chars by hand, without a
+ * {@link java.nio.charset.CharsetDecoder} and its intermediate buffers. ISO-8859-1 bytes are
+ * widened to chars one by one, UTF-8 is decoded with an ASCII fast path. Malformed UTF-8 is
+ * replaced by U+FFFD in the same places as {@link InputStreamReader} does.
+ */
+public final class ByteDecodingReader extends Reader {
+
+  static final int BUFFER_SIZE = 64 * 1024;
+  private static final char REPLACEMENT = '\uFFFD';
+  private static final int NO_PENDING_CHAR = -1;
+
+  private final InputStream in;
+  private final boolean utf8;
+  private final byte[] buffer;
+  private int position;
+  private int limit;
+  private boolean eof;
+  private int pendingChar = NO_PENDING_CHAR;
+
+  private ByteDecodingReader(InputStream in, boolean utf8, int bufferSize) {
+    this.in = in;
+    this.utf8 = utf8;
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * Creates a reader for content in the given charset
+   *
+   * @param in the content
+   * @param charset the charset of the content
+   * @return a {@link ByteDecodingReader} for ISO-8859-1 and UTF-8, an {@link InputStreamReader}
+   * for all other charsets
+   */
+  public static Reader of(InputStream in, Charset charset) {
+    return of(in, charset, BUFFER_SIZE);
+  }
+
+  static Reader of(InputStream in, Charset charset, int bufferSize) {
+    if (StandardCharsets.ISO_8859_1.equals(charset)) {
+      return new ByteDecodingReader(in, false, bufferSize);
+    }
+    if (StandardCharsets.UTF_8.equals(charset)) {
+      return new ByteDecodingReader(in, true, Math.max(bufferSize, 4));
+    }
+    return new InputStreamReader(in, charset);
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > cbuf.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    int count = 0;
+    if (pendingChar != NO_PENDING_CHAR) {
+      cbuf[off] = (char) pendingChar;
+      pendingChar = NO_PENDING_CHAR;
+      count = 1;
+    }
+    while (true) {
+      count = utf8 ? decodeUtf8(cbuf, off, len, count) : decodeLatin1(cbuf, off, len, count);
+      if (count > 0) {
+        return count;
+      }
+      if (eof && position == limit) {
+        return -1;
+      }
+      fill();
+    }
+  }
+
+  private int decodeLatin1(char[] cbuf, int off, int len, int count) {
+    int n = Math.min(len - count, limit - position);
+    for (int i = 0; i < n; i++) {
+      cbuf[off + count + i] = (char) (buffer[position + i] & 0xFF);
+    }
+    position += n;
+    return count + n;
+  }
+
+  private int decodeUtf8(char[] cbuf, int off, int len, int count) {
+    while (count < len && position < limit) {
+      int lead = buffer[position] & 0xFF;
+      if (lead < 0x80) {
+        cbuf[off + count++] = (char) lead;
+        position++;
+        continue;
+      }
+      int length;
+      int low = 0x80;
+      int high = 0xBF;
+      if (lead >= 0xC2 && lead <= 0xDF) {
+        length = 2;
+      } else if (lead >= 0xE0 && lead <= 0xEF) {
+        length = 3;
+        if (lead == 0xE0) {
+          low = 0xA0;
+        }
+      } else if (lead >= 0xF0 && lead <= 0xF4) {
+        length = 4;
+        if (lead == 0xF0) {
+          low = 0x90;
+        } else if (lead == 0xF4) {
+          high = 0x8F;
+        }
+      } else {
+        cbuf[off + count++] = REPLACEMENT;
+        position++;
+        continue;
+      }
+      int codePoint = lead & (0xFF >> (length + 1));
+      int valid = 1;
+      while (valid < length && position + valid < limit) {
+        int b = buffer[position + valid] & 0xFF;
+        if (b < low || b > high) {
+          break;
+        }
+        codePoint = codePoint << 6 | b & 0x3F;
+        low = 0x80;
+        high = 0xBF;
+        valid++;
+      }
+      if (valid < length) {
+        if (position + valid == limit && !eof) {
+          // the rest of the sequence has not been read yet
+          break;
+        }
+        cbuf[off + count++] = REPLACEMENT;
+        position += valid;
+        continue;
+      }
+      position += length;
+      if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+        // an encoded surrogate is replaced as a whole
+        cbuf[off + count++] = REPLACEMENT;
+      } else if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        cbuf[off + count++] = (char) codePoint;
+      } else {
+        cbuf[off + count++] = Character.highSurrogate(codePoint);
+        if (count < len) {
+          cbuf[off + count++] = Character.lowSurrogate(codePoint);
+        } else {
+          pendingChar = Character.lowSurrogate(codePoint);
+        }
+      }
+    }
+    return count;
+  }
+
+  private void fill() throws IOException {
+    int remaining = limit - position;
+    System.arraycopy(buffer, position, buffer, 0, remaining);
+    position = 0;
+    limit = remaining;
+    int read = in.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      eof = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of an S3 object. It is taken from the Content-Encoding of the object metadata or,
+ * if that is not set, from the suffix of the object key, e.g. Ports.csv.gz or Ports.csv.zst.
+ */
+public enum ContentEncoding {
+
+  IDENTITY {
+    @Override
+    public InputStream decode(InputStream in) {
+      return in;
+    }
+  },
+  GZIP(".gz", ".gzip") {
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+      return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+  },
+  ZSTD(".zst", ".zstd") {
+    @Override
+    public InputStream decode(InputStream in) throws IOException {
+      return new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+    }
+  };
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String[] suffixes;
+
+  ContentEncoding(String... suffixes) {
+    this.suffixes = suffixes;
+  }
+
+  /**
+   * Wraps a stream of compressed content into a stream that decompresses it while it is read
+   *
+   * @param in the compressed content
+   * @return the decompressed content
+   * @throws IOException if the stream header could not be read
+   */
+  public abstract InputStream decode(InputStream in) throws IOException;
+
+  /**
+   * Detects the compression of an object
+   *
+   * @param objectKey the key of the object
+   * @param metadata the metadata of the object, may be null
+   * @return the compression, {@link #IDENTITY} if it is not compressed
+   */
+  public static ContentEncoding of(String objectKey, ObjectMetadata metadata) {
+    String contentEncoding = metadata == null ? null : metadata.getContentEncoding();
+    if (contentEncoding != null) {
+      switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+        case "gzip":
+        case "x-gzip":
+          return GZIP;
+        case "zstd":
+          return ZSTD;
+        default:
+          // e.g. identity, fall back to the key
+      }
+    }
+    String key = objectKey.toLowerCase(Locale.ROOT);
+    for (ContentEncoding encoding : values()) {
+      for (String suffix : encoding.suffixes) {
+        if (key.endsWith(suffix)) {
+          return encoding;
+        }
+      }
+    }
+    return IDENTITY;
+  }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.siemens.dls.archiveanalytics.model.PortDirection;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Decodes the values of the fields of a {@link CsvLine} directly from the line buffer, without
+ * materializing the fields. The results are the same as those of the {@link String} based
+ * conversions used by the model classes. Numbers are exposed by {@link CsvLine#getInt(int)},
+ * {@link CsvLine#getFloat(int)} and {@link CsvLine#getDouble(int)}.
+ */
+public final class CsvFieldDecoder {
+
+  /**
+   * Powers of ten that are exactly representable as float
+   */
+  private static final float[] FLOAT_POWERS_OF_TEN = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+  /**
+   * Powers of ten that are exactly representable as double
+   */
+  private static final double[] DOUBLE_POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+      1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+  private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+  private static final int MANTISSA_BITS = 54;
+  private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+  private static final int EXPONENT_BIAS = 256;
+  private static final long EXPONENT_MASK = 2 * EXPONENT_BIAS - 1;
+  private static final long NEGATIVE_FLAG = 1L << 63;
+  private static final long NOT_A_PLAIN_DECIMAL = -1L;
+  /**
+   * Values that are interpreted as true by {@link #parseFlag(CsvLine, int)}, the same as for
+   * boolean fields bound by OpenCSV
+   */
+  private static final String[] FLAG_TRUE_VALUES = {"1", "true", "yes", "y", "on"};
+  /**
+   * Values that are interpreted as false by {@link #parseFlag(CsvLine, int)}
+   */
+  private static final String[] FLAG_FALSE_VALUES = {"0", "false", "no", "n", "off"};
+  private static final int TIMESTAMP_LENGTH =
+      CsvStringToLocalDateTimeConverter.DATE_TIME_FORMAT.length();
+
+  private CsvFieldDecoder() {
+    //noop
+  }
+
+  /**
+   * Converts a field to boolean like {@link CsvStringToBooleanConverter#toBoolean(String)}
+   *
+   * @param line the line
+   * @param index the column index of the field
+   * @return true if the field is exactly {@value CsvStringToBooleanConverter#CSV_TRUE}
+   */
+  public static boolean toBoolean(CsvLine line, int index) {
+    return line.length(index) == 1
+        && line.charAt(index, 0) == CsvStringToBooleanConverter.CSV_TRUE.charAt(0);
+  }
+
+  /**
+   * Converts a flag field like 0/1 to boolean, like the boolean fields bound by OpenCSV
+   *
+   * @param line the line
+   * @param index the column index of the field
+   * @return true if the field is 1, true, yes, y or on and false if it is 0, false, no, n or off,
+   * ignoring case
+   * @throws IllegalArgumentException if the field is none of these values
+   */
+  public static boolean parseFlag(CsvLine line, int index) {
+    for (String value : FLAG_TRUE_VALUES) {
+      if (equalsIgnoreCase(line, index, value)) {
+        return true;
+      }
+    }
+    for (String value : FLAG_FALSE_VALUES) {
+      if (equalsIgnoreCase(line, index, value)) {
+        return false;
+      }
+    }
+    throw new IllegalArgumentException("No flag: " + line.getString(index));
+  }
+
+  private static boolean equalsIgnoreCase(CsvLine line, int index, String value) {
+    int length = line.length(index);
+    if (length != value.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (Character.toLowerCase(line.charAt(index, i)) != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Converts a timestamp field to {@link LocalDateTime} like
+   * {@link CsvStringToLocalDateTimeConverter}, but without a {@link java.time.format.DateTimeFormatter}
+   * for well-formed values. The field must have the format
+   * {@value CsvStringToLocalDateTimeConverter#DATE_TIME_FORMAT}.
+   *
+   * @param line the line
+   * @param index the column index of the field
+   * @return the timestamp
+   * @throws DateTimeParseException if the field is not a valid timestamp
+   */
+  public static LocalDateTime toLocalDateTime(CsvLine line, int index) {
+    return toLocalDateTime(line.buffer(), line.start(index), line.end(index));
+  }
+
+  /**
+   * Converts a field to {@link PortDirection} like {@link PortDirection#valueOf(String)}
+   *
+   * @param line the line
+   * @param index the column index of the field
+   * @return the direction
+   * @throws IllegalArgumentException if the field is neither I nor O
+   */
+  public static PortDirection toPortDirection(CsvLine line, int index) {
+    if (line.length(index) == 1) {
+      char c = line.charAt(index, 0);
+      if (c == 'I') {
+        return PortDirection.I;
+      } else if (c == 'O') {
+        return PortDirection.O;
+      }
+    }
+    throw new IllegalArgumentException(
+        "No enum constant " + PortDirection.class.getCanonicalName() + "." + line.getString(index));
+  }
+
+  /**
+   * Converts the characters {@code [start, end)} to int like {@link NumberUtils#toInt(String)}
+   */
+  static int toInt(char[] chars, int start, int end) {
+    int pos = start;
+    if (pos == end) {
+      return 0;
+    }
+    boolean negative = false;
+    char first = chars[pos];
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      if (++pos == end) {
+        return 0;
+      }
+    }
+    // accumulate negatively to be able to represent Integer.MIN_VALUE
+    long result = 0;
+    for (; pos < end; pos++) {
+      int digit = chars[pos] - '0';
+      if (digit < 0 || digit > 9) {
+        return 0;
+      }
+      result = result * 10 - digit;
+      if (result < Integer.MIN_VALUE) {
+        return 0;
+      }
+    }
+    if (!negative && result == Integer.MIN_VALUE) {
+      return 0;
+    }
+    return (int) (negative ? result : -result);
+  }
+
+  /**
+   * Converts the characters {@code [start, end)} to int like {@link Integer#parseInt(String)}
+   *
+   * @throws NumberFormatException if the characters are no valid int
+   */
+  static int parseInt(char[] chars, int start, int end) {
+    int pos = start;
+    boolean negative = false;
+    if (pos < end && (chars[pos] == '-' || chars[pos] == '+')) {
+      negative = chars[pos] == '-';
+      pos++;
+    }
+    long result = 0;
+    boolean plain = pos < end;
+    for (; plain && pos < end; pos++) {
+      int digit = chars[pos] - '0';
+      result = result * 10 - digit;
+      plain = digit >= 0 && digit <= 9 && result >= Integer.MIN_VALUE;
+    }
+    if (!plain || !negative && result == Integer.MIN_VALUE) {
+      // let Integer reject it, or accept the non ASCII digits it knows about
+      return Integer.parseInt(new String(chars, start, end - start));
+    }
+    return (int) (negative ? result : -result);
+  }
+
+  /**
+   * Converts the characters {@code [start, end)} to {@link LocalDateTime}. The fixed positions of
+   * the pattern are read directly. Anything that is not a plain, valid timestamp is left to the
+   * formatter, which resolves or rejects it the same way it always did.
+   */
+  static LocalDateTime toLocalDateTime(char[] chars, int start, int end) {
+    if (end - start == TIMESTAMP_LENGTH
+        && chars[start + 4] == '.' && chars[start + 7] == '.' && chars[start + 10] == ' '
+        && chars[start + 13] == ':' && chars[start + 16] == ':' && chars[start + 19] == '.') {
+      int year = digits(chars, start, 4);
+      int month = digits(chars, start + 5, 2);
+      int day = digits(chars, start + 8, 2);
+      int hour = digits(chars, start + 11, 2);
+      int minute = digits(chars, start + 14, 2);
+      int second = digits(chars, start + 17, 2);
+      int millis = digits(chars, start + 20, 3);
+      if (year >= 1 && month >= 1 && month <= 12
+          && day >= 1 && day <= Month.of(month).length(Year.isLeap(year))
+          && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59
+          && second >= 0 && second <= 59 && millis >= 0) {
+        return LocalDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000);
+      }
+    }
+    return LocalDateTime.parse(new String(chars, start, end - start),
+        CsvStringToLocalDateTimeConverter.DATE_TIME_FORMATTER);
+  }
+
+  /**
+   * Reads a fixed number of decimal digits
+   *
+   * @return the value or -1 if one of the characters is not a digit
+   */
+  private static int digits(char[] chars, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      int digit = chars[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  /**
+   * Converts the characters {@code [start, end)} to float like {@link NumberUtils#toFloat(String)}.
+   * Plain decimal numbers with a mantissa of at most 24 bits and a small exponent are computed
+   * with a single, correctly rounded float operation. Everything else falls back to
+   * {@link Float#parseFloat(String)}.
+   */
+  static float toFloat(char[] chars, int start, int end) {
+    if (start == end) {
+      return 0f;
+    }
+    long decimal = scanDecimal(chars, start, end, MAX_EXACT_FLOAT_MANTISSA);
+    if (decimal == NOT_A_PLAIN_DECIMAL) {
+      return NumberUtils.toFloat(new String(chars, start, end - start));
+    }
+    int exponent = exponent(decimal);
+    float value;
+    if (exponent == 0) {
+      value = mantissa(decimal);
+    } else if (exponent > 0 && exponent < FLOAT_POWERS_OF_TEN.length) {
+      value = (float) mantissa(decimal) * FLOAT_POWERS_OF_TEN[exponent];
+    } else if (exponent < 0 && -exponent < FLOAT_POWERS_OF_TEN.length) {
+      value = (float) mantissa(decimal) / FLOAT_POWERS_OF_TEN[-exponent];
+    } else {
+      return NumberUtils.toFloat(new String(chars, start, end - start));
+    }
+    return isNegative(decimal) ? -value : value;
+  }
+
+  /**
+   * Converts the characters {@code [start, end)} to double like
+   * {@link NumberUtils#toDouble(String)}. Plain decimal numbers with a mantissa of at most 53 bits
+   * and a small exponent are computed with a single, correctly rounded double operation.
+   * Everything else falls back to {@link Double#parseDouble(String)}.
+   */
+  static double toDouble(char[] chars, int start, int end) {
+    if (start == end) {
+      return 0d;
+    }
+    double value = exactDouble(chars, start, end);
+    return Double.isNaN(value) ? NumberUtils.toDouble(new String(chars, start, end - start)) : value;
+  }
+
+  /**
+   * Converts the characters {@code [start, end)} to double like
+   * {@link Double#parseDouble(String)}, with the same fast path as
+   * {@link #toDouble(char[], int, int)}
+   *
+   * @throws NumberFormatException if the characters are no valid double
+   */
+  static double parseDouble(char[] chars, int start, int end) {
+    double value = start == end ? Double.NaN : exactDouble(chars, start, end);
+    return Double.isNaN(value) ? Double.parseDouble(new String(chars, start, end - start)) : value;
+  }
+
+  /**
+   * Computes a plain decimal number with a single, correctly rounded double operation
+   *
+   * @return the value or NaN if the characters need to be parsed by {@link Double}
+   */
+  private static double exactDouble(char[] chars, int start, int end) {
+    long decimal = scanDecimal(chars, start, end, MAX_EXACT_DOUBLE_MANTISSA);
+    if (decimal == NOT_A_PLAIN_DECIMAL) {
+      return Double.NaN;
+    }
+    int exponent = exponent(decimal);
+    double value;
+    if (exponent == 0) {
+      value = mantissa(decimal);
+    } else if (exponent > 0 && exponent < DOUBLE_POWERS_OF_TEN.length) {
+      value = (double) mantissa(decimal) * DOUBLE_POWERS_OF_TEN[exponent];
+    } else if (exponent < 0 && -exponent < DOUBLE_POWERS_OF_TEN.length) {
+      value = (double) mantissa(decimal) / DOUBLE_POWERS_OF_TEN[-exponent];
+    } else {
+      return Double.NaN;
+    }
+    return isNegative(decimal) ? -value : value;
+  }
+
+  /**
+   * Scans a plain decimal number, i.e. an optional sign, digits with an optional decimal point
+   * and an optional exponent of at most two digits. To stay allocation free the result is packed
+   * into a long: the mantissa in the low 54 bits, the decimal exponent (biased by
+   * {@link #EXPONENT_BIAS}) in the next 9 bits and the sign in the highest bit.
+   *
+   * @param maxMantissa the largest mantissa that can be represented exactly by the target type
+   * @return the packed number or {@link #NOT_A_PLAIN_DECIMAL} if the characters are no plain
+   * decimal number or the mantissa exceeds maxMantissa
+   */
+  private static long scanDecimal(char[] chars, int start, int end, long maxMantissa) {
+    int pos = start;
+    boolean negative = false;
+    if (chars[pos] == '-' || chars[pos] == '+') {
+      negative = chars[pos] == '-';
+      pos++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean dot = false;
+    for (; pos < end; pos++) {
+      char c = chars[pos];
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+        if (dot) {
+          exponent--;
+        }
+        if (mantissa > maxMantissa) {
+          return NOT_A_PLAIN_DECIMAL;
+        }
+      } else if (c == '.' && !dot) {
+        dot = true;
+      } else {
+        break;
+      }
+    }
+    if (digits == 0) {
+      return NOT_A_PLAIN_DECIMAL;
+    }
+    if (pos < end) {
+      if (chars[pos] != 'e' && chars[pos] != 'E') {
+        return NOT_A_PLAIN_DECIMAL;
+      }
+      pos++;
+      boolean negativeExponent = false;
+      if (pos < end && (chars[pos] == '-' || chars[pos] == '+')) {
+        negativeExponent = chars[pos] == '-';
+        pos++;
+      }
+      if (pos == end || end - pos > 2) {
+        return NOT_A_PLAIN_DECIMAL;
+      }
+      int value = 0;
+      for (; pos < end; pos++) {
+        int digit = chars[pos] - '0';
+        if (digit < 0 || digit > 9) {
+          return NOT_A_PLAIN_DECIMAL;
+        }
+        value = value * 10 + digit;
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+    if (exponent <= -EXPONENT_BIAS || exponent >= EXPONENT_BIAS) {
+      return NOT_A_PLAIN_DECIMAL;
+    }
+    return mantissa | (long) (exponent + EXPONENT_BIAS) << MANTISSA_BITS
+        | (negative ? NEGATIVE_FLAG : 0L);
+  }
+
+  private static long mantissa(long decimal) {
+    return decimal & MANTISSA_MASK;
+  }
+
+  private static int exponent(long decimal) {
+    return (int) (decimal >>> MANTISSA_BITS & EXPONENT_MASK) - EXPONENT_BIAS;
+  }
+
+  private static boolean isNegative(long decimal) {
+    return (decimal & NEGATIVE_FLAG) != 0;
+  }
+}
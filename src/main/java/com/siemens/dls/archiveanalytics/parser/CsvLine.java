@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.util.Arrays;
+
+/**
+ * A single line of a CSV file as seen by {@link CsvTokenizer}. The line does not own its
+ * characters, it only records the offsets of its fields within the tokenizer's buffer, so no
+ * {@link String} is created unless a field is explicitly materialized. Fields are tokenized
+ * lazily: only the fields up to the highest accessed column are searched for, the rest of the
+ * line is not looked at unless it is needed.
+ * <p>
+ * An instance is reused by the tokenizer and is only valid until the tokenizer advances to the
+ * next line. Fields are counted the same way {@link String#split(String)} counts them, i.e.
+ * trailing empty fields are not part of the line.
+ */
+public final class CsvLine {
+
+  private static final int INITIAL_FIELD_CAPACITY = 32;
+  private static final int UNRESTRICTED = Integer.MAX_VALUE;
+
+  private final char separator;
+  private char[] buffer;
+  private int lineStart;
+  private int lineEnd;
+  private int[] fieldStarts = new int[INITIAL_FIELD_CAPACITY];
+  private int[] fieldEnds = new int[INITIAL_FIELD_CAPACITY];
+  private int tokenized;
+  private int nextFieldStart;
+  private int size;
+  private int maxAccessibleColumn = UNRESTRICTED;
+  private String[] materialized;
+
+  /**
+   * Constructor for CsvLine
+   *
+   * @param separator by which the fields of the line are separated
+   */
+  CsvLine(char separator) {
+    this.separator = separator;
+  }
+
+  /**
+   * Creates a line that consists of exactly the given fields, e.g. to feed a
+   * {@link CsvLineFilter} from something else than a {@link CsvTokenizer}
+   *
+   * @param fields the fields of the line, null is treated as empty field
+   * @return A new line
+   */
+  public static CsvLine of(String... fields) {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) {
+        content.append(DlsCsvParser.SEPARATOR);
+      }
+      if (fields[i] != null) {
+        content.append(fields[i]);
+      }
+    }
+    char[] chars = content.toString().toCharArray();
+    CsvLine line = new CsvLine(DlsCsvParser.SEPARATOR);
+    line.reset(chars, 0, chars.length);
+    line.tokenizeUpTo(Integer.MAX_VALUE);
+    line.size = fields.length;
+    return line;
+  }
+
+  /**
+   * Points this line to the characters {@code [start, end)} of the given buffer. The line
+   * terminator must not be part of the range. No field is searched for yet.
+   */
+  void reset(char[] buffer, int start, int end) {
+    this.buffer = buffer;
+    this.lineStart = start;
+    this.lineEnd = end;
+    this.materialized = null;
+    tokenized = 0;
+    nextFieldStart = start;
+    size = -1;
+  }
+
+  /**
+   * Restricts access to the fields up to the given column, see {@link ProjectedFilter}
+   *
+   * @param maxColumn the highest column that may be accessed, {@link Integer#MAX_VALUE} to lift
+   * the restriction
+   * @return the previous restriction
+   */
+  int restrict(int maxColumn) {
+    int previous = maxAccessibleColumn;
+    maxAccessibleColumn = maxColumn;
+    return previous;
+  }
+
+  /**
+   * Searches for the next field
+   *
+   * @return false if the end of the line has already been reached
+   */
+  private boolean tokenizeNext() {
+    if (nextFieldStart < 0) {
+      return false;
+    }
+    int i = nextFieldStart;
+    while (i < lineEnd && buffer[i] != separator) {
+      i++;
+    }
+    addField(nextFieldStart, i);
+    nextFieldStart = i < lineEnd ? i + 1 : -1;
+    return true;
+  }
+
+  private void tokenizeUpTo(int index) {
+    while (tokenized <= index && tokenizeNext()) {
+      // noop
+    }
+  }
+
+  private void addField(int start, int end) {
+    if (tokenized == fieldStarts.length) {
+      fieldStarts = Arrays.copyOf(fieldStarts, tokenized * 2);
+      fieldEnds = Arrays.copyOf(fieldEnds, tokenized * 2);
+    }
+    fieldStarts[tokenized] = start;
+    fieldEnds[tokenized] = end;
+    tokenized++;
+  }
+
+  /**
+   * Getter for the number of fields of this line. Tokenizes the complete line, filters that only
+   * need to know if a certain column is present should use {@link #hasColumn(int)}.
+   *
+   * @return the number of fields, trailing empty fields excluded
+   */
+  public int size() {
+    if (maxAccessibleColumn != UNRESTRICTED) {
+      throw new IllegalStateException(
+          "The size of a line is not known to a projected filter, use hasColumn instead");
+    }
+    if (size < 0) {
+      tokenizeUpTo(Integer.MAX_VALUE);
+      int count = tokenized;
+      if (lineEnd > lineStart) {
+        // same as String.split: drop trailing empty fields, but keep a single empty field for
+        // an empty line
+        while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+          count--;
+        }
+      }
+      size = count;
+    }
+    return size;
+  }
+
+  /**
+   * Checks if the line has a field at the given column, i.e. if {@code index < size()}, without
+   * tokenizing the fields behind that column
+   *
+   * @param index the column index
+   * @return true if the field exists
+   */
+  public boolean hasColumn(int index) {
+    checkProjection(index);
+    if (index < 0) {
+      return false;
+    }
+    if (size >= 0) {
+      return index < size;
+    }
+    tokenizeUpTo(index);
+    if (index >= tokenized) {
+      return false;
+    }
+    if (fieldEnds[index] > fieldStarts[index]) {
+      return true;
+    }
+    if (lineEnd == lineStart) {
+      return index == 0;
+    }
+    // an empty field only counts if any of the following fields is not empty
+    for (int i = fieldEnds[index]; i < lineEnd; i++) {
+      if (buffer[i] != separator) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Getter for the length of a field
+   *
+   * @param index the column index of the field
+   * @return the number of characters of the field
+   */
+  public int length(int index) {
+    checkIndex(index);
+    return fieldEnds[index] - fieldStarts[index];
+  }
+
+  /**
+   * Returns true if the field at the given index contains no characters
+   */
+  public boolean isEmpty(int index) {
+    return length(index) == 0;
+  }
+
+  /**
+   * Returns a single character of a field
+   *
+   * @param index the column index of the field
+   * @param position the position of the character within the field
+   * @return the character
+   */
+  public char charAt(int index, int position) {
+    checkIndex(index);
+    int offset = fieldStarts[index] + position;
+    if (position < 0 || offset >= fieldEnds[index]) {
+      throw new StringIndexOutOfBoundsException(position);
+    }
+    return buffer[offset];
+  }
+
+  /**
+   * Compares the field at the given index to a {@link CharSequence} without materializing the
+   * field
+   *
+   * @param index the column index of the field
+   * @param value the value to compare to
+   * @return true if the field consists of exactly the characters of value
+   */
+  public boolean contentEquals(int index, CharSequence value) {
+    checkIndex(index);
+    int start = fieldStarts[index];
+    int length = fieldEnds[index] - start;
+    if (value == null || value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (buffer[start + i] != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Converts a field to int without materializing it. Behaves like
+   * {@link org.apache.commons.lang3.math.NumberUtils#toInt(String)}, i.e. returns 0 for empty or
+   * malformed fields.
+   *
+   * @param index the column index of the field
+   * @return the value of the field or 0
+   */
+  public int getInt(int index) {
+    checkIndex(index);
+    return CsvFieldDecoder.toInt(buffer, fieldStarts[index], fieldEnds[index]);
+  }
+
+  /**
+   * Converts a field to float without materializing it. Behaves like
+   * {@link org.apache.commons.lang3.math.NumberUtils#toFloat(String)}, i.e. returns 0 for empty
+   * or malformed fields.
+   *
+   * @param index the column index of the field
+   * @return the value of the field or 0
+   */
+  public float getFloat(int index) {
+    checkIndex(index);
+    return CsvFieldDecoder.toFloat(buffer, fieldStarts[index], fieldEnds[index]);
+  }
+
+  /**
+   * Converts a field to double without materializing it. Behaves like
+   * {@link org.apache.commons.lang3.math.NumberUtils#toDouble(String)}, i.e. returns 0 for empty
+   * or malformed fields.
+   *
+   * @param index the column index of the field
+   * @return the value of the field or 0
+   */
+  public double getDouble(int index) {
+    checkIndex(index);
+    return CsvFieldDecoder.toDouble(buffer, fieldStarts[index], fieldEnds[index]);
+  }
+
+  /**
+   * Provides a view on a field. The view does not copy the characters of the field and becomes
+   * invalid as soon as the tokenizer advances.
+   *
+   * @param index the column index of the field
+   * @return A {@link CharSequence} backed by the line buffer
+   */
+  public CharSequence get(int index) {
+    checkIndex(index);
+    return new FieldView(fieldStarts[index], fieldEnds[index]);
+  }
+
+  /**
+   * Materializes a field as {@link String}
+   *
+   * @param index the column index of the field
+   * @return A new {@link String} with the content of the field
+   */
+  public String getString(int index) {
+    checkIndex(index);
+    if (materialized != null) {
+      return materialized[index];
+    }
+    return new String(buffer, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+  }
+
+  /**
+   * Materializes all fields of this line. The result is equal to what
+   * {@link String#split(String)} returns for the line and is cached until the line is reset.
+   *
+   * @return The fields of this line as array
+   */
+  public String[] toArray() {
+    if (materialized == null) {
+      int count = size();
+      String[] fields = new String[count];
+      for (int i = 0; i < count; i++) {
+        fields[i] = new String(buffer, fieldStarts[i], fieldEnds[i] - fieldStarts[i]);
+      }
+      materialized = fields;
+    }
+    return materialized;
+  }
+
+  char[] buffer() {
+    return buffer;
+  }
+
+  int start(int index) {
+    checkIndex(index);
+    return fieldStarts[index];
+  }
+
+  int end(int index) {
+    checkIndex(index);
+    return fieldEnds[index];
+  }
+
+  private void checkIndex(int index) {
+    if (!hasColumn(index)) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+  }
+
+  private void checkProjection(int index) {
+    if (index > maxAccessibleColumn) {
+      throw new IllegalStateException(String
+          .format("Column %d has not been declared by the projected filter", index));
+    }
+  }
+
+  /**
+   * @return String
+   * @see Object::toString
+   */
+  @Override
+  public String toString() {
+    return String.join(String.valueOf(separator), toArray());
+  }
+
+  /**
+   * {@link CharSequence} view on a range of the line buffer
+   */
+  private final class FieldView implements CharSequence {
+
+    private final char[] chars;
+    private final int start;
+    private final int end;
+
+    private FieldView(int start, int end) {
+      this.chars = buffer;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || start + index >= end) {
+        throw new StringIndexOutOfBoundsException(index);
+      }
+      return chars[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      if (from < 0 || to > length() || from > to) {
+        throw new StringIndexOutOfBoundsException(from);
+      }
+      return new String(chars, start + from, to - from);
+    }
+
+    @Override
+    public String toString() {
+      return new String(chars, start, end - start);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.opencsv.bean.CsvToBeanFilter;
+
+/**
+ * Counterpart of {@link CsvToBeanFilter} that works on a tokenized, but not materialized
+ * {@link CsvLine}
+ */
+@FunctionalInterface
+public interface CsvLineFilter {
+
+  /**
+   * Decides whether a line shall be converted to an object
+   *
+   * @param line the current line, only valid during this call
+   * @return true if the line shall be converted, false if it shall be skipped
+   */
+  boolean allowLine(CsvLine line);
+
+  /**
+   * Combines this filter with another one. The other filter is only asked for lines this filter
+   * accepts, so a cheap {@link ProjectedFilter} should come first.
+   *
+   * @param other the filter to ask second, may be null
+   * @return the combined filter
+   */
+  default CsvLineFilter and(CsvLineFilter other) {
+    return other == null ? this : line -> allowLine(line) && other.allowLine(line);
+  }
+
+  /**
+   * Adapts a {@link CsvToBeanFilter} to a {@link CsvLineFilter}. The adapted filter receives the
+   * materialized line.
+   *
+   * @param filter the filter to adapt, may be null
+   * @return the adapted filter or null if filter is null
+   */
+  static CsvLineFilter of(CsvToBeanFilter filter) {
+    return filter == null ? null : line -> filter.allowLine(line.toArray());
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator over the objects created from the lines of a {@link CsvTokenizer}. Lines are filtered
+ * before they are converted, so rejected lines never get materialized. Lines the transformer
+ * converts to null are dropped as well. The tokenizer is closed when its end has been reached.
+ *
+ * @param <T> type of the created objects
+ */
+class CsvLineIterator<T> implements Iterator<T> {
+
+  private final CsvTokenizer tokenizer;
+  private final CsvLineFilter filter;
+  private final Function<CsvLine, T> transformer;
+  private T next;
+  private boolean nextPresent;
+  private boolean finished;
+
+  /**
+   * Constructor for CsvLineIterator
+   *
+   * @param tokenizer the source of the lines
+   * @param filter decides which lines are converted, null to convert all lines
+   * @param transformer converts a line to an object, or to null to drop it
+   */
+  CsvLineIterator(CsvTokenizer tokenizer, CsvLineFilter filter,
+      Function<CsvLine, T> transformer) {
+    this.tokenizer = tokenizer;
+    this.filter = filter;
+    this.transformer = transformer;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!nextPresent && !finished) {
+      advance();
+    }
+    return nextPresent;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T result = next;
+    next = null;
+    nextPresent = false;
+    return result;
+  }
+
+  private void advance() {
+    try {
+      CsvLine line;
+      while ((line = tokenizer.next()) != null) {
+        if (filter == null || filter.allowLine(line)) {
+          next = transformer.apply(line);
+          if (next != null) {
+            nextPresent = true;
+            return;
+          }
+        }
+      }
+      finished = true;
+      tokenizer.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Scan of a CSV file that is shared by several consumers, so the file is read and tokenized once
+ * for all of them. Consumers subscribe with a filter and a transformer before the scan is run;
+ * every line is offered to every consumer. The filters and transformers of all consumers run on
+ * the executor of a {@link ParallelRangeS3Reader} and must be thread-safe for it.
+ * <p>
+ * A consumer whose filter depends on the results of other consumers is deferred: during the scan
+ * it only keeps the lines accepted by a preliminary filter, projected to the columns it needs, in
+ * a temporary file. Once the results it depends on are known, the deferred consumer is run over
+ * that file instead of the original one. The temporary files are deleted when the scan is closed.
+ * If a temporary file cannot be written, only its deferred consumer fails, see
+ * {@link Deferred#select(CsvLineFilter, Function)}; the other consumers get their results.
+ */
+public class CsvScan implements Closeable {
+
+  private final S3Reader s3Reader;
+  private final DlsCsvParser parser;
+  private final Path tempDirectory;
+  private final List<Subscription<?>> subscriptions = new ArrayList<>();
+  private final List<Deferred> deferred = new ArrayList<>();
+  private boolean scanned;
+
+  /**
+   * Constructor for CsvScan
+   *
+   * @param s3Reader The reader of the CSV file
+   * @param parser the parser that tokenizes the file
+   */
+  public CsvScan(S3Reader s3Reader, DlsCsvParser parser) {
+    this(s3Reader, parser, null);
+  }
+
+  /**
+   * Constructor for CsvScan that keeps the lines of deferred consumers in a given directory
+   *
+   * @param s3Reader The reader of the CSV file
+   * @param parser the parser that tokenizes the file
+   * @param tempDirectory the directory of the temporary files, null for the default one
+   */
+  public CsvScan(S3Reader s3Reader, DlsCsvParser parser, Path tempDirectory) {
+    this.s3Reader = s3Reader;
+    this.parser = parser;
+    this.tempDirectory = tempDirectory;
+  }
+
+  /**
+   * Subscribes a consumer to the scan
+   *
+   * @param filter decides which lines are converted, null to convert all lines
+   * @param transformer converts an accepted line to an object, must not return null
+   * @return provides the converted objects once the scan has been run
+   */
+  public <T> Supplier<List<T>> subscribe(CsvLineFilter filter, Function<CsvLine, T> transformer) {
+    checkNotScanned();
+    Subscription<T> subscription = new Subscription<>(filter, transformer, null);
+    subscriptions.add(subscription);
+    return () -> {
+      if (!scanned) {
+        throw new IllegalStateException("The file has not been scanned yet");
+      }
+      return subscription.results;
+    };
+  }
+
+  /**
+   * Subscribes a deferred consumer to the scan
+   *
+   * @param filter a preliminary filter that accepts at least all lines the consumer will accept,
+   * null to keep all lines
+   * @param columns the columns the final filter and transformer of the consumer access. All other
+   * columns are empty in the kept lines.
+   * @return the kept lines, to be filtered and converted after the scan has been run
+   */
+  public Deferred defer(CsvLineFilter filter, int... columns) {
+    checkNotScanned();
+    Deferred consumer = new Deferred(Arrays.stream(columns).distinct().sorted().toArray());
+    deferred.add(consumer);
+    subscriptions.add(new Subscription<>(filter, consumer::project, consumer));
+    return consumer;
+  }
+
+  /**
+   * Reads and tokenizes the file once, offering every line to all consumers
+   *
+   * @throws IOException if the file could not be read
+   */
+  public void run() throws IOException {
+    checkNotScanned();
+    scanned = true;
+    for (Deferred consumer : deferred) {
+      consumer.open();
+    }
+    try {
+      // the filters run in transform, once per line, so the lines are not filtered beforehand
+      Iterator<Object[]> matches = parser.projectedIterator(s3Reader, null, this::transform);
+      while (matches.hasNext()) {
+        Object[] match = matches.next();
+        for (int i = 0; i < match.length; i++) {
+          if (match[i] != null) {
+            subscriptions.get(i).add(match[i]);
+          }
+        }
+      }
+    } finally {
+      for (Deferred consumer : deferred) {
+        consumer.finish();
+      }
+    }
+  }
+
+  /**
+   * @return the converted object for every consumer that accepts the line, null for the others,
+   * or null to drop the line if no consumer accepts it
+   */
+  private Object[] transform(CsvLine line) {
+    Object[] match = null;
+    for (int i = 0; i < subscriptions.size(); i++) {
+      Subscription<?> subscription = subscriptions.get(i);
+      if (subscription.accepts(line)) {
+        if (match == null) {
+          match = new Object[subscriptions.size()];
+        }
+        match[i] = subscription.transformer.apply(line);
+      }
+    }
+    return match;
+  }
+
+  private void checkNotScanned() {
+    if (scanned) {
+      throw new IllegalStateException("The file has already been scanned");
+    }
+  }
+
+  /**
+   * Deletes the temporary files of the deferred consumers
+   */
+  @Override
+  public void close() throws IOException {
+    for (Deferred consumer : deferred) {
+      consumer.close();
+    }
+  }
+
+  /**
+   * A consumer of a {@link CsvScan}, collects its objects in memory or passes the projected lines
+   * of a deferred consumer on to its temporary file
+   */
+  private static class Subscription<T> {
+
+    private final CsvLineFilter filter;
+    private final Function<CsvLine, T> transformer;
+    private final Deferred deferred;
+    private final List<T> results = new ArrayList<>();
+
+    private Subscription(CsvLineFilter filter, Function<CsvLine, T> transformer,
+        Deferred deferred) {
+      this.filter = filter;
+      this.transformer = transformer;
+      this.deferred = deferred;
+    }
+
+    private boolean accepts(CsvLine line) {
+      return filter == null || filter.allowLine(line);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(Object result) {
+      if (deferred != null) {
+        deferred.add((String) result);
+      } else {
+        results.add((T) result);
+      }
+    }
+  }
+
+  /**
+   * A deferred consumer of a {@link CsvScan}. The kept lines have the same column indexes as the
+   * original ones, so the same filters and transformers work on both.
+   */
+  public class Deferred implements Closeable {
+
+    private static final char FILLER = '-';
+
+    private final int[] columns;
+    private Path file;
+    private BufferedWriter writer;
+    private IOException failure;
+
+    private Deferred(int[] columns) {
+      this.columns = columns;
+    }
+
+    /**
+     * Filters and converts the kept lines
+     *
+     * @param filter decides which lines are converted, null to convert all lines, must only access
+     * the declared columns
+     * @param transformer converts an accepted line to an object, must only access the declared
+     * columns
+     * @return the converted objects in the order in which the lines were kept
+     * @throws IOException if the kept lines could not be written or read
+     */
+    public <T> List<T> select(CsvLineFilter filter, Function<CsvLine, T> transformer)
+        throws IOException {
+      if (!scanned) {
+        throw new IllegalStateException("The file has not been scanned yet");
+      }
+      if (failure != null) {
+        throw new IOException("Could not keep the lines of a deferred consumer", failure);
+      }
+      List<T> results = new ArrayList<>();
+      try (CsvTokenizer tokenizer = new CsvTokenizer(
+          Files.newBufferedReader(file, StandardCharsets.UTF_8), DlsCsvParser.SEPARATOR)) {
+        new CsvLineIterator<>(tokenizer, filter, transformer).forEachRemaining(results::add);
+      }
+      return results;
+    }
+
+    /**
+     * Projects a line to the declared columns. The projected line ends with the last declared
+     * column the line has, so {@link CsvLine#hasColumn(int)} is the same for all declared
+     * columns. If that column is empty, but not the last one of the line, it is followed by
+     * {@link #FILLER} in the next column, which is not declared, so it is not dropped as a
+     * trailing empty field.
+     */
+    private String project(CsvLine line) {
+      int last = columns.length - 1;
+      while (last >= 0 && !line.hasColumn(columns[last])) {
+        last--;
+      }
+      StringBuilder projected = new StringBuilder();
+      int column = 0;
+      for (int i = 0; i <= last; i++) {
+        for (; column < columns[i]; column++) {
+          projected.append(DlsCsvParser.SEPARATOR);
+        }
+        projected.append(line.getString(columns[i]));
+      }
+      if (last >= 0 && line.isEmpty(columns[last]) && line.hasColumn(columns[last] + 1)) {
+        projected.append(DlsCsvParser.SEPARATOR).append(FILLER);
+      }
+      return projected.toString();
+    }
+
+    private void open() {
+      try {
+        file = tempDirectory == null ? Files.createTempFile("scan", ".csv")
+            : Files.createTempFile(tempDirectory, "scan", ".csv");
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+
+    private void add(String line) {
+      if (failure != null) {
+        return;
+      }
+      try {
+        writer.write(line);
+        writer.newLine();
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+
+    /**
+     * Stops keeping lines after the temporary file could not be written, so the scan goes on
+     * for the other consumers
+     */
+    private void fail(IOException e) {
+      failure = e;
+      try {
+        close();
+      } catch (IOException closeFailure) {
+        e.addSuppressed(closeFailure);
+      }
+    }
+
+    private void finish() {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          failure = failure == null ? e : failure;
+        }
+        writer = null;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      finish();
+      if (file != null) {
+        Files.deleteIfExists(file);
+        file = null;
+      }
+    }
+  }
+}
@@ -17,8 +17,8 @@ import java.time.format.DateTimeParseException;
  */
 public class CsvStringToLocalDateTimeConverter extends AbstractBeanField<Boolean> {
 
-  private static final String DATE_TIME_FORMAT = "yyyy.MM.dd HH:mm:ss.SSS";
-  private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(
+  static final String DATE_TIME_FORMAT = "yyyy.MM.dd HH:mm:ss.SSS";
+  static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(
       DATE_TIME_FORMAT);
 
   /**
@@ -6,16 +6,12 @@
 
 package com.siemens.dls.archiveanalytics.parser;
 
-import static com.siemens.dls.archiveanalytics.parser.WrappedException.wrapException;
-
 import com.opencsv.bean.AbstractBeanField;
 import com.opencsv.exceptions.CsvConstraintViolationException;
 import com.opencsv.exceptions.CsvDataTypeMismatchException;
 import com.siemens.dls.archiveanalytics.model.PortDirection;
 import com.siemens.dls.archiveanalytics.model.Trend;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Class for converting a String to a TrendList
@@ -38,32 +34,16 @@ public class CsvStringToTrendListConverter extends AbstractBeanField<PortDirecti
     return stringToTrendList(value);
   }
 
-  public static List<Trend> stringToTrendList(String value) throws CsvDataTypeMismatchException {
-    try {
-      return Arrays.stream(value.split("\\|"))
-          .filter(s -> s.length() > 0)
-          .map(s -> wrapException(() -> stringToTrend(s)))
-          .collect(Collectors.toList());
-    } catch (WrappedException e) {
-      if (e.getCause() instanceof CsvDataTypeMismatchException) {
-        throw (CsvDataTypeMismatchException) e.getCause();
-      } else {
-        throw e;
-      }
-    }
-  }
-
   /**
-   * Splits a String and creates {@link Trend} out of it
+   * Converts a trend String to a list of {@link Trend}s, see {@link TrendStringDecoder}
+   *
+   * @param value String that should be split in Trends
+   * @return all Trends of the given String
+   * @throws CsvDataTypeMismatchException if a Trend has less than 3 values or a value is not a
+   * number
    */
-  private static Trend stringToTrend(String s) throws CsvDataTypeMismatchException {
-    String[] parts = s.split(",");
-    try {
-      return new Trend(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
-          Double.parseDouble(parts[2]));
-    } catch (NumberFormatException e) {
-      throw new CsvDataTypeMismatchException("Cannot convert string " + s + " to Trend");
-    }
+  public static List<Trend> stringToTrendList(String value) throws CsvDataTypeMismatchException {
+    return TrendStringDecoder.decode(value).toList();
   }
 
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits CSV content into lines and fields without creating a {@link String} per line or per
+ * field. The content is read into a reusable buffer and every line is exposed as a
+ * {@link CsvLine}, which only knows the offsets of its fields within that buffer. The tokenizer
+ * does not know about quoting, it only looks for separators and line feeds.
+ */
+public class CsvTokenizer implements Closeable {
+
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final Reader reader;
+  private final CsvLine line;
+  private char[] buffer;
+  private int position;
+  private int scanPosition;
+  private int limit;
+  private boolean eof;
+
+  /**
+   * Constructor for CsvTokenizer
+   *
+   * @param reader the source of the CSV content
+   * @param separator by which the fields of a line are separated
+   */
+  public CsvTokenizer(Reader reader, char separator) {
+    this(reader, separator, DEFAULT_BUFFER_SIZE);
+  }
+
+  CsvTokenizer(Reader reader, char separator, int initialBufferSize) {
+    this.reader = reader;
+    this.line = new CsvLine(separator);
+    this.buffer = new char[Math.max(initialBufferSize, 16)];
+  }
+
+  /**
+   * Advances to the next line. The returned {@link CsvLine} is reused and only valid until the
+   * next call of this method.
+   *
+   * @return the next line or null if the end of the content has been reached
+   * @throws IOException if the content could not be read
+   */
+  public CsvLine next() throws IOException {
+    while (true) {
+      for (int i = scanPosition; i < limit; i++) {
+        if (buffer[i] == '\n') {
+          setLine(position, i);
+          position = i + 1;
+          scanPosition = position;
+          return line;
+        }
+      }
+      scanPosition = limit;
+      if (eof) {
+        if (position < limit) {
+          // last line without terminating line feed
+          setLine(position, limit);
+          position = limit;
+          return line;
+        }
+        return null;
+      }
+      fill();
+    }
+  }
+
+  /**
+   * Skips a number of lines, e.g. the header of a CSV file
+   *
+   * @param count the number of lines to skip
+   * @throws IOException if the content could not be read
+   */
+  public void skipLines(int count) throws IOException {
+    for (int i = 0; i < count && next() != null; i++) {
+      // noop
+    }
+  }
+
+  private void setLine(int start, int end) {
+    if (end > start && buffer[end - 1] == '\r') {
+      end--;
+    }
+    line.reset(buffer, start, end);
+  }
+
+  /**
+   * Moves the unconsumed characters to the beginning of the buffer, grows the buffer if a single
+   * line does not fit into it, and reads more content.
+   */
+  private void fill() throws IOException {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      scanPosition -= position;
+      position = 0;
+    }
+    if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    int read = reader.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      eof = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  /**
+   * Closes the underlying reader
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import org.apache.log4j.Logger;
+
+/**
+ * {@link EngineeringDataCache} that keeps the decompressed objects as files in a local directory,
+ * e.g. below /tmp of a Lambda container. The ETag of an object is part of its file name. Every
+ * read sends a GET that only returns content if the ETag has changed; otherwise the file is read
+ * through a memory mapping. If an object cannot be stored, e.g. because the disk is full, it is
+ * read from S3 as if there were no cache.
+ */
+public class DiskEngineeringDataCache implements EngineeringDataCache {
+
+  private static final Logger LOG = Logger.getLogger(DiskEngineeringDataCache.class);
+  private static final BaseEncoding ETAG_ENCODING = BaseEncoding.base32Hex().omitPadding()
+      .lowerCase();
+  private static final char VERSION_SEPARATOR = '-';
+
+  private final Path directory;
+
+  /**
+   * Constructor for DiskEngineeringDataCache
+   *
+   * @param directory where the objects are stored, created on demand
+   */
+  public DiskEngineeringDataCache(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public S3Reader getReader(AmazonS3 client, String bucketName, String objectKey) {
+    return new CachedS3Reader(client, bucketName, objectKey);
+  }
+
+  @Override
+  public S3Reader getParallelReader(AmazonS3 client, String bucketName, String objectKey,
+      ExecutorService executor, int chunkSize, int readAhead) {
+    return new CachedParallelS3Reader(client, bucketName, objectKey, executor, chunkSize,
+        readAhead);
+  }
+
+  /**
+   * Opens the current content of an object, from the cache if possible
+   */
+  InputStream open(AmazonS3 client, String bucketName, String objectKey) throws IOException {
+    String name = fileName(bucketName, objectKey);
+    Path cached = findCached(name);
+    GetObjectRequest request = new GetObjectRequest(bucketName, objectKey);
+    if (cached != null) {
+      request.withNonmatchingETagConstraint(eTagOf(cached, name));
+    }
+    S3Object object = client.getObject(request);
+    if (object == null) {
+      LOG.info(String.format("Reading %s/%s from %s", bucketName, objectKey, cached));
+      try {
+        return new MappedFileInputStream(FileChannel.open(cached, StandardOpenOption.READ));
+      } catch (NoSuchFileException e) {
+        // replaced by a newer version in the meantime
+        return decode(client.getObject(bucketName, objectKey), objectKey);
+      }
+    }
+    String eTag = object.getObjectMetadata().getETag();
+    if (eTag == null) {
+      return decode(object, objectKey);
+    }
+    Path file = directory.resolve(name + VERSION_SEPARATOR + ETAG_ENCODING
+        .encode(eTag.getBytes(StandardCharsets.UTF_8)));
+    try {
+      store(object, objectKey, file);
+    } catch (IOException e) {
+      LOG.warn(String.format("Could not cache %s/%s in %s", bucketName, objectKey, file), e);
+      return decode(client.getObject(bucketName, objectKey), objectKey);
+    }
+    if (cached != null && !cached.equals(file)) {
+      Files.deleteIfExists(cached);
+    }
+    return new MappedFileInputStream(FileChannel.open(file, StandardOpenOption.READ));
+  }
+
+  private static InputStream decode(S3Object object, String objectKey) throws IOException {
+    return ContentEncoding.of(objectKey, object.getObjectMetadata())
+        .decode(object.getObjectContent());
+  }
+
+  /**
+   * Writes the decompressed object to a temporary file that replaces the target file when it is
+   * complete, so a file with the name of a version always holds the whole object
+   */
+  private void store(S3Object object, String objectKey, Path file) throws IOException {
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, ".", ".tmp");
+    try (S3Object content = object; InputStream in = decode(content, objectKey)) {
+      Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private Path findCached(String name) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return null;
+    }
+    try (DirectoryStream<Path> files = Files
+        .newDirectoryStream(directory, name + VERSION_SEPARATOR + "*")) {
+      for (Path file : files) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  private static String eTagOf(Path file, String name) {
+    String encoded = file.getFileName().toString().substring(name.length() + 1);
+    return new String(ETAG_ENCODING.decode(encoded), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return a file name that identifies the object, without its version
+   */
+  private static String fileName(String bucketName, String objectKey) {
+    return Hashing.sha256().hashString(bucketName + '/' + objectKey, StandardCharsets.UTF_8)
+        .toString();
+  }
+
+  /**
+   * Reader for an object in a {@link DiskEngineeringDataCache}
+   */
+  private class CachedS3Reader extends S3Reader {
+
+    private CachedS3Reader(AmazonS3 client, String bucketName, String objectKey) {
+      super(client, bucketName, objectKey);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return open(getClient(), getBucketName(), getObjectKey());
+    }
+  }
+
+  /**
+   * Parallel reader for an object in a {@link DiskEngineeringDataCache}. The cached file is cut
+   * into chunks of complete lines on the consumer thread, and the chunks are processed on the
+   * executor.
+   */
+  private class CachedParallelS3Reader extends ParallelRangeS3Reader {
+
+    private CachedParallelS3Reader(AmazonS3 client, String bucketName, String objectKey,
+        ExecutorService executor, int chunkSize, int readAhead) {
+      super(client, bucketName, objectKey, executor, chunkSize, readAhead);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return open(getClient(), getBucketName(), getObjectKey());
+    }
+
+    @Override
+    ChunkSource openChunkSource() {
+      try {
+        return streamChunks(getInputStream());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Reads a file through memory mappings of at most {@link #SEGMENT_SIZE} bytes, so files larger
+   * than 2 GB can be read as well
+   */
+  private static class MappedFileInputStream extends InputStream {
+
+    private static final long SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private long position;
+    private MappedByteBuffer segment;
+
+    private MappedFileInputStream(FileChannel channel) throws IOException {
+      this.channel = channel;
+      this.size = channel.size();
+    }
+
+    private boolean advance() throws IOException {
+      if (segment != null && segment.hasRemaining()) {
+        return true;
+      }
+      if (position == size) {
+        return false;
+      }
+      segment = channel.map(MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+      position += segment.capacity();
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return advance() ? segment.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!advance()) {
+        return -1;
+      }
+      int n = Math.min(len, segment.remaining());
+      segment.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -7,17 +7,7 @@
 package com.siemens.dls.archiveanalytics.parser;
 
 import static com.google.common.base.Strings.emptyToNull;
-import static org.apache.commons.collections.IteratorUtils.filteredIterator;
-import static org.apache.commons.collections.IteratorUtils.transformedIterator;
-import static org.apache.commons.lang3.math.NumberUtils.toInt;
-
-import com.opencsv.CSVIterator;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.ICSVParser;
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanFilter;
-import com.opencsv.bean.opencsvUtils;
+
 import com.siemens.dls.archiveanalytics.model.AbstractTrend;
 import com.siemens.dls.archiveanalytics.model.Alarm;
 import com.siemens.dls.archiveanalytics.model.AlarmType;
@@ -26,21 +16,50 @@ import com.siemens.dls.archiveanalytics.model.Module;
 import com.siemens.dls.archiveanalytics.model.OperatorAction;
 import com.siemens.dls.archiveanalytics.model.Port;
 import com.siemens.dls.archiveanalytics.model.PortKey;
+import com.siemens.dls.archiveanalytics.parser.ParallelRangeS3Reader.ChunkIterator;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Locale;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.function.Function;
 
 /**
  * Class that parses CSV files in a simple manner, it only checks for occurrences of ; and splits
  * the line at the found positions. It implements methods for splitting modules, ports, connections
- * and analogTrend
+ * and analogTrend. All files are tokenized by {@link CsvTokenizer} without a {@link String} per
+ * line and converted by hand-written transformers.
+ * <p>
+ * Files read by a {@link ParallelRangeS3Reader} are parsed chunk by chunk on its executor, so
+ * filters and transformers must be thread-safe for them.
  */
 public class DlsCsvParser {
 
   public static final char SEPARATOR = ';';
 
+  private final boolean preserveOrder;
+
+  /**
+   * Constructor for DlsCsvParser that keeps the order of the files
+   */
+  public DlsCsvParser() {
+    this(true);
+  }
+
+  /**
+   * Constructor for DlsCsvParser
+   *
+   * @param preserveOrder true to provide the objects of files read in parallel in file order,
+   * false to provide them in the order their chunks have been parsed
+   */
+  public DlsCsvParser(boolean preserveOrder) {
+    this.preserveOrder = preserveOrder;
+  }
+
   /**
    * Reads a Module CSV from AmazonS3 and filters it according to the filter, then returns it as an
    * iterator
@@ -49,12 +68,12 @@ public class DlsCsvParser {
    * @param filter how should the csv fle be filtered
    * @return An iterator over the filtered modules
    */
-  public Iterator<Module> loadModules(S3Reader s3Reader, CsvToBeanFilter filter)
+  public Iterator<Module> loadModules(S3Reader s3Reader, CsvLineFilter filter)
       throws IOException {
-    return objectsIterator(s3Reader, filter, DlsCsvParser::lineToModule);
+    return projectedIterator(s3Reader, filter, DlsCsvParser::lineToModule);
   }
 
-  private static Module lineToModule(String[] input){
+  private static Module lineToModule(CsvLine input){
     Module m = new Module();
     m.setId(Module.extractId(input));
     m.setAfiTypeId(Module.extractAfiType(input));
@@ -72,28 +91,81 @@ public class DlsCsvParser {
    * @param filter how should the csv fle be filtered
    * @return An iterator over the filtered ports
    */
-  public Iterator<Port> loadPorts(S3Reader s3Reader, CsvToBeanFilter filter) throws IOException{
-    return objectsIterator(s3Reader, filter, DlsCsvParser::lineToPort);
+  public Iterator<Port> loadPorts(S3Reader s3Reader, CsvLineFilter filter) throws IOException{
+    return projectedIterator(s3Reader, filter, DlsCsvParser::lineToPort);
+  }
+
+  /**
+   * Tokenizes a CSV from AmazonS3 with {@link CsvTokenizer}, skips the header, and converts all
+   * lines accepted by the filter. Lines are offered to the filter before any of their fields is
+   * materialized. A {@link ProjectedFilter} only causes the columns it has declared to be
+   * tokenized, so lines it rejects are dropped without being split and without any allocation.
+   * A {@link ParallelRangeS3Reader} is parsed in parallel, see
+   * {@link #chunkedIterator(ParallelRangeS3Reader, CsvLineFilter, Function)}.
+   *
+   * @param s3Reader The reader of the CSV file
+   * @param filter how should the csv file be filtered, null to accept all lines
+   * @param transformer converts an accepted line to an object, or to null to drop it
+   * @return An iterator over the converted objects
+   */
+  <T> Iterator<T> projectedIterator(S3Reader s3Reader, CsvLineFilter filter,
+      Function<CsvLine, T> transformer) throws IOException {
+    if (s3Reader instanceof ParallelRangeS3Reader) {
+      return chunkedIterator((ParallelRangeS3Reader) s3Reader, filter, transformer);
+    }
+    CsvTokenizer tokenizer = new CsvTokenizer(s3Reader.getReader(), SEPARATOR);
+    tokenizer.skipLines(1);
+    return new CsvLineIterator<>(tokenizer, filter, transformer);
+  }
+
+  /**
+   * Parses the line chunks of a CSV concurrently on the executor of the reader. Every chunk is
+   * tokenized, filtered and converted on its own; the header is skipped in the first chunk. The
+   * converted objects are provided chunk by chunk, in file order if this parser preserves the
+   * order. The iterator is {@link Closeable}; closing it cancels the chunks that have not been
+   * provided yet.
+   *
+   * @param s3Reader The reader of the CSV file
+   * @param filter how should the csv file be filtered, null to accept all lines, thread-safe
+   * @param transformer converts an accepted line to an object, or to null to drop it,
+   * thread-safe
+   * @return An iterator over the converted objects
+   */
+  <T> Iterator<T> chunkedIterator(ParallelRangeS3Reader s3Reader, CsvLineFilter filter,
+      Function<CsvLine, T> transformer) {
+    ChunkIterator<List<T>> chunks = s3Reader
+        .chunks(preserveOrder, chunk -> parseChunk(chunk, s3Reader.getCharset(), filter,
+            transformer));
+    return new ChunkedObjectIterator<>(chunks);
   }
 
-  private <T> Iterator objectsIterator(S3Reader s3Reader, CsvToBeanFilter filter,
-      Function<String[], T> transformer) throws IOException {
-    CSVReader csvReader = getSimpleCsvReader(s3Reader);
-    CSVIterator iter = new CSVIterator(csvReader);
-    Iterator filteredIterator = filteredIterator(iter,
-        l -> filter == null || filter.allowLine((String[]) l));
-    return transformedIterator(filteredIterator, input -> transformer.apply((String[]) input));
+  private static <T> List<T> parseChunk(LineChunk chunk, Charset charset, CsvLineFilter filter,
+      Function<CsvLine, T> transformer) throws IOException {
+    CsvTokenizer tokenizer = new CsvTokenizer(
+        ByteDecodingReader.of(chunk.newInputStream(), charset), SEPARATOR);
+    if (chunk.getIndex() == 0) {
+      tokenizer.skipLines(1);
+    }
+    List<T> objects = new ArrayList<>();
+    new CsvLineIterator<>(tokenizer, filter, transformer).forEachRemaining(objects::add);
+    return objects;
   }
 
-  private static Port lineToPort(String[] line){
+  /**
+   * Converts a line of the Port CSV, e.g. for a consumer of a {@link CsvScan}
+   *
+   * @param line a line of the Port CSV
+   * @return A new port that is not assigned to a module yet
+   */
+  public static Port lineToPort(CsvLine line){
     Port p = new Port();
     p.setAfiId(Port.extractAfiId(line));
     p.setId(Port.extractId(line));
     p.setName(emptyToNull(Port.extractName(line)));
     p.setDirection(Port.extractDirection(line));
     p.setParameter(emptyToNull(Port.extractParameter(line)));
-    p.setArchive(CsvStringToBooleanConverter.toBoolean(Port.extractIsArchive(line)));
-    p.setAlarm(CsvStringToBooleanConverter.toBoolean(Port.extractIsAlarm(line)));
+    p.setArchive(Port.extractArchiveFlag(line));
+    p.setAlarm(Port.extractAlarmFlag(line));
     p.setAlarmTypeId(Port.extractAlarmTypeId(line));
     p.setAbbrev(Port.extractAbbrev(line));
     p.setActive(emptyToNull(Port.extractActive(line)));
@@ -115,16 +187,15 @@ public class DlsCsvParser {
    * @return the connections of all fitting PortKeys
    * @throws IOException if the file could not be read
    */
-  public Iterator<Connection> loadConnections(S3Reader s3Reader, CsvToBeanFilter filter)
+  public Iterator<Connection> loadConnections(S3Reader s3Reader, CsvLineFilter filter)
       throws IOException {
-    return objectsIterator(s3Reader, filter, DlsCsvParser::lineToConnection);
+    return projectedIterator(s3Reader, filter, DlsCsvParser::lineToConnection);
   }
 
-  private static Connection lineToConnection(String[] line) {
-    return new Connection(new PortKey(toInt(line[Connection.AFI1_COLUMN_INDEX]),
-        toInt(line[Connection.PORT1_COLUMN_INDEX])),
-        new PortKey(toInt(line[Connection.AFI2_COLUMN_INDEX]),
-            toInt(line[Connection.PORT2_COLUMN_INDEX])));
+  private static Connection lineToConnection(CsvLine line) {
+    return new Connection(
+        new PortKey(Connection.extractAfi1(line), Connection.extractPort1(line)),
+        new PortKey(Connection.extractAfi2(line), Connection.extractPort2(line)));
   }
 
   /**
@@ -133,12 +204,12 @@ public class DlsCsvParser {
    *
    * @param s3Reader The reader of the CSV file
    * @param filter how should the csv fle be filtered
-   * @param transformer
+   * @param transformer converts a tokenized line, e.g. AnalogTrend::lineToTrend
    * @return An iterator over the filtered analogTrend
    */
   public <T extends AbstractTrend<T>> Iterator<T> loadTrends(S3Reader s3Reader,
-      CsvToBeanFilter filter, Function<String[], T> transformer) throws IOException {
-    return objectsIterator(s3Reader, filter, transformer);
+      CsvLineFilter filter, Function<CsvLine, T> transformer) throws IOException {
+    return projectedIterator(s3Reader, filter, transformer);
   }
 
   /**
@@ -149,10 +220,21 @@ public class DlsCsvParser {
    * @param filter how should the csv fle be filtered
    * @return An iterator over the filtered analogTrend
    */
-  public Iterator<Alarm> loadAlarms(S3Reader s3Reader,
-      CsvToBeanFilter filter) {
-    CsvToBean<Alarm> csvParser = prepareCsvToBean(s3Reader, Alarm.class, filter);
-    return csvParser.iterator();
+  public Iterator<Alarm> loadAlarms(S3Reader s3Reader, CsvLineFilter filter) {
+    return uncheckedIterator(s3Reader, filter, DlsCsvParser::lineToAlarm);
+  }
+
+  private static Alarm lineToAlarm(CsvLine line) {
+    return new Alarm()
+        .setTime(CsvFieldDecoder.toLocalDateTime(line, Alarm.TIME_COLUMN_INDEX))
+        .setQuality(getIntOrZero(line, Alarm.QUALITY_COLUMN_INDEX))
+        .setTagname(emptyToNull(Alarm.extractTagname(line)))
+        .setAlarmTypeId(getIntOrZero(line, Alarm.ALARM_TYPE_ID_COLUMN_INDEX))
+        .setSuppressed(getFlagOrFalse(line, Alarm.SUPPRESSED_COLUMN_INDEX))
+        .setAutoSuppressed(getFlagOrFalse(line, Alarm.AUTO_SUPPRESSED_COLUMN_INDEX))
+        .setDispSuppressed(getFlagOrFalse(line, Alarm.DISP_SUPPRESSED_COLUMN_INDEX))
+        .setDuration(getIntOrZero(line, Alarm.DURATION_COLUMN_INDEX))
+        .setTimeToNext(getIntOrZero(line, Alarm.TIME_TO_NEXT_COLUMN_INDEX));
   }
 
   /**
@@ -163,8 +245,14 @@ public class DlsCsvParser {
    * @return An iterator over the filtered analogTrend
    */
   public Iterator<AlarmType> loadAlarmTypes(S3Reader s3Reader) {
-    CsvToBean<AlarmType> csvParser = prepareCsvToBean(s3Reader, AlarmType.class, null);
-    return csvParser.iterator();
+    return uncheckedIterator(s3Reader, null, DlsCsvParser::lineToAlarmType);
+  }
+
+  private static AlarmType lineToAlarmType(CsvLine line) {
+    return new AlarmType()
+        .setId(getIntOrZero(line, AlarmType.ALARMTYPE_ID_COLUMN_INDEX))
+        .setAbbrev(line.hasColumn(AlarmType.ABBREV_COLUMN_INDEX)
+            ? emptyToNull(AlarmType.extractAbbrev(line)) : null);
   }
 
   /**
@@ -175,31 +263,142 @@ public class DlsCsvParser {
    * @param filter how should the csv fle be filtered
    * @return An iterator over the filtered operAct
    */
-  public Iterator<OperatorAction> loadOperatorActions(S3Reader s3Reader,
-      CsvToBeanFilter filter) {
-    CsvToBean<OperatorAction> csvParser = prepareCsvToBean(s3Reader, OperatorAction.class, filter);
-    return csvParser.iterator();
+  public Iterator<OperatorAction> loadOperatorActions(S3Reader s3Reader, CsvLineFilter filter) {
+    return uncheckedIterator(s3Reader, filter, DlsCsvParser::lineToOperatorAction);
   }
 
+  private static OperatorAction lineToOperatorAction(CsvLine line) {
+    OperatorAction oa = new OperatorAction()
+        .setTime(CsvFieldDecoder.toLocalDateTime(line, OperatorAction.TIME_COLUMN_INDEX))
+        .setQuality(getIntOrZero(line, OperatorAction.QUALITY_COLUMN_INDEX))
+        .setValue(getDoubleOrZero(line, OperatorAction.VALUE_COLUMN_INDEX))
+        .setTagname(emptyToNull(OperatorAction.extractTagname(line)));
+    oa.setId(getIntOrZero(line, OperatorAction.CLIENT_COLUMN_INDEX));
+    oa.setAfi(getStringOrNull(line, OperatorAction.AFI_COLUMN_INDEX));
+    oa.setKind(getStringOrNull(line, OperatorAction.KIND_COLUMN_INDEX));
+    return oa;
+  }
+
+  /**
+   * Converts a field like the int fields bound by OpenCSV. The field may be missing, as trailing
+   * empty fields do not count as columns of a line.
+   *
+   * @return the value of the field, or 0 if it is empty or missing
+   * @throws WrappedException naming the line and column if the field is no int
+   */
+  private static int getIntOrZero(CsvLine line, int index) {
+    if (!line.hasColumn(index) || line.isEmpty(index)) {
+      return 0;
+    }
+    try {
+      return CsvFieldDecoder.parseInt(line.buffer(), line.start(index), line.end(index));
+    } catch (NumberFormatException e) {
+      throw malformed(line, index, e);
+    }
+  }
+
+  /**
+   * Converts a field like the double fields bound by OpenCSV, see
+   * {@link #getIntOrZero(CsvLine, int)}
+   *
+   * @return the value of the field, or 0 if it is empty or missing
+   * @throws WrappedException naming the line and column if the field is no double
+   */
+  private static double getDoubleOrZero(CsvLine line, int index) {
+    if (!line.hasColumn(index) || line.isEmpty(index)) {
+      return 0;
+    }
+    try {
+      return CsvFieldDecoder.parseDouble(line.buffer(), line.start(index), line.end(index));
+    } catch (NumberFormatException e) {
+      throw malformed(line, index, e);
+    }
+  }
+
+  /**
+   * Converts a flag field like the boolean fields bound by OpenCSV, see
+   * {@link #getIntOrZero(CsvLine, int)}
+   *
+   * @return the value of the field, or false if it is empty or missing
+   * @throws WrappedException naming the line and column if the field is no flag
+   */
+  private static boolean getFlagOrFalse(CsvLine line, int index) {
+    if (!line.hasColumn(index) || line.isEmpty(index)) {
+      return false;
+    }
+    try {
+      return CsvFieldDecoder.parseFlag(line, index);
+    } catch (IllegalArgumentException e) {
+      throw malformed(line, index, e);
+    }
+  }
 
+  private static WrappedException malformed(CsvLine line, int index, Exception cause) {
+    return new WrappedException(
+        String.format("Malformed value in column %d of line: %s", index, line), cause);
+  }
 
-  private <T> CsvToBean<T> prepareCsvToBean(S3Reader s3Reader, Class<T> clazz,
-      CsvToBeanFilter filter) {
-    CSVReader csvReader = getSimpleCsvReader(s3Reader);
-    CsvToBean<T> csvParser = new CsvToBean<>();
-    csvParser.setFilter(filter);
-    csvParser
-        .setMappingStrategy(opencsvUtils.determineMappingStrategy(clazz, Locale.getDefault()));
-    csvParser.setCsvReader(csvReader);
-    return csvParser;
+  /**
+   * Materializes a trailing field that may be missing, see {@link #getIntOrZero(CsvLine, int)}
+   *
+   * @return the field, or null if it is empty or missing
+   */
+  private static String getStringOrNull(CsvLine line, int index) {
+    return line.hasColumn(index) ? emptyToNull(line.getString(index)) : null;
   }
 
   /**
-   * Simple reader that splits every line at ;
+   * Same as {@link #projectedIterator(S3Reader, CsvLineFilter, Function)} for files whose loaders
+   * never declared an {@link IOException}, which is thrown as {@link UncheckedIOException} instead
    */
-  private CSVReader getSimpleCsvReader(S3Reader s3Reader) {
-    Reader reader = s3Reader.getReader();
-    ICSVParser parser = new SimpleSplittingCsvParser(SEPARATOR);
-    return new CSVReaderBuilder(reader).withCSVParser(parser).withSkipLines(1).build();
+  private <T> Iterator<T> uncheckedIterator(S3Reader s3Reader, CsvLineFilter filter,
+      Function<CsvLine, T> transformer) {
+    try {
+      return projectedIterator(s3Reader, filter, transformer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Provides the objects of the parsed chunks of a {@link ChunkIterator} one after another
+   *
+   * @param <T> type of the objects
+   */
+  private static final class ChunkedObjectIterator<T> implements Iterator<T>, Closeable {
+
+    private final ChunkIterator<List<T>> chunks;
+    private Iterator<T> current = Collections.emptyIterator();
+
+    private ChunkedObjectIterator(ChunkIterator<List<T>> chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext()) {
+        if (!chunks.hasNext()) {
+          return false;
+        }
+        current = chunks.next().iterator();
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+
+    /**
+     * Cancels the chunks that have not been parsed yet
+     */
+    @Override
+    public void close() {
+      chunks.close();
+    }
   }
 }
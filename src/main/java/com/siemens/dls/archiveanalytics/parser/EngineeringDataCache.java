@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.amazonaws.services.s3.AmazonS3;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Cache for S3 objects that rarely change between invocations, e.g. the engineering CSVs. A
+ * cache must check that its copy is still current whenever an object is read.
+ *
+ * @see DiskEngineeringDataCache
+ */
+@FunctionalInterface
+public interface EngineeringDataCache {
+
+  /**
+   * Provides a reader for an object that is served from the cache while the object has not
+   * changed
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @return the reader
+   */
+  S3Reader getReader(AmazonS3 client, String bucketName, String objectKey);
+
+  /**
+   * Same as {@link #getReader(AmazonS3, String, String)}, but the reader provides the object in
+   * chunks that are parsed in parallel, like a {@link ParallelRangeS3Reader}. Caches that cannot
+   * split their copies read them sequentially.
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @param executor processes the chunks, owned by the caller
+   * @param chunkSize the number of bytes per chunk
+   * @param readAhead the number of chunks that are processed ahead of the consumer
+   * @return the reader
+   */
+  default S3Reader getParallelReader(AmazonS3 client, String bucketName, String objectKey,
+      ExecutorService executor, int chunkSize, int readAhead) {
+    return getReader(client, bucketName, objectKey);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of strings that is tested against a field of a {@link CsvLine} in the line
+ * buffer, e.g. the tagnames of the ports whose trends or alarms are loaded. Testing a field
+ * neither materializes it nor allocates anything, which matters because almost all lines of
+ * these files are rejected.
+ * <p>
+ * A field is hashed once, straight from the buffer. The hash is tested against a Bloom filter
+ * first, which rejects most fields with a few bit tests in a small table; only candidates are
+ * looked up in an open addressing table and compared character by character. The set is
+ * thread-safe.
+ */
+public final class FieldSet {
+
+  private static final int BITS_PER_VALUE = 10;
+  private static final int PROBES = 3;
+
+  private final long[] bloom;
+  private final int bloomMask;
+  private final int[] hashes;
+  private final String[] values;
+  private final int tableMask;
+  private final int size;
+
+  private FieldSet(Set<String> distinct) {
+    size = distinct.size();
+    int bloomBits = tableSize(Math.max(Long.SIZE, size * BITS_PER_VALUE));
+    bloom = new long[bloomBits / Long.SIZE];
+    bloomMask = bloomBits - 1;
+    int tableSize = tableSize(Math.max(2, size * 2));
+    hashes = new int[tableSize];
+    values = new String[tableSize];
+    tableMask = tableSize - 1;
+    for (String value : distinct) {
+      int hash = value.hashCode();
+      int h2 = secondHash(hash);
+      for (int i = 0; i < PROBES; i++) {
+        int bit = (hash + i * h2) & bloomMask;
+        bloom[bit >>> 6] |= 1L << bit;
+      }
+      int slot = spread(hash) & tableMask;
+      while (values[slot] != null) {
+        slot = (slot + 1) & tableMask;
+      }
+      hashes[slot] = hash;
+      values[slot] = value;
+    }
+  }
+
+  /**
+   * Creates a set
+   *
+   * @param values the strings, null is ignored
+   * @return A new set of the strings
+   */
+  public static FieldSet of(Collection<String> values) {
+    Set<String> distinct = new HashSet<>(values);
+    distinct.remove(null);
+    return new FieldSet(distinct);
+  }
+
+  /**
+   * Getter for the number of strings in the set
+   *
+   * @return the number of distinct strings
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the field at the given index is in the set, without materializing the field
+   *
+   * @param line the line
+   * @param index the column index of the field, must exist
+   * @return true if the set contains a string with exactly the characters of the field
+   */
+  public boolean contains(CsvLine line, int index) {
+    char[] buffer = line.buffer();
+    int start = line.start(index);
+    int end = line.end(index);
+    // same as String.hashCode
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    int h2 = secondHash(hash);
+    for (int i = 0; i < PROBES; i++) {
+      int bit = (hash + i * h2) & bloomMask;
+      if ((bloom[bit >>> 6] & 1L << bit) == 0) {
+        return false;
+      }
+    }
+    for (int slot = spread(hash) & tableMask; values[slot] != null;
+        slot = (slot + 1) & tableMask) {
+      if (hashes[slot] == hash && equals(values[slot], buffer, start, end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Creates a filter that accepts the lines whose field at the given index is in this set
+   *
+   * @param index the column index of the field
+   * @return A new projected filter that only declares the column
+   */
+  public ProjectedFilter filter(int index) {
+    return ProjectedFilter.of(line -> contains(line, index), index);
+  }
+
+  private static boolean equals(String value, char[] buffer, int start, int end) {
+    if (value.length() != end - start) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) != buffer[start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Derives the step of the Bloom filter probes, which must be odd to reach all bits
+   */
+  private static int secondHash(int hash) {
+    return (Integer.rotateLeft(hash * 0x9e3779b9, 16) ^ hash) | 1;
+  }
+
+  /**
+   * Spreads the bits of a hash, so similar strings do not cluster in the table
+   */
+  private static int spread(int hash) {
+    int h = hash * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int tableSize(int minimum) {
+    return Integer.highestOneBit(minimum - 1) << 1;
+  }
+}
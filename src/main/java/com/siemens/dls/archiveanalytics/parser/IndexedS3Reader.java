@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.amazonaws.services.s3.AmazonS3;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link ParallelRangeS3Reader} that reads only some byte ranges of a CSV file, e.g. the lines of
+ * some keys found in a {@link LineIndex}. Every range is fetched by one ranged GET and provided as
+ * one {@link LineChunk}; the first range must start with the header, which is skipped like the
+ * header of a whole file. The ranges are fetched with the ETag of the index, so reading fails
+ * instead of providing wrong lines if the file has changed since it was indexed.
+ */
+public class IndexedS3Reader extends ParallelRangeS3Reader {
+
+  private final List<LineIndex.Range> ranges;
+  private final String eTag;
+
+  /**
+   * Constructor for IndexedS3Reader
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @param executor runs the ranged GETs, owned by the caller
+   * @param readAhead the number of ranges that are fetched ahead of the consumer
+   * @param ranges the ranges of complete lines, in file order, see
+   * {@link LineIndex#ranges(java.util.Collection, long, long)}
+   * @param eTag the ETag of the indexed version of the file
+   */
+  public IndexedS3Reader(AmazonS3 client, String bucketName, String objectKey,
+      ExecutorService executor, int readAhead, List<LineIndex.Range> ranges, String eTag) {
+    super(client, bucketName, objectKey, executor, DEFAULT_CHUNK_SIZE, readAhead);
+    this.ranges = ranges;
+    this.eTag = eTag;
+  }
+
+  /**
+   * Getter for the ranges of the file that are read
+   *
+   * @return the ranges
+   */
+  public List<LineIndex.Range> getRanges() {
+    return ranges;
+  }
+
+  /**
+   * Getter for the selected ranges as one stream, like the stream of a smaller file
+   *
+   * @return the concatenated ranges
+   */
+  @Override
+  public InputStream getInputStream() {
+    return new ChunkInputStream(chunks(true));
+  }
+
+  @Override
+  ChunkSource openChunkSource() {
+    Iterator<LineIndex.Range> remaining = ranges.iterator();
+    return new ChunkSource() {
+
+      private int index;
+
+      @Override
+      public Callable<LineChunk> next() {
+        if (!remaining.hasNext()) {
+          return null;
+        }
+        LineIndex.Range range = remaining.next();
+        int chunk = index++;
+        return () -> {
+          byte[] bytes = fetchRange(range.getStart(), range.getEnd() - 1, eTag);
+          return new LineChunk(chunk, bytes, 0, bytes.length);
+        };
+      }
+
+      @Override
+      public void close() {
+        //noop
+      }
+    };
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * A part of a text file that consists of complete lines only, see
+ * {@link ParallelRangeS3Reader#chunks(boolean)}. The chunks of a file are numbered in file order,
+ * so chunk 0 starts with the first line of the file, e.g. the CSV header.
+ */
+public final class LineChunk {
+
+  private final int index;
+  private final byte[] bytes;
+  private final int offset;
+  private final int length;
+
+  /**
+   * Constructor for LineChunk
+   *
+   * @param index the position of the chunk in the file
+   * @param bytes the buffer that holds the lines, not copied
+   * @param offset the position of the first byte of the lines in bytes
+   * @param length the number of bytes of the lines
+   */
+  public LineChunk(int index, byte[] bytes, int offset, int length) {
+    this.index = index;
+    this.bytes = bytes;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Getter for the position of the chunk in the file
+   *
+   * @return the index, starting with 0
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Getter for the buffer that holds the lines, not a copy
+   *
+   * @return the buffer, the lines are at {@link #getOffset()}
+   */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Getter for the position of the first byte of the lines in {@link #getBytes()}
+   *
+   * @return the offset
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Getter for the number of bytes of the lines
+   *
+   * @return the length, 0 if no line starts in this chunk
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Provides the lines as a stream
+   *
+   * @return a new stream over the lines
+   */
+  public InputStream newInputStream() {
+    return new ByteArrayInputStream(bytes, offset, length);
+  }
+}
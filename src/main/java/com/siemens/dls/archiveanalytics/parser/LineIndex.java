@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Sorted index of the lines of a CSV file by the value of one column, e.g. the tagname of
+ * BinaryTrend.csv or the afiid of Ports.csv. It is stored as a sidecar object next to the file,
+ * see {@link #sidecarKey(String)}, so the lines of a few keys can be fetched by ranged GETs, see
+ * {@link IndexedS3Reader}, instead of reading the whole file. Consecutive lines with the same key
+ * are indexed as one byte range, so files grouped by the key, like Ports.csv by module, yield
+ * one range per key.
+ * <p>
+ * An index belongs to one version of the file, identified by its ETag; an index of another
+ * version must not be used.
+ */
+public final class LineIndex {
+
+  /**
+   * Version of the sidecar format, increased with every incompatible change
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x444c5349; // "DLSI"
+  private static final String SUFFIX = ".idx";
+  private static final int LINE_FEED = '\n';
+  private static final int CARRIAGE_RETURN = '\r';
+
+  private final String eTag;
+  private final long headerEnd;
+  private final String[] keys;
+  private final long[] starts;
+  private final long[] ends;
+
+  private LineIndex(String eTag, long headerEnd, String[] keys, long[] starts, long[] ends) {
+    this.eTag = eTag;
+    this.headerEnd = headerEnd;
+    this.keys = keys;
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Provides the object key of the index of a file
+   *
+   * @param objectKey the object key of the file
+   * @return the object key of its index
+   */
+  public static String sidecarKey(String objectKey) {
+    return objectKey + SUFFIX;
+  }
+
+  /**
+   * Indexes a CSV file, which must not be compressed, as the offsets are byte positions in the
+   * object. The first line is the header. Lines without the key column are not indexed.
+   *
+   * @param content the content of the file
+   * @param keyColumn the index of the key column
+   * @param charset the charset of the file
+   * @param eTag the ETag of the indexed version of the file
+   * @return the index
+   * @throws IOException if the content could not be read
+   */
+  public static LineIndex build(InputStream content, int keyColumn, Charset charset, String eTag)
+      throws IOException {
+    InputStream in = new BufferedInputStream(content, 64 * 1024);
+    List<Entry> entries = new ArrayList<>();
+    ByteArrayOutputStream key = new ByteArrayOutputStream();
+    long headerEnd = -1;
+    long lineStart = 0;
+    long position = 0;
+    int column = 0;
+    int b;
+    do {
+      b = in.read();
+      if (b == LINE_FEED || b < 0) {
+        long lineEnd = b < 0 ? position : position + 1;
+        if (headerEnd < 0) {
+          headerEnd = lineEnd;
+        } else if (column >= keyColumn && lineEnd > lineStart) {
+          add(entries, new String(key.toByteArray(), charset), lineStart, lineEnd);
+        }
+        key.reset();
+        column = 0;
+        lineStart = lineEnd;
+      } else if (b == DlsCsvParser.SEPARATOR) {
+        column++;
+      } else if (column == keyColumn && b != CARRIAGE_RETURN) {
+        key.write(b);
+      }
+      position++;
+    } while (b >= 0);
+
+    entries.sort(Comparator.comparing((Entry e) -> e.key).thenComparingLong(e -> e.start));
+    String[] keys = new String[entries.size()];
+    long[] starts = new long[keys.length];
+    long[] ends = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      Entry entry = entries.get(i);
+      keys[i] = entry.key;
+      starts[i] = entry.start;
+      ends[i] = entry.end;
+    }
+    return new LineIndex(eTag, headerEnd, keys, starts, ends);
+  }
+
+  /**
+   * Extends the range of the previous line if it has the same key
+   */
+  private static void add(List<Entry> entries, String key, long start, long end) {
+    Entry last = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    if (last != null && last.end == start && last.key.equals(key)) {
+      last.end = end;
+    } else {
+      entries.add(new Entry(key, start, end));
+    }
+  }
+
+  /**
+   * Reads an index written by {@link #write(OutputStream)}
+   *
+   * @param in the sidecar object
+   * @return the index
+   * @throws IOException if the index could not be read or is not of this format version
+   */
+  public static LineIndex read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a line index");
+    }
+    int version = data.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException(String.format("Unsupported line index version %d", version));
+    }
+    String eTag = data.readUTF();
+    long headerEnd = data.readLong();
+    String[] keys = new String[data.readInt()];
+    long[] starts = new long[keys.length];
+    long[] ends = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = data.readUTF();
+      starts[i] = data.readLong();
+      ends[i] = data.readLong();
+    }
+    return new LineIndex(eTag, headerEnd, keys, starts, ends);
+  }
+
+  /**
+   * Writes the index, to be read by {@link #read(InputStream)}
+   *
+   * @param out the target, not closed
+   * @throws IOException if the index could not be written
+   */
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    data.writeUTF(eTag);
+    data.writeLong(headerEnd);
+    data.writeInt(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      data.writeUTF(keys[i]);
+      data.writeLong(starts[i]);
+      data.writeLong(ends[i]);
+    }
+    data.flush();
+  }
+
+  /**
+   * Getter for the ETag of the indexed version of the file
+   *
+   * @return the ETag
+   */
+  public String getETag() {
+    return eTag;
+  }
+
+  /**
+   * Provides the byte ranges of the header and of all lines of the given keys, in file order.
+   * Ranges that are at most maxGap bytes apart are joined as long as the joined range does not
+   * exceed maxLength bytes, so fewer GETs are needed; the lines in the gaps have to be filtered
+   * out when they are parsed. The first range starts with the header.
+   *
+   * @param keys the keys, keys that are not indexed are ignored
+   * @param maxGap the largest gap between two ranges that are joined
+   * @param maxLength the largest length of a joined range, single lines may still be longer
+   * @return the ranges, empty if the file is empty
+   */
+  public List<Range> ranges(Collection<String> keys, long maxGap, long maxLength) {
+    List<Range> ranges = new ArrayList<>();
+    if (headerEnd > 0) {
+      ranges.add(new Range(0, headerEnd));
+    }
+    for (String key : new HashSet<>(keys)) {
+      for (int i = lowerBound(key); i < this.keys.length && this.keys[i].equals(key); i++) {
+        ranges.add(new Range(starts[i], ends[i]));
+      }
+    }
+    ranges.sort(Comparator.comparingLong(Range::getStart));
+
+    List<Range> joined = new ArrayList<>();
+    Range current = null;
+    for (Range range : ranges) {
+      if (current != null && range.start - current.end <= maxGap
+          && range.end - current.start <= maxLength) {
+        current = new Range(current.start, Math.max(current.end, range.end));
+      } else {
+        if (current != null) {
+          joined.add(current);
+        }
+        current = range;
+      }
+    }
+    if (current != null) {
+      joined.add(current);
+    }
+    return joined;
+  }
+
+  private int lowerBound(String key) {
+    int i = Arrays.binarySearch(keys, key);
+    if (i < 0) {
+      return -i - 1;
+    }
+    // equal keys are adjacent, binarySearch finds any of them
+    while (i > 0 && keys[i - 1].equals(key)) {
+      i--;
+    }
+    return i;
+  }
+
+  /**
+   * A range of bytes of the indexed file
+   */
+  public static final class Range {
+
+    private final long start;
+    private final long end;
+
+    Range(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * Getter for the position of the first byte
+     *
+     * @return the start, inclusive
+     */
+    public long getStart() {
+      return start;
+    }
+
+    /**
+     * Getter for the position after the last byte
+     *
+     * @return the end, exclusive
+     */
+    public long getEnd() {
+      return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Range range = (Range) o;
+      return start == range.start && end == range.end;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + ")";
+    }
+  }
+
+  /**
+   * The lines of one key at one position, while the index is built
+   */
+  private static class Entry {
+
+    private final String key;
+    private final long start;
+    private long end;
+
+    private Entry(String key, long start, long end) {
+      this.key = key;
+      this.start = start;
+      this.end = end;
+    }
+  }
+}
@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * {@link S3Reader} for large objects, e.g. Ports.csv or BinaryTrend.csv. Instead of streaming the
+ * object over one connection, it is split into chunks of {@link #getChunkSize()} bytes which are
+ * fetched by concurrent ranged GETs on the given executor. Every chunk is extended to the end of
+ * its last line and starts at the first line that begins within it, so each line belongs to
+ * exactly one chunk. At most {@link #getReadAhead()} chunks are fetched ahead of the consumer,
+ * which bounds the memory to roughly readAhead * chunkSize bytes.
+ * <p>
+ * Compressed objects, see {@link ContentEncoding}, cannot be split by range. They are streamed,
+ * decompressed and cut into chunks of complete lines by the consumer thread instead, and only
+ * processing the chunks runs on the executor.
+ */
+public class ParallelRangeS3Reader extends S3Reader {
+
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+  public static final int DEFAULT_READ_AHEAD = 4;
+  /**
+   * Size of the ranges fetched after a chunk to complete its last line
+   */
+  static final int TAIL_SIZE = 64 * 1024;
+  private static final byte LINE_FEED = '\n';
+
+  private final ExecutorService executor;
+  private final int chunkSize;
+  private final int readAhead;
+
+  /**
+   * Constructor for ParallelRangeS3Reader with {@link #DEFAULT_CHUNK_SIZE} and
+   * {@link #DEFAULT_READ_AHEAD}
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @param executor runs the ranged GETs, owned by the caller
+   */
+  public ParallelRangeS3Reader(AmazonS3 client, String bucketName, String objectKey,
+      ExecutorService executor) {
+    this(client, bucketName, objectKey, executor, DEFAULT_CHUNK_SIZE, DEFAULT_READ_AHEAD);
+  }
+
+  /**
+   * Constructor for ParallelRangeS3Reader
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @param executor runs the ranged GETs, owned by the caller
+   * @param chunkSize the number of bytes fetched per ranged GET
+   * @param readAhead the number of chunks that are fetched ahead of the consumer
+   */
+  public ParallelRangeS3Reader(AmazonS3 client, String bucketName, String objectKey,
+      ExecutorService executor, int chunkSize, int readAhead) {
+    this(client, bucketName, objectKey, DEFAULT_CHARSET, executor, chunkSize, readAhead);
+  }
+
+  /**
+   * Constructor for ParallelRangeS3Reader
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @param charset the charset of the object
+   * @param executor runs the ranged GETs, owned by the caller
+   * @param chunkSize the number of bytes fetched per ranged GET
+   * @param readAhead the number of chunks that are fetched ahead of the consumer
+   */
+  public ParallelRangeS3Reader(AmazonS3 client, String bucketName, String objectKey,
+      Charset charset, ExecutorService executor, int chunkSize, int readAhead) {
+    super(client, bucketName, objectKey, charset);
+    if (chunkSize < 1 || readAhead < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Chunk size %d and read ahead %d must be positive", chunkSize, readAhead));
+    }
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+    this.readAhead = readAhead;
+  }
+
+  /**
+   * Getter for the number of bytes fetched per ranged GET
+   *
+   * @return the chunk size
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Getter for the number of chunks that are fetched ahead of the consumer
+   *
+   * @return the read ahead
+   */
+  public int getReadAhead() {
+    return readAhead;
+  }
+
+  /**
+   * Getter for a Reader over the whole object, with the chunks in file order
+   *
+   * @return a Reader that points on the delivered bucketname and objectKey
+   */
+  @Override
+  public Reader getReader() {
+    return ByteDecodingReader.of(new ChunkInputStream(chunks(true)), getCharset());
+  }
+
+  /**
+   * Fetches the object in chunks of complete lines. In file order, the chunks are the whole
+   * object. Fetching starts immediately; close the iterator to stop it early.
+   *
+   * @param ordered true to provide the chunks in file order, false to provide each chunk as soon
+   * as it has been fetched
+   * @return the chunks
+   */
+  public ChunkIterator<LineChunk> chunks(boolean ordered) {
+    return chunks(ordered, chunk -> chunk);
+  }
+
+  /**
+   * Same as {@link #chunks(boolean)}, but processes every chunk on the executor right after it
+   * has been fetched, e.g. to parse it. Only the results are kept until they are consumed.
+   *
+   * @param ordered true to provide the results in file order, false to provide each result as
+   * soon as it is ready
+   * @param processor converts a chunk, called concurrently
+   * @param <R> type of the results
+   * @return the results
+   */
+  public <R> ChunkIterator<R> chunks(boolean ordered, ChunkProcessor<R> processor) {
+    return new ChunkIterator<>(openChunkSource(), ordered, processor);
+  }
+
+  /**
+   * Provides the chunks of the whole object, by ranged GETs or cut from the stream of a
+   * compressed object. Subclasses may fetch parts of the object only.
+   */
+  ChunkSource openChunkSource() {
+    ObjectMetadata metadata = getClient().getObjectMetadata(getBucketName(), getObjectKey());
+    if (ContentEncoding.of(getObjectKey(), metadata) == ContentEncoding.IDENTITY) {
+      return new RangedChunkSource(metadata.getContentLength(), metadata.getETag());
+    }
+    try {
+      return streamChunks(getInputStream());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Cuts the chunks from a stream of the object on the consumer thread, for objects that cannot
+   * be fetched by range
+   *
+   * @param in the decompressed content of the object
+   */
+  ChunkSource streamChunks(InputStream in) {
+    return new StreamedChunkSource(new BufferedInputStream(in));
+  }
+
+  /**
+   * Fetches the lines that start within one chunk
+   *
+   * @param index the position of the chunk
+   * @param length the length of the object
+   * @param eTag the ETag of the object, to fail if it changes while it is read, may be null
+   */
+  LineChunk fetchChunk(int index, long length, String eTag) throws IOException {
+    long start = (long) index * chunkSize;
+    long end = Math.min(start + chunkSize, length) - 1;
+    // the byte before the chunk tells if a line starts at start
+    byte[] bytes = fetchRange(index == 0 ? 0 : start - 1, end, eTag);
+    int first = 0;
+    if (index > 0) {
+      int lineFeed = indexOfLineFeed(bytes, 0, bytes.length);
+      first = lineFeed < 0 ? bytes.length : lineFeed + 1;
+    }
+    if (first == bytes.length || bytes[bytes.length - 1] == LINE_FEED || end == length - 1) {
+      return new LineChunk(index, bytes, first, bytes.length - first);
+    }
+    // the last line continues in the next chunk
+    ByteArrayOutputStream tail = new ByteArrayOutputStream();
+    long position = end + 1;
+    while (position < length) {
+      byte[] range = fetchRange(position, Math.min(position + TAIL_SIZE, length) - 1, eTag);
+      int lineFeed = indexOfLineFeed(range, 0, range.length);
+      if (lineFeed >= 0) {
+        tail.write(range, 0, lineFeed + 1);
+        break;
+      }
+      if (range.length == 0) {
+        break;
+      }
+      tail.write(range, 0, range.length);
+      position += range.length;
+    }
+    byte[] lines = Arrays.copyOf(bytes, bytes.length + tail.size());
+    System.arraycopy(tail.toByteArray(), 0, lines, bytes.length, tail.size());
+    return new LineChunk(index, lines, first, lines.length - first);
+  }
+
+  /**
+   * Reads the next chunk of complete lines from a stream
+   *
+   * @param in the content, buffered
+   * @param index the position of the chunk
+   * @return the chunk or null at the end of the stream
+   */
+  LineChunk readChunk(InputStream in, int index) throws IOException {
+    byte[] bytes = new byte[chunkSize];
+    int length = ByteStreams.read(in, bytes, 0, chunkSize);
+    if (length == 0) {
+      return null;
+    }
+    if (length < chunkSize || bytes[length - 1] == LINE_FEED) {
+      return new LineChunk(index, bytes, 0, length);
+    }
+    // the last line continues in the next chunk
+    ByteArrayOutputStream tail = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) >= 0) {
+      tail.write(b);
+      if (b == LINE_FEED) {
+        break;
+      }
+    }
+    byte[] lines = Arrays.copyOf(bytes, length + tail.size());
+    System.arraycopy(tail.toByteArray(), 0, lines, length, tail.size());
+    return new LineChunk(index, lines, 0, lines.length);
+  }
+
+  /**
+   * Fetches the bytes {@code [from, to]} of the object
+   *
+   * @param eTag the ETag of the object, to fail if it has changed, may be null
+   */
+  byte[] fetchRange(long from, long to, String eTag) throws IOException {
+    GetObjectRequest request = new GetObjectRequest(getBucketName(), getObjectKey())
+        .withRange(from, to);
+    if (eTag != null) {
+      request.withMatchingETagConstraint(eTag);
+    }
+    S3Object object = getClient().getObject(request);
+    if (object == null) {
+      throw new IOException(String.format("%s/%s changed while it was read", getBucketName(),
+          getObjectKey()));
+    }
+    try (S3Object content = object) {
+      return ByteStreams.toByteArray(content.getObjectContent());
+    }
+  }
+
+  private static int indexOfLineFeed(byte[] bytes, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == LINE_FEED) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Provides the chunks of an object one after another
+   */
+  interface ChunkSource {
+
+    /**
+     * Provides the next chunk
+     *
+     * @return a task that provides the chunk or null if there are no more chunks
+     * @throws IOException if the chunk could not be read
+     */
+    Callable<LineChunk> next() throws IOException;
+
+    /**
+     * Releases the object
+     */
+    void close();
+  }
+
+  /**
+   * Fetches the chunks by ranged GETs, on the executor
+   */
+  private class RangedChunkSource implements ChunkSource {
+
+    private final long length;
+    private final String eTag;
+    private final int chunkCount;
+    private int index;
+
+    private RangedChunkSource(long length, String eTag) {
+      this.length = length;
+      this.eTag = eTag;
+      this.chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+    }
+
+    @Override
+    public Callable<LineChunk> next() {
+      if (index == chunkCount) {
+        return null;
+      }
+      int chunk = index++;
+      return () -> fetchChunk(chunk, length, eTag);
+    }
+
+    @Override
+    public void close() {
+      //noop
+    }
+  }
+
+  /**
+   * Cuts the chunks from a stream, on the consumer thread
+   */
+  private class StreamedChunkSource implements ChunkSource {
+
+    private final InputStream in;
+    private int index;
+
+    private StreamedChunkSource(InputStream in) {
+      this.in = in;
+    }
+
+    @Override
+    public Callable<LineChunk> next() throws IOException {
+      LineChunk chunk = readChunk(in, index++);
+      return chunk == null ? null : () -> chunk;
+    }
+
+    @Override
+    public void close() {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Converts a fetched chunk
+   *
+   * @param <R> type of the result
+   */
+  @FunctionalInterface
+  public interface ChunkProcessor<R> {
+
+    /**
+     * Converts a fetched chunk
+     *
+     * @param chunk the lines of the chunk
+     * @return the result
+     * @throws IOException if the chunk could not be processed
+     */
+    R process(LineChunk chunk) throws IOException;
+  }
+
+  /**
+   * Provides the processed chunks of an object while they are fetched. Unchecked exceptions of
+   * the client or the processor are rethrown as they are, {@link IOException}s as
+   * {@link UncheckedIOException}.
+   *
+   * @param <R> type of the processed chunks
+   */
+  public final class ChunkIterator<R> implements Iterator<R>, Closeable {
+
+    private final ChunkSource source;
+    private final ChunkProcessor<R> processor;
+    private final CompletionService<R> completion;
+    private final Deque<Future<R>> pending = new ArrayDeque<>();
+    private boolean exhausted;
+    private boolean closed;
+
+    private ChunkIterator(ChunkSource source, boolean ordered, ChunkProcessor<R> processor) {
+      this.source = source;
+      this.processor = processor;
+      this.completion = ordered ? null : new ExecutorCompletionService<>(executor);
+      fill();
+    }
+
+    private void fill() {
+      try {
+        while (!exhausted && pending.size() < readAhead) {
+          Callable<LineChunk> chunk = source.next();
+          if (chunk == null) {
+            exhausted = true;
+            source.close();
+          } else {
+            Callable<R> task = () -> processor.process(chunk.call());
+            pending.add(completion == null ? executor.submit(task) : completion.submit(task));
+          }
+        }
+      } catch (IOException e) {
+        close();
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !closed && !pending.isEmpty();
+    }
+
+    @Override
+    public R next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      try {
+        Future<R> future;
+        if (completion == null) {
+          future = pending.poll();
+        } else {
+          future = completion.take();
+          pending.remove(future);
+        }
+        fill();
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new UncheckedIOException(new InterruptedIOException(
+            String.format("Interrupted while reading %s/%s", getBucketName(), getObjectKey())));
+      } catch (ExecutionException e) {
+        close();
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw new UncheckedIOException((IOException) cause);
+        }
+        Throwables.throwIfUnchecked(cause);
+        throw new IllegalStateException(cause);
+      }
+    }
+
+    /**
+     * Cancels the chunks that have not been provided yet
+     */
+    @Override
+    public void close() {
+      closed = true;
+      for (Future<R> future : pending) {
+        future.cancel(true);
+      }
+      pending.clear();
+      source.close();
+    }
+  }
+
+  /**
+   * Concatenates the chunks of a {@link ChunkIterator} in file order
+   */
+  static class ChunkInputStream extends InputStream {
+
+    private final ChunkIterator<LineChunk> chunks;
+    private InputStream current;
+
+    ChunkInputStream(ChunkIterator<LineChunk> chunks) {
+      this.chunks = chunks;
+    }
+
+    private boolean advance() throws IOException {
+      while (current == null || current.available() == 0) {
+        if (!chunks.hasNext()) {
+          return false;
+        }
+        try {
+          current = chunks.next().newInputStream();
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return advance() ? current.read() : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      return advance() ? current.read(b, off, len) : -1;
+    }
+
+    @Override
+    public void close() {
+      chunks.close();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import java.util.Arrays;
+
+/**
+ * A {@link CsvLineFilter} that declares the columns it needs to decide on a line. The line is
+ * only tokenized up to the highest declared column while the filter runs, so rejected lines are
+ * dropped without searching the rest of the line for separators and without materializing any
+ * field. Accessing a column that has not been declared is a programming error and fails with
+ * {@link IllegalStateException}.
+ */
+public final class ProjectedFilter implements CsvLineFilter {
+
+  private final CsvLineFilter filter;
+  private final int[] columns;
+  private final int maxColumn;
+
+  private ProjectedFilter(CsvLineFilter filter, int[] columns) {
+    this.filter = filter;
+    this.columns = columns;
+    this.maxColumn = Arrays.stream(columns).max().orElse(-1);
+  }
+
+  /**
+   * Creates a projected filter
+   *
+   * @param filter the actual filter, must only access the given columns
+   * @param columns the column indices the filter needs
+   * @return A new projected filter
+   */
+  public static ProjectedFilter of(CsvLineFilter filter, int... columns) {
+    if (filter == null) {
+      throw new IllegalArgumentException("A projected filter needs a filter");
+    }
+    return new ProjectedFilter(filter, columns.clone());
+  }
+
+  /**
+   * Getter for the columns the filter has declared
+   *
+   * @return the column indices
+   */
+  public int[] getColumns() {
+    return columns.clone();
+  }
+
+  @Override
+  public boolean allowLine(CsvLine line) {
+    int previous = line.restrict(maxColumn);
+    try {
+      return filter.allowLine(line);
+    } finally {
+      line.restrict(previous);
+    }
+  }
+}
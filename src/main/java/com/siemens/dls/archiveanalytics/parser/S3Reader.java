@@ -8,17 +8,25 @@ package com.siemens.dls.archiveanalytics.parser;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.S3Object;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Class for creating a S3Reader
+ * Class for creating a S3Reader. Objects compressed with gzip or zstd are decompressed while they
+ * are read, see {@link ContentEncoding}.
  */
 public class S3Reader {
 
+  public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
   private AmazonS3 client;
   private String bucketName;
   private String objectKey;
+  private Charset charset;
 
 
   /**
@@ -29,18 +37,88 @@ public class S3Reader {
    * @param objectKey the object key that will be used
    */
   public S3Reader(AmazonS3 client, String bucketName, String objectKey) {
+    this(client, bucketName, objectKey, DEFAULT_CHARSET);
+  }
+
+  /**
+   * Constructor for S3Reader
+   *
+   * @param client the AmazonS3 client that will be used
+   * @param bucketName name of the bucket where the data is stored in S3
+   * @param objectKey the object key that will be used
+   * @param charset the charset of the object
+   */
+  public S3Reader(AmazonS3 client, String bucketName, String objectKey, Charset charset) {
     this.client = client;
     this.bucketName = bucketName;
     this.objectKey = objectKey;
+    this.charset = charset;
   }
 
   /**
-   * Getter for a S3Reader that reads from the bucketName and objectKey location
+   * Getter for a S3Reader that reads from the bucketName and objectKey location. ISO-8859-1 and
+   * UTF-8 are decoded by a {@link ByteDecodingReader}.
    *
    * @return a Reader that points on the delivered bucketname and objectKey
    */
   public Reader getReader() {
+    try {
+      return ByteDecodingReader.of(getInputStream(), charset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Getter for the decompressed bytes of the object
+   *
+   * @return a stream over the content of the object
+   * @throws IOException if the compressed stream could not be opened
+   */
+  public InputStream getInputStream() throws IOException {
     S3Object s3Object = client.getObject(bucketName, objectKey);
-    return new InputStreamReader(s3Object.getObjectContent());
+    try {
+      return ContentEncoding.of(objectKey, s3Object.getObjectMetadata())
+          .decode(s3Object.getObjectContent());
+    } catch (IOException e) {
+      s3Object.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Getter for the charset of the object
+   *
+   * @return the charset
+   */
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * Getter for the AmazonS3 client
+   *
+   * @return the client that is used to read the object
+   */
+  protected AmazonS3 getClient() {
+    return client;
+  }
+
+  /**
+   * Getter for the bucket name
+   *
+   * @return the name of the bucket where the object is stored
+   */
+  protected String getBucketName() {
+    return bucketName;
+  }
+
+  /**
+   * Getter for the object key
+   *
+   * @return the key of the object that is read
+   */
+  protected String getObjectKey() {
+    return objectKey;
   }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import com.opencsv.exceptions.CsvDataTypeMismatchException;
+import com.siemens.dls.archiveanalytics.model.TrendSeries;
+import java.util.Arrays;
+
+/**
+ * Decodes a trend field, i.e. samples of the form {@code millis,quality,value} separated by
+ * {@value #SAMPLE_SEPARATOR}, in a single pass into a {@link TrendSeries}. Neither the samples nor
+ * their parts are split into Strings, the numbers are read directly from the characters.
+ */
+public final class TrendStringDecoder {
+
+  public static final char SAMPLE_SEPARATOR = '|';
+  public static final char PART_SEPARATOR = ',';
+  /**
+   * Typical length of a sample including its separator, e.g. {@code 5926600,192,0.0|}, used to
+   * size the columns up front
+   */
+  private static final int ESTIMATED_SAMPLE_LENGTH = 16;
+  private static final int MIN_CAPACITY = 4;
+
+  private TrendStringDecoder() {
+    //noop
+  }
+
+  /**
+   * Decodes a trend String. Empty samples are skipped.
+   *
+   * @param value the trend String
+   * @return the samples of the String
+   * @throws CsvDataTypeMismatchException if a sample has less than 3 parts or a part is not a
+   * number
+   */
+  public static TrendSeries decode(String value) throws CsvDataTypeMismatchException {
+    char[] chars = value.toCharArray();
+    return decode(chars, 0, chars.length);
+  }
+
+  /**
+   * Decodes a trend field directly from the line buffer, without materializing the field
+   *
+   * @param line the line
+   * @param index the column index of the trend field
+   * @return the samples of the field
+   * @throws CsvDataTypeMismatchException if a sample has less than 3 parts or a part is not a
+   * number
+   */
+  public static TrendSeries decode(CsvLine line, int index) throws CsvDataTypeMismatchException {
+    return decode(line.buffer(), line.start(index), line.end(index));
+  }
+
+  /**
+   * Decodes the characters {@code [start, end)}
+   */
+  static TrendSeries decode(char[] chars, int start, int end)
+      throws CsvDataTypeMismatchException {
+    int capacity = Math.max(MIN_CAPACITY, (end - start) / ESTIMATED_SAMPLE_LENGTH + 1);
+    int[] millis = new int[capacity];
+    short[] qualities = new short[capacity];
+    double[] values = new double[capacity];
+    int size = 0;
+
+    int pos = start;
+    while (pos < end) {
+      int sampleEnd = indexOf(chars, SAMPLE_SEPARATOR, pos, end);
+      if (sampleEnd > pos) {
+        int qualityStart = indexOf(chars, PART_SEPARATOR, pos, sampleEnd) + 1;
+        int valueStart = indexOf(chars, PART_SEPARATOR, qualityStart, sampleEnd) + 1;
+        if (valueStart > sampleEnd) {
+          throw mismatch(chars, pos, sampleEnd);
+        }
+        int valueEnd = indexOf(chars, PART_SEPARATOR, valueStart, sampleEnd);
+        if (size == capacity) {
+          capacity *= 2;
+          millis = Arrays.copyOf(millis, capacity);
+          qualities = Arrays.copyOf(qualities, capacity);
+          values = Arrays.copyOf(values, capacity);
+        }
+        int quality;
+        try {
+          millis[size] = CsvFieldDecoder.parseInt(chars, pos, qualityStart - 1);
+          quality = CsvFieldDecoder.parseInt(chars, qualityStart, valueStart - 1);
+          values[size] = CsvFieldDecoder.parseDouble(chars, valueStart, valueEnd);
+        } catch (NumberFormatException e) {
+          throw mismatch(chars, pos, sampleEnd);
+        }
+        if (quality < Short.MIN_VALUE || quality > Short.MAX_VALUE) {
+          throw mismatch(chars, pos, sampleEnd);
+        }
+        qualities[size++] = (short) quality;
+      }
+      pos = sampleEnd + 1;
+    }
+    return size == 0 ? TrendSeries.empty() : new TrendSeries(millis, qualities, values, size);
+  }
+
+  /**
+   * @return the position of the first c in {@code [from, to)} or to if there is none
+   */
+  private static int indexOf(char[] chars, char c, int from, int to) {
+    int i = from;
+    while (i < to && chars[i] != c) {
+      i++;
+    }
+    return i;
+  }
+
+  private static CsvDataTypeMismatchException mismatch(char[] chars, int start, int end) {
+    return new CsvDataTypeMismatchException(
+        "Cannot convert string " + new String(chars, start, end - start) + " to Trend");
+  }
+}
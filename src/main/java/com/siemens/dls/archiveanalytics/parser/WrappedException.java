@@ -20,6 +20,16 @@ class WrappedException extends RuntimeException {
     super(cause);
   }
 
+  /**
+   * Constructor for the class
+   *
+   * @param message the detail message
+   * @param cause the cause of the exception
+   */
+  public WrappedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
   @FunctionalInterface
   public interface ExceptionWrapperFunction<R, E extends Throwable> {
 
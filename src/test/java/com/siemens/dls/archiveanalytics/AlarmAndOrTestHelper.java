@@ -15,6 +15,7 @@ import com.siemens.dls.archiveanalytics.model.BinaryTrend;
 import com.siemens.dls.archiveanalytics.model.Connection;
 import com.siemens.dls.archiveanalytics.model.Module;
 import com.siemens.dls.archiveanalytics.model.Port;
+import com.siemens.dls.archiveanalytics.parser.CsvLineFilter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -32,8 +33,8 @@ public class AlarmAndOrTestHelper {
       Map<Port, BinaryTrend> binTrends, Map<Integer, AlarmType> mockAlarmType) throws IOException {
     when(loader.loadNetwork(Mockito.anyMap(), Mockito.anyMap())).thenCallRealMethod();
     when(loader.loadConnections()).thenReturn(connections);
-    when(loader.getModulesByIdFromS3(Mockito.any())).thenReturn(modules);
-    when(loader.streamPortsFromS3(Mockito.any(), Mockito.anyMap())).then(
+    when(loader.getModulesByIdFromS3(Mockito.any(CsvLineFilter.class))).thenReturn(modules);
+    when(loader.streamPortsFromS3(Mockito.any(CsvLineFilter.class), Mockito.anyMap())).then(
         (Answer<Stream<Port>>) invocation -> ports.stream());
     when(loader.getBinaryTrends(Mockito.any())).thenReturn(binTrends);
     when(loader.getAlarmsFromS3(Mockito.anySet())).thenReturn(alarms);
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import static com.siemens.dls.archiveanalytics.TestUtils.alarm;
+import static com.siemens.dls.archiveanalytics.TestUtils.conn;
+import static com.siemens.dls.archiveanalytics.TestUtils.inPort;
+import static com.siemens.dls.archiveanalytics.TestUtils.outPort;
+import static com.siemens.dls.archiveanalytics.TestUtils.trendsByPort;
+import static com.siemens.dls.archiveanalytics.alertsongate.AlertsOnGateHandler.CYCLE;
+import static com.siemens.dls.archiveanalytics.alertsongate.AlertsOnGateHandler.MILLIS_TO_SECOND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.siemens.dls.archiveanalytics.alertsongate.AlertsOnGateConstants;
+import com.siemens.dls.archiveanalytics.alertsongate.AlertsOnGateReason;
+import com.siemens.dls.archiveanalytics.model.AbstractTrend;
+import com.siemens.dls.archiveanalytics.model.Alarm;
+import com.siemens.dls.archiveanalytics.model.BinaryTrend;
+import com.siemens.dls.archiveanalytics.model.Module;
+import com.siemens.dls.archiveanalytics.model.Network;
+import com.siemens.dls.archiveanalytics.model.Port;
+import com.siemens.dls.archiveanalytics.model.Trend;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the duplicate reasons of the {@link AlarmNotHandler} with the counts of the former
+ * implementation, which scanned the trends for every alarm, on the same random fixtures
+ */
+public class AlarmNotHandlerDuplicateTest {
+
+  private static final int OUT = 9999;
+  private static final int Q = 1000;
+  private static final int QN = 1010;
+  private static final int FIXTURES = 500;
+  private static final int MAX_SAMPLES = 12;
+  private static final int MAX_GAP = 1500;
+  private static final int BASE_MILLIS = 36000000;
+  private static final int GOOD_QUALITY = 192;
+  private static final int BAD_QUALITY = 24;
+
+  private final Handler sut = new Handler();
+  private final Random random = new Random(4711);
+
+  private Network network;
+  private Port start;
+  private Port signal;
+  private Port q;
+  private Port qn;
+
+  /**
+   * The gate raising the alert has an archived alarm signal of a normal module at one input and
+   * the negated outputs of a flip-flop at the other
+   */
+  @Before
+  public void setUp() {
+    Entry<Integer, List<Integer>> allowed = AlertsOnGateConstants.ALLOWED_INTER_MODULE_PORT_IDS
+        .entrySet().stream()
+        .map(e -> Maps.immutableEntry(e.getKey(),
+            e.getValue().stream().filter(id -> id != OUT).sorted().collect(Collectors.toList())))
+        .filter(e -> e.getValue().size() >= 2)
+        .findFirst().get();
+    int flipFlopTypeId = AlertsOnGateConstants.ALLOWED_NEGATED_MODULE_PORT_IDS.keySet()
+        .iterator().next();
+
+    Module gate = new Module().setId(1).setAfiTypeId(allowed.getKey());
+    Module source = new Module().setId(2).setAfiTypeId(-1);
+    Module flipFlop = new Module().setId(3).setAfiTypeId(flipFlopTypeId);
+    start = outPort(gate, OUT);
+    Port inA = inPort(gate, allowed.getValue().get(0));
+    Port inB = inPort(gate, allowed.getValue().get(1));
+    signal = outPort(source, OUT).setArchive(true).setAlarm(true);
+    q = outPort(flipFlop, Q).setArchive(true).setAlarm(true);
+    qn = outPort(flipFlop, QN).setArchive(true).setAlarm(true);
+
+    network = new Network(ImmutableMap.of(1, gate, 2, source, 3, flipFlop),
+        Stream.of(conn(signal, inA), conn(q, inB)),
+        Stream.of(start, inA, inB, signal, q, qn));
+  }
+
+  @Test
+  public void testDuplicateReasonsLikeFormerCounts() {
+    int overlapping = 0;
+    int negated = 0;
+    for (int i = 0; i < FIXTURES; i++) {
+      List<Trend> signalTrends = randomTrends();
+      List<Trend> qTrends = randomTrends();
+      List<Trend> qnTrends = negatedTrends(qTrends);
+      List<Alarm> alarms = randomAlarms();
+      Map<Port, BinaryTrend> binaryTrends = trendsByPort(binaryTrend(signal, signalTrends),
+          binaryTrend(q, qTrends), binaryTrend(qn, qnTrends));
+
+      Map<Port, AlertsOnGateReason> reasons = sut
+          .searchDuplicates(Maps.immutableEntry(start, alarms), binaryTrends, network).stream()
+          .collect(Collectors.toMap(AlertsOnGateReason::getSourcePort, Function.identity()));
+
+      long expectedOverlapping = formerOverlappingCount(signalTrends, alarms);
+      assertReasons(expectedOverlapping, reasons.get(signal));
+      overlapping += expectedOverlapping > 0 ? 1 : 0;
+
+      long expectedNegated = formerNegatedCount(qTrends, qnTrends, binaryTrends.get(q));
+      assertReasons(expectedNegated, reasons.get(q));
+      negated += expectedNegated > 0 ? 1 : 0;
+    }
+    // the fixtures cover both outcomes of both counts
+    assertTrue(overlapping > 0 && overlapping < FIXTURES);
+    assertTrue(negated > 0 && negated < FIXTURES);
+  }
+
+  @Test
+  public void testNotGateDuplicateReasonsLikeFormerCounts() {
+    int overlapping = 0;
+    for (int i = 0; i < FIXTURES; i++) {
+      List<Trend> signalTrends = randomTrends();
+      List<Alarm> alarms = randomAlarms();
+      AlertsOnGateReason reason = new AlertsOnGateReason(signal, signal, start, 0, 1, 0);
+
+      sut.updateNotGateDuplicateReasonsCount(reason,
+          trendsByPort(binaryTrend(signal, signalTrends)), ImmutableMap.of(start, alarms));
+
+      long expected = alarms.stream()
+          .filter(alarm -> formerIsNegatedOverlapping(signalTrends, toMillisOfDay(alarm)))
+          .count();
+      assertEquals(expected, reason.getReasons());
+      overlapping += expected > 0 ? 1 : 0;
+    }
+    assertTrue(overlapping > 0 && overlapping < FIXTURES);
+  }
+
+  private static void assertReasons(long expected, AlertsOnGateReason reason) {
+    if (expected == 0) {
+      assertFalse(Optional.ofNullable(reason).isPresent());
+    } else {
+      assertEquals(expected, reason.getReasons());
+    }
+  }
+
+  /**
+   * Samples with random values and qualities, some of them at the same time
+   */
+  private List<Trend> randomTrends() {
+    List<Trend> trends = new ArrayList<>();
+    int millis = BASE_MILLIS;
+    int samples = random.nextInt(MAX_SAMPLES);
+    for (int i = 0; i < samples; i++) {
+      millis += random.nextInt(MAX_GAP);
+      int quality = random.nextInt(4) == 0 ? BAD_QUALITY : GOOD_QUALITY;
+      trends.add(new Trend(millis, quality, random.nextInt(2)));
+    }
+    return trends;
+  }
+
+  /**
+   * The negation of the samples, one of them spoiled in a third of the fixtures
+   */
+  private List<Trend> negatedTrends(List<Trend> trends) {
+    List<Trend> negated = trends.stream()
+        .map(t -> new Trend(t.getMillis(), t.getQuality(), 1 - t.getValue()))
+        .collect(Collectors.toList());
+    if (!negated.isEmpty() && random.nextInt(3) == 0) {
+      Trend spoiled = negated.get(random.nextInt(negated.size()));
+      if (random.nextBoolean()) {
+        spoiled.setValue(1 - spoiled.getValue());
+      } else {
+        spoiled.setQuality(BAD_QUALITY);
+      }
+    }
+    return negated;
+  }
+
+  private List<Alarm> randomAlarms() {
+    List<Alarm> alarms = new ArrayList<>();
+    int count = random.nextInt(6);
+    for (int i = 0; i < count; i++) {
+      alarms.add(alarm(start, BASE_MILLIS + random.nextInt(MAX_SAMPLES * MAX_GAP), 1000, 1000));
+    }
+    return alarms;
+  }
+
+  private static BinaryTrend binaryTrend(Port port, List<Trend> trends) {
+    return new BinaryTrend(port).setTrends(trends);
+  }
+
+  private static int toMillisOfDay(Alarm alarm) {
+    return Utils.toMillisOfDay(alarm.getTime());
+  }
+
+  private static List<Trend> acceptable(List<Trend> trends) {
+    return trends.stream()
+        .filter(t -> t.getQuality() >= AbstractTrend.NOT_BAD_QUALITY_THRESHOLD)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Former calculateSignalNegatedOverlappingCount
+   */
+  private static long formerOverlappingCount(List<Trend> trends, List<Alarm> alarms) {
+    List<Trend> acceptable = acceptable(trends);
+    if (acceptable.stream().noneMatch(t -> t.getValue() == 1)) {
+      return 0;
+    }
+    if (acceptable.stream().noneMatch(t -> t.getValue() == 0)) {
+      return alarms.size();
+    }
+    return alarms.stream()
+        .filter(alarm -> formerIsNegatedOverlapping(trends, toMillisOfDay(alarm)))
+        .count();
+  }
+
+  /**
+   * Former isNegatedOverlapping
+   */
+  private static boolean formerIsNegatedOverlapping(List<Trend> trends, int startMillis) {
+    List<Trend> acceptable = acceptable(trends);
+    Optional<Trend> fallingSignal = acceptable.stream()
+        .filter(t -> t.getValue() == 0)
+        .filter(t -> t.getMillis() <= startMillis
+            && t.getMillis() >= startMillis - CYCLE * MILLIS_TO_SECOND)
+        .reduce((t1, t2) -> t2);
+    if (!fallingSignal.isPresent()) {
+      return false;
+    }
+    Optional<Trend> risingSignal = acceptable.stream()
+        .filter(t -> t.getValue() == 1)
+        .filter(t -> t.getMillis() > fallingSignal.get().getMillis())
+        .findFirst();
+    return !risingSignal.isPresent() || risingSignal.get().getMillis() > startMillis;
+  }
+
+  /**
+   * Former calculateSignalNegatedCount
+   */
+  private static long formerNegatedCount(List<Trend> outputTrends, List<Trend> negatedTrends,
+      BinaryTrend output) {
+    List<Trend> negated = acceptable(negatedTrends);
+    long notMatchedCount = acceptable(outputTrends).stream()
+        .filter(trend -> negated.stream()
+            .noneMatch(n -> n.getMillis() == trend.getMillis()
+                && n.getValue() + trend.getValue() == 1))
+        .count();
+    return notMatchedCount == 0 ? output.getRisingCount() : 0;
+  }
+
+  /**
+   * Searches with the duplicate filter of the handler
+   */
+  private static class Handler extends AlarmNotHandler {
+
+    private List<AlertsOnGateReason> searchDuplicates(Entry<Port, List<Alarm>> alarms,
+        Map<Port, BinaryTrend> binaryTrends, Network network) {
+      return breadthFirstSearch(alarms, binaryTrends, network, getDuplicateFilter());
+    }
+  }
+}
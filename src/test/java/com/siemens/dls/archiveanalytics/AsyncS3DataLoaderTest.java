@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.siemens.dls.archiveanalytics.model.AlarmType;
+import com.siemens.dls.archiveanalytics.model.BinaryTrend;
+import com.siemens.dls.archiveanalytics.model.Port;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncS3DataLoaderTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testIndependentLoadsOverlap() throws IOException {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    Map<Integer, AlarmType> alarmTypes = ImmutableMap.of(1, new AlarmType());
+    Port port = new Port().setUniqueName("TAG");
+    Map<Port, BinaryTrend> trends = ImmutableMap.of(port, new BinaryTrend());
+    AsyncS3DataLoader sut = new AsyncS3DataLoader(new S3DataLoader(null, "bucket") {
+      @Override
+      public Map<Integer, AlarmType> getAlarmTypesFromS3() {
+        awaitOther(bothStarted);
+        return alarmTypes;
+      }
+
+      @Override
+      public Map<Port, BinaryTrend> getBinaryTrends(Set<Port> ports) {
+        awaitOther(bothStarted);
+        assertEquals(ImmutableSet.of(port), ports);
+        return trends;
+      }
+    }, executor);
+
+    CompletableFuture<Map<Port, BinaryTrend>> trendsFuture = sut
+        .getBinaryTrends(sut.supply(() -> ImmutableSet.of(port)));
+    CompletableFuture<Map<Integer, AlarmType>> alarmTypesFuture = sut.getAlarmTypes();
+
+    assertEquals(trends, AsyncS3DataLoader.await(trendsFuture));
+    assertEquals(alarmTypes, AsyncS3DataLoader.await(alarmTypesFuture));
+  }
+
+  @Test(expected = IOException.class)
+  public void testAwaitRethrowsIOException() throws IOException {
+    AsyncS3DataLoader sut = new AsyncS3DataLoader(new S3DataLoader(null, "bucket"), executor);
+    AtomicBoolean loaded = new AtomicBoolean();
+    CompletableFuture<Set<Port>> ports = sut.supply(() -> {
+      throw new IOException("not found");
+    });
+    CompletableFuture<Integer> dependent = sut.then(ports, p -> {
+      loaded.set(true);
+      return p.size();
+    });
+    try {
+      AsyncS3DataLoader.await(dependent);
+    } finally {
+      assertFalse(loaded.get());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAwaitRethrowsRuntimeException() throws IOException {
+    AsyncS3DataLoader sut = new AsyncS3DataLoader(new S3DataLoader(null, "bucket"), executor);
+    AsyncS3DataLoader.await(sut.supply(() -> {
+      throw new IllegalStateException();
+    }));
+  }
+
+  private static void awaitOther(CountDownLatch bothStarted) {
+    bothStarted.countDown();
+    try {
+      assertTrue("The other load has not started", bothStarted.await(10, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.google.common.collect.ImmutableSet;
+import com.siemens.dls.archiveanalytics.model.Connection;
+import com.siemens.dls.archiveanalytics.model.JoinRow;
+import com.siemens.dls.archiveanalytics.model.LongObjectMap;
+import com.siemens.dls.archiveanalytics.model.Module;
+import com.siemens.dls.archiveanalytics.model.Port;
+import com.siemens.dls.archiveanalytics.model.PortDirection;
+import com.siemens.dls.archiveanalytics.model.PortKey;
+import com.siemens.dls.archiveanalytics.parser.CsvScan;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests how {@link FumHandler} joins the engineering data, on an {@link InMemoryAmazonS3}
+ */
+public class FumHandlerTest {
+
+  private static final String BUCKET = "bucket";
+
+  private S3DataLoader loader;
+
+  @Before
+  public void setUp() {
+    InMemoryAmazonS3 s3 = new InMemoryAmazonS3()
+        .put(BUCKET, "eng/" + S3DataLoader.AFI_CSV, "id;node;afitype;symbol;name;\n"
+            + "1;0;1;FUM_ASMON;FUM1;\n"
+            + "2;0;2;FUM210BT01;HW2;\n"
+            + "3;0;2;FUM210BT01;HW3;\n")
+        .put(BUCKET, "eng/" + S3DataLoader.PORTS_CSV, "afiid;portid;portname;...\n"
+            + port(1, 20, "IN20", "I")
+            + port(1, 30, "IN30", "I")
+            + port(1, 40, "IN40", "I")
+            + port(1, 100, "TRBL_AL", "O")
+            + port(2, 5, "IN5", "I")
+            + port(2, 10, "DI1", "O")
+            + port(2, 11, "DI1_STATUS", "O")
+            + port(2, 12, "ALARM", "O")
+            + port(3, 10, "DI2", "O"))
+        .put(BUCKET, "eng/" + S3DataLoader.CONNECTIONS_CSV,
+            "afiid1;portid1;portname1;type1;afiid2;portid2;portname2;type2;\n"
+                + "2;10;DI1;bool;1;20;IN20;bool;\n"
+                + "3;10;DI2;bool;1;30;IN30;bool;\n"
+                + "2;12;ALARM;bool;1;40;IN40;bool;\n");
+    loader = new S3DataLoader(s3, BUCKET);
+    loader.setParams(new DlsProducerLambdaParams("UT0054",
+        Collections.singletonList("2018-01-01"), 0, BUCKET, new Paths("arc", "eng")));
+  }
+
+  private static String port(int afiId, int id, String name, String io) {
+    String[] fields = new String[Port.UNIQUENAME_COLUMN_INDEX + 1];
+    Arrays.fill(fields, "");
+    fields[Port.AFI_COLUMN_INDEX] = String.valueOf(afiId);
+    fields[Port.ID_COLUMN_INDEX] = String.valueOf(id);
+    fields[Port.NAME_COLUMN_INDEX] = name;
+    fields[Port.IO_COLUMN_INDEX] = io;
+    fields[Port.UNIQUENAME_COLUMN_INDEX] = "M" + afiId + "|" + name;
+    return String.join(";", fields) + ";\n";
+  }
+
+  @Test
+  public void testCalculateEngData() throws IOException {
+    assertEngData(new TestFumHandler(loader).calculateEngData());
+  }
+
+  @Test
+  public void testCalculateEngDataWithoutKeptOutputPorts() throws IOException {
+    FumHandler sut = new TestFumHandler(loader) {
+      @Override
+      protected List<Port> loadHwOutputPorts(Map<Integer, Module> hwModulesById,
+          CsvScan.Deferred outputPorts) throws IOException {
+        throw new IOException("No space left on device");
+      }
+    };
+    assertEngData(sut.calculateEngData());
+  }
+
+  @Test
+  public void testCollectEngResult() {
+    Module fum = new Module().setId(1);
+    Module hw = new Module().setId(2);
+    List<Port> fumInputPorts = Arrays.asList(
+        port(fum, 20, "IN20", PortDirection.I), port(fum, 30, "IN30", PortDirection.I));
+    port(fum, 100, "TRBL_AL", PortDirection.O);
+    List<Port> hwOutputPorts = Arrays.asList(port(hw, 10, "DI1", PortDirection.O),
+        port(hw, 11, "DI1_STATUS", PortDirection.O), port(hw, 12, "ALARM", PortDirection.O));
+    Set<Connection> connections = ImmutableSet.of(
+        new Connection(new PortKey(2, 10), new PortKey(1, 20)),
+        new Connection(new PortKey(3, 10), new PortKey(1, 30)));
+
+    assertEngData(new TestFumHandler(loader).collectEngResult(connections,
+        LongObjectMap.uniqueIndex(hwOutputPorts, Port::getPackedKey),
+        LongObjectMap.uniqueIndex(fumInputPorts, Port::getPackedKey)));
+  }
+
+  private static Port port(Module module, int id, String name, PortDirection direction) {
+    Port port = new Port().setAfiId(module.getId()).setId(id).setName(name)
+        .setDirection(direction).setUniqueName("M" + module.getId() + "|" + name)
+        .setModule(module);
+    module.addPort(port);
+    return port;
+  }
+
+  private static void assertEngData(List<JoinRow> rows) {
+    // IN30 is connected to a port without status, IN40 is no FUM input port
+    assertEquals(1, rows.size());
+    List<Object> values = rows.get(0).getValues();
+    Connection connection = (Connection) values.get(FumHandler.ENG_RESULT_CONNECTION_INDEX);
+    assertPort(1, 20, "IN20", connection.getInPort());
+    assertPort(2, 10, "DI1", connection.getOutPort());
+    assertPort(2, 11, "DI1_STATUS", values.get(FumHandler.ENG_RESULT_HW_STATUS_PORT_INDEX));
+    assertPort(1, 100, "TRBL_AL", values.get(FumHandler.ENG_RESULT_FUM_ALARM_PORT_INDEX));
+    assertPort(2, 12, "ALARM", values.get(FumHandler.ENG_RESULT_HW_ALARM_PORT_INDEX));
+  }
+
+  private static void assertPort(int afiId, int id, String name, Object actual) {
+    Port port = (Port) actual;
+    assertEquals(afiId, port.getAfiId());
+    assertEquals(id, port.getId());
+    assertEquals(name, port.getName());
+    assertEquals("M" + afiId + "|" + name, port.getUniqueName());
+    assertEquals(afiId, port.getModule().getId());
+  }
+
+  private static class TestFumHandler extends FumHandler {
+
+    private TestFumHandler(S3DataLoader loader) {
+      super(loader, null);
+    }
+
+    @Override
+    public String getUseCase() {
+      return "fum";
+    }
+
+    @Override
+    protected DlsProducerLambdaResult handleRequestInternal(DlsProducerLambdaParams params,
+        Context context) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
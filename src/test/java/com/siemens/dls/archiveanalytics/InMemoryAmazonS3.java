@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link com.amazonaws.services.s3.AmazonS3} that keeps the objects of all buckets in memory.
+ * Supports plain and ranged GETs, ETag constraints, metadata requests and uploads, and records
+ * the GETs that provide content, see {@link #getRequests()}.
+ */
+public class InMemoryAmazonS3 extends AbstractAmazonS3 {
+
+  private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+  private final List<String> requests = new ArrayList<>();
+
+  /**
+   * Stores an object
+   *
+   * @param bucket the bucket
+   * @param key the object key
+   * @param content the content, UTF-8 encoded
+   * @return this
+   */
+  public InMemoryAmazonS3 put(String bucket, String key, String content) {
+    objects.put(bucket + '/' + key, content.getBytes(StandardCharsets.UTF_8));
+    return this;
+  }
+
+  /**
+   * Provides the GETs so far, the object key for a GET of a whole object and the key followed by
+   * the range for a ranged GET, e.g. {@code eng/Ports.csv bytes=0-99}
+   *
+   * @return A new list of the requests
+   */
+  public synchronized List<String> getRequests() {
+    return new ArrayList<>(requests);
+  }
+
+  @Override
+  public ObjectMetadata getObjectMetadata(String bucket, String key) {
+    return metadata(content(bucket, key));
+  }
+
+  @Override
+  public S3Object getObject(String bucket, String key) {
+    record(key);
+    return object(bucket, key, content(bucket, key));
+  }
+
+  @Override
+  public S3Object getObject(GetObjectRequest request) {
+    byte[] content = content(request.getBucketName(), request.getKey());
+    if (!request.getMatchingETagConstraints().isEmpty()
+        && !request.getMatchingETagConstraints().contains(eTag(content))
+        || request.getNonmatchingETagConstraints().contains(eTag(content))) {
+      return null;
+    }
+    long[] range = request.getRange();
+    if (range == null) {
+      record(request.getKey());
+      return object(request.getBucketName(), request.getKey(), content);
+    }
+    record(String.format("%s bytes=%d-%d", request.getKey(), range[0], range[1]));
+    S3Object object = object(request.getBucketName(), request.getKey(), content);
+    object.setObjectContent(new ByteArrayInputStream(Arrays.copyOfRange(content,
+        (int) Math.min(range[0], content.length), (int) Math.min(range[1] + 1, content.length))));
+    return object;
+  }
+
+  @Override
+  public PutObjectResult putObject(String bucket, String key, InputStream input,
+      ObjectMetadata metadata) {
+    try {
+      objects.put(bucket + '/' + key, ByteStreams.toByteArray(input));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new PutObjectResult();
+  }
+
+  private synchronized void record(String request) {
+    requests.add(request);
+  }
+
+  private byte[] content(String bucket, String key) {
+    byte[] content = objects.get(bucket + '/' + key);
+    if (content == null) {
+      AmazonS3Exception e = new AmazonS3Exception("The specified key does not exist.");
+      e.setStatusCode(404);
+      throw e;
+    }
+    return content;
+  }
+
+  private static S3Object object(String bucket, String key, byte[] content) {
+    S3Object object = new S3Object();
+    object.setBucketName(bucket);
+    object.setKey(key);
+    object.setObjectMetadata(metadata(content));
+    object.setObjectContent(new ByteArrayInputStream(content));
+    return object;
+  }
+
+  private static ObjectMetadata metadata(byte[] content) {
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(content.length);
+    metadata.setHeader(Headers.ETAG, eTag(content));
+    return metadata;
+  }
+
+  private static String eTag(byte[] content) {
+    return String.format("%08x-%d", Arrays.hashCode(content), content.length);
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItemInArray;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.siemens.dls.archiveanalytics.model.AnalogTrend;
+import com.siemens.dls.archiveanalytics.model.Connection;
+import com.siemens.dls.archiveanalytics.model.Network;
+import com.siemens.dls.archiveanalytics.model.Port;
+import java.util.Collections;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests how {@link S3DataLoader} reads the files, on an {@link InMemoryAmazonS3}
+ */
+public class S3DataLoaderReaderTest {
+
+  private static final String BUCKET = "bucket";
+  private static final String AFI_KEY = "eng/" + S3DataLoader.AFI_CSV;
+  private static final String PORTS_KEY = "eng/" + S3DataLoader.PORTS_CSV;
+  private static final String ANALOG_TRENDS_KEY = "arc/" + S3DataLoader.ANALOG_TREND_CSV;
+  private static final String CONNECTIONS_KEY = "eng/" + S3DataLoader.CONNECTIONS_CSV;
+  private static final String PORTS_HEADER = "afiid;portid;portname;portdesc;afitypeid;symbol;"
+      + "type;io;parameter;isarchive;isalarm;alarmtypeid;abbrev;activerule;inactiverule;active;"
+      + "inactive;minvalue;maxvalue;percent;engunit;signal;signalinfo;connafiid;connportid;"
+      + "uniquename;\n";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private InMemoryAmazonS3 s3;
+  private S3DataLoader loader;
+
+  @Before
+  public void setUp() {
+    StringBuilder modules = new StringBuilder("id;node;afitype;symbol;name;\n");
+    StringBuilder ports = new StringBuilder(PORTS_HEADER);
+    StringBuilder trends = new StringBuilder("Client;TagName;Trend\n");
+    StringBuilder connections = new StringBuilder(
+        "afiid1;portid1;portname1;type1;afiid2;portid2;portname2;type2;\n");
+    for (int afiId = 1; afiId <= 20; afiId++) {
+      modules.append(String.format("%d;0;100;SYM;M%d;\n", afiId, afiId));
+      ports.append(String.format("%d;10;IN;;;SYM;float;I;;;;1;A;;;;;;;;;;;%d;1000;M%d|IN;\n",
+          afiId, afiId + 1, afiId));
+      ports.append(String.format("%d;1000;OUT;;;SYM;float;O;;;;1;A;;;;;;;;;;;;;M%d|OUT;\n",
+          afiId, afiId));
+      trends.append(String.format("UT0054;M%d|OUT;0,192,%d.0|\n", afiId, afiId));
+      connections.append(String.format("%d;1000;OUT;float;%d;10;IN;float;\n", afiId + 1, afiId));
+    }
+    s3 = new InMemoryAmazonS3()
+        .put(BUCKET, AFI_KEY, modules.toString())
+        .put(BUCKET, PORTS_KEY, ports.toString())
+        .put(BUCKET, CONNECTIONS_KEY, connections.toString())
+        .put(BUCKET, ANALOG_TRENDS_KEY, trends.toString())
+        .put(BUCKET, "arc/" + S3DataLoader.BINARY_TREND_CSV, "Client;TagName;Trend\n");
+    loader = new S3DataLoader(s3, BUCKET);
+    loader.setParams(new DlsProducerLambdaParams("UT0054",
+        Collections.singletonList("2018-01-01"), 0, BUCKET, new Paths("arc", "eng")));
+  }
+
+  @Test
+  public void testParallelParsingInFileOrder() throws Exception {
+    List<Port> ports = loader.loadPortsFromS3(null, null);
+    List<Connection> connections = loader.loadConnections().collect(Collectors.toList());
+    assertThat(ports, hasSize(40));
+    assertThat(connections, hasSize(20));
+
+    loader.configure(ImmutableMap.of(S3DataLoader.PARSING_PARALLELISM, "3",
+        S3DataLoader.PARSING_CHUNK_SIZE, "100")::get);
+
+    assertEquals(ports, loader.loadPortsFromS3(null, null));
+    assertEquals(connections, loader.loadConnections().collect(Collectors.toList()));
+    assertThat(s3.getRequests(), hasItem(PORTS_KEY + " bytes=99-199"));
+  }
+
+  @Test
+  public void testParallelParsingInAnyOrder() throws Exception {
+    List<Port> ports = loader.loadPortsFromS3(null, null);
+    List<Connection> connections = loader.loadConnections().collect(Collectors.toList());
+
+    loader.configure(ImmutableMap.of(S3DataLoader.PARSING_PARALLELISM, "3",
+        S3DataLoader.PARSING_CHUNK_SIZE, "100",
+        S3DataLoader.PARSING_PRESERVE_ORDER, "false")::get);
+
+    assertThat(loader.loadPortsFromS3(null, null),
+        containsInAnyOrder(ports.toArray()));
+    assertThat(loader.loadConnections().collect(Collectors.toList()),
+        containsInAnyOrder(connections.toArray()));
+    assertThat(s3.getRequests(), hasItem(CONNECTIONS_KEY + " bytes=99-199"));
+  }
+
+  @Test
+  public void testEngineeringDataCache() throws Exception {
+    List<Port> ports = loader.loadPortsFromS3(null, null);
+    loader.configure(ImmutableMap.of(S3DataLoader.ENGINEERING_DATA_CACHE_DIRECTORY,
+        folder.getRoot().getPath())::get);
+    assertCachedPorts(ports);
+  }
+
+  @Test
+  public void testEngineeringDataCacheInParallel() throws Exception {
+    List<Port> ports = loader.loadPortsFromS3(null, null);
+    loader.configure(ImmutableMap.of(S3DataLoader.PARSING_PARALLELISM, "3",
+        S3DataLoader.PARSING_CHUNK_SIZE, "100",
+        S3DataLoader.ENGINEERING_DATA_CACHE_DIRECTORY, folder.getRoot().getPath())::get);
+    assertCachedPorts(ports);
+  }
+
+  private void assertCachedPorts(List<Port> ports) throws Exception {
+    assertEquals(ports, loader.loadPortsFromS3(null, null));
+    int requests = s3.getRequests().size();
+    // served from the cache without another GET of the content
+    assertEquals(ports, loader.loadPortsFromS3(null, null));
+    assertEquals(requests, s3.getRequests().size());
+
+    s3.put(BUCKET, PORTS_KEY, PORTS_HEADER
+        + "21;1000;OUT;;;SYM;float;O;;;;1;A;;;;;;;;;;;;;M21|OUT;\n");
+    assertThat(loader.loadPortsFromS3(null, null), hasSize(1));
+  }
+
+  @Test
+  public void testNetworkSnapshot() throws Exception {
+    Map<Integer, Set<Integer>> filter = ImmutableMap.of(100, ImmutableSet.of(10, 1000));
+    loader.configure(ImmutableMap.of(S3DataLoader.NETWORK_SNAPSHOT_DIRECTORY,
+        folder.getRoot().getPath())::get);
+
+    assertConnected(loader.loadNetwork(filter, filter), 19);
+    File[] snapshots = folder.getRoot().listFiles();
+    assertEquals(1, snapshots.length);
+    int requests = s3.getRequests().size();
+    // rebuilt from the snapshot without another GET of the files
+    assertConnected(loader.loadNetwork(filter, filter), 19);
+    assertEquals(requests, s3.getRequests().size());
+
+    // another filter selects another network
+    loader.loadNetwork(ImmutableMap.of(100, ImmutableSet.of(10)), ImmutableMap.of());
+    assertEquals(2, folder.getRoot().listFiles().length);
+    assertThat(s3.getRequests().size(), greaterThan(requests));
+
+    // a new version of the files replaces the snapshot of the same filter
+    s3.put(BUCKET, PORTS_KEY, PORTS_HEADER
+        + "1;10;IN;;;SYM;float;I;;;;1;A;;;;;;;;;;;2;1000;M1|IN;\n"
+        + "2;1000;OUT;;;SYM;float;O;;;;1;A;;;;;;;;;;;;;M2|OUT;\n");
+    assertConnected(loader.loadNetwork(filter, filter), 1);
+    assertEquals(2, folder.getRoot().listFiles().length);
+    assertThat(folder.getRoot().listFiles(), not(hasItemInArray(snapshots[0])));
+  }
+
+  private static void assertConnected(Network network, int connectedPorts) {
+    assertEquals(20, network.getModules().size());
+    assertEquals(connectedPorts, network.getModules().values().stream()
+        .flatMap(m -> m.getInPorts().stream())
+        .filter(p -> p.getConnectedOutPort().isPresent())
+        .count());
+    Port in = network.getModules().get(1).getPortById(10);
+    assertEquals(network.getModules().get(2).getPortById(1000), in.getConnectedOutPort().get());
+  }
+
+  @Test
+  public void testLineIndexes() throws Exception {
+    s3.put(BUCKET, AFI_KEY, "id;node;afitype;symbol;name;\n5;0;200;SYM;M5;\n");
+    Network network = loader.loadNetwork(ImmutableMap.of(200, Collections.emptySet()));
+    List<Port> ports = network.getModules().get(5).getOutPorts();
+    Map<Port, AnalogTrend> trends = loader.getAnalogTrends(ImmutableSet.copyOf(ports));
+    assertEquals(1, trends.size());
+
+    loader.buildLineIndexes();
+    loader.configure(ImmutableMap.of(S3DataLoader.USE_LINE_INDEXES, "true")::get);
+    int requests = s3.getRequests().size();
+
+    Network indexed = loader.loadNetwork(ImmutableMap.of(200, Collections.emptySet()));
+    assertEquals(ports, indexed.getModules().get(5).getOutPorts());
+    assertEquals(network.getModules().get(5).getInPorts(),
+        indexed.getModules().get(5).getInPorts());
+    assertEquals(trends, loader.getAnalogTrends(ImmutableSet.copyOf(ports)));
+
+    List<String> newRequests = s3.getRequests().subList(requests, s3.getRequests().size());
+    assertThat(newRequests, not(hasItem(PORTS_KEY)));
+    assertThat(newRequests, not(hasItem(ANALOG_TRENDS_KEY)));
+    assertEquals(1, newRequests.stream().filter(r -> r.startsWith(PORTS_KEY + " bytes=")).count());
+    assertEquals(1,
+        newRequests.stream().filter(r -> r.startsWith(ANALOG_TRENDS_KEY + " bytes=")).count());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConfigureRejectsMalformedParallelism() {
+    loader.configure(ImmutableMap.of(S3DataLoader.PARSING_PARALLELISM, "many")::get);
+  }
+}
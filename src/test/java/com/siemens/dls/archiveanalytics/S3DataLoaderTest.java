@@ -18,10 +18,11 @@ import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.opencsv.bean.CsvToBeanFilter;
 import com.siemens.dls.archiveanalytics.model.Module;
 import com.siemens.dls.archiveanalytics.model.Network;
 import com.siemens.dls.archiveanalytics.model.Port;
+import com.siemens.dls.archiveanalytics.parser.CsvLine;
+import com.siemens.dls.archiveanalytics.parser.CsvLineFilter;
 import com.siemens.dls.archiveanalytics.parser.DlsCsvParser;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -78,15 +79,17 @@ public class S3DataLoaderTest {
 
     when(loader.getDlsCsvParser()).thenReturn(parser);
     when(parser.loadPorts(any(), any())).then((Answer<Iterator<Port>>) invocation -> {
-      CsvToBeanFilter filter = invocation.getArgument(1);
-      return ports.stream().filter(p -> filter.allowLine(TestUtils.portToLine(p))).iterator();
+      CsvLineFilter filter = invocation.getArgument(1);
+      return ports.stream().filter(p -> filter.allowLine(CsvLine.of(TestUtils.portToLine(p))))
+          .iterator();
     });
     when(parser.loadModules(any(), any())).then((Answer<Iterator<Module>>) invocation -> {
-      CsvToBeanFilter filter = invocation.getArgument(1);
-      return modules.stream().filter(m -> filter.allowLine(TestUtils.moduleToLine(m))).iterator();
+      CsvLineFilter filter = invocation.getArgument(1);
+      return modules.stream()
+          .filter(m -> filter.allowLine(CsvLine.of(TestUtils.moduleToLine(m)))).iterator();
     });
-    when(loader.getModulesByIdFromS3(any())).thenCallRealMethod();
-    when(loader.streamPortsFromS3(any(), any())).thenCallRealMethod();
+    when(loader.getModulesByIdFromS3(any(CsvLineFilter.class))).thenCallRealMethod();
+    when(loader.streamPortsFromS3(any(CsvLineFilter.class), any())).thenCallRealMethod();
     when(loader.loadNetwork(anyMap())).thenCallRealMethod();
     when(loader.loadNetwork(anyMap(), anyMap())).thenCallRealMethod();
   }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.alertsongate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.ImmutableList;
+import com.siemens.dls.archiveanalytics.model.Alarm;
+import java.time.LocalDateTime;
+import org.junit.Test;
+
+public class AlarmOverlapSweepTest {
+
+  private static final int[] RISING = {1000, 5000, 9000};
+  private static final int[] FALLING = {2000, 5500};
+
+  @Test
+  public void testCountWithinWindow() {
+    // 1500: rose at 1000, still high; 2500: rising edge more than a cycle ago;
+    // 5200: rose at 5000, still high;
+    // 6000: fell at 5500; 9500: rose at 9000 with no falling edge behind it
+    assertEquals(3, AlarmOverlapSweep.countUnchanged(new int[]{1500, 2500, 5200, 6000, 9500},
+        RISING, FALLING, 1000));
+    // 7000 is more than a cycle after the rising edge at 5000
+    assertEquals(0, AlarmOverlapSweep.countUnchanged(new int[]{4999, 7000}, RISING, FALLING,
+        1000));
+  }
+
+  @Test
+  public void testCountUnbounded() {
+    assertEquals(2, AlarmOverlapSweep.countUnchanged(new int[]{500, 1999, 2000, 30000},
+        RISING, FALLING, AlarmOverlapSweep.UNBOUNDED));
+  }
+
+  @Test
+  public void testSameAlarmTwice() {
+    assertEquals(2, AlarmOverlapSweep.countUnchanged(new int[]{1500, 1500}, RISING, FALLING,
+        1000));
+  }
+
+  @Test
+  public void testToSortedMillisOfDay() {
+    assertArrayEquals(new int[]{1000, 3600000},
+        AlarmOverlapSweep.toSortedMillisOfDay(ImmutableList.of(
+            new Alarm().setTime(LocalDateTime.of(2016, 9, 1, 1, 0)),
+            new Alarm().setTime(LocalDateTime.of(2016, 9, 1, 0, 0, 1)))));
+    assertNull(AlarmOverlapSweep.toSortedMillisOfDay(null));
+  }
+}
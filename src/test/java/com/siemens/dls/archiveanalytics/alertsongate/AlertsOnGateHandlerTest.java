@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.alertsongate;
+
+import static com.siemens.dls.archiveanalytics.TestUtils.conn;
+import static com.siemens.dls.archiveanalytics.TestUtils.inPort;
+import static com.siemens.dls.archiveanalytics.TestUtils.outPort;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.google.common.collect.Maps;
+import com.siemens.dls.archiveanalytics.DlsProducerLambdaParams;
+import com.siemens.dls.archiveanalytics.DlsProducerLambdaResult;
+import com.siemens.dls.archiveanalytics.model.Alarm;
+import com.siemens.dls.archiveanalytics.model.Connection;
+import com.siemens.dls.archiveanalytics.model.Module;
+import com.siemens.dls.archiveanalytics.model.Network;
+import com.siemens.dls.archiveanalytics.model.Port;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AlertsOnGateHandlerTest {
+
+  private static final int OUT = 9999;
+  private static final int CHAIN_LENGTH = AlertsOnGateHandler.MAX_DEPTH + 4;
+
+  private final AlertsOnGateHandler sut = new AlertsOnGateHandler(null, null) {
+    @Override
+    public String getUseCase() {
+      return "test";
+    }
+
+    @Override
+    protected DlsProducerLambdaResult handleRequestInternal(DlsProducerLambdaParams params,
+        Context context) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private final Map<Integer, Module> modules = new HashMap<>();
+  private final List<Connection> connections = new ArrayList<>();
+  private final List<Port> ports = new ArrayList<>();
+  private int afiTypeId;
+  private int inA;
+  private int inB;
+  private Network network;
+  private Port start;
+  private Port reasonPort;
+
+  /**
+   * Module 0 raises the alert. Its input A starts a chain of modules longer than
+   * {@link AlertsOnGateHandler#MAX_DEPTH}, its input B leads to the module of the reason. Module 1
+   * is also connected to module 3, which is reached twice, and module 5 to a module whose inputs
+   * are not followed.
+   */
+  @Before
+  public void setUp() {
+    Map.Entry<Integer, List<Integer>> allowed = AlertsOnGateConstants.ALLOWED_INTER_MODULE_PORT_IDS
+        .entrySet().stream()
+        .map(e -> Maps.immutableEntry(e.getKey(),
+            e.getValue().stream().filter(id -> id != OUT).sorted().collect(Collectors.toList())))
+        .filter(e -> e.getValue().size() >= 2)
+        .findFirst().get();
+    afiTypeId = allowed.getKey();
+    inA = allowed.getValue().get(0);
+    inB = allowed.getValue().get(1);
+
+    for (int id = 0; id <= CHAIN_LENGTH; id++) {
+      module(id, afiTypeId);
+    }
+    module(100, afiTypeId);
+    module(200, -1);
+    for (int id = 0; id < CHAIN_LENGTH; id++) {
+      connect(id + 1, id, inA);
+    }
+    connect(100, 0, inB);
+    connect(3, 1, inB);
+    connect(200, 5, inB);
+    connect(0, 200, inA);
+    network = new Network(modules, connections.stream(), ports.stream());
+    start = modules.get(0).getPortById(OUT);
+    reasonPort = modules.get(100).getPortById(OUT);
+  }
+
+  private void module(int id, int afiTypeId) {
+    Module module = new Module().setId(id).setAfiTypeId(afiTypeId);
+    modules.put(id, module);
+    ports.add(outPort(module, OUT));
+    ports.add(inPort(module, inA));
+    ports.add(inPort(module, inB));
+  }
+
+  private void connect(int outModule, int inModule, int inPortId) {
+    connections.add(conn(modules.get(outModule).getPortById(OUT),
+        modules.get(inModule).getPortById(inPortId)));
+  }
+
+  @Test
+  public void testGraphSearchLikePortSearch() {
+    Search portSearch = new Search(null);
+    Search graphSearch = new Search(network);
+
+    assertEquals(portSearch.reasons, graphSearch.reasons);
+    assertEquals(1, graphSearch.reasons.size());
+    assertEquals(portSearch.visits, graphSearch.visits);
+    assertEquals(portSearch.visitedAdjacentMaps, graphSearch.visitedAdjacentMaps);
+
+    Map<Port, Port> visited = graphSearch.visitedAdjacentMaps
+        .get(graphSearch.visitedAdjacentMaps.size() - 1);
+    // module 3 is first found through the input B of module 1, before module 2 is searched
+    assertEquals(modules.get(1).getPortById(OUT), visited.get(modules.get(3).getPortById(OUT)));
+    assertTrue(visited.containsKey(modules.get(200).getPortById(OUT)));
+    assertFalse(visited.containsKey(modules.get(CHAIN_LENGTH).getPortById(OUT)));
+    assertEquals(AlertsOnGateHandler.MAX_DEPTH - 1,
+        (int) graphSearch.visits.get(graphSearch.visits.size() - 1).get(1));
+  }
+
+  /**
+   * Records the filter calls of a search
+   */
+  private class Search implements Function<FilterParams, Optional<AlertsOnGateReason>> {
+
+    private final List<List<Integer>> visits = new ArrayList<>();
+    private final List<Map<Port, Port>> visitedAdjacentMaps = new ArrayList<>();
+    private final List<AlertsOnGateReason> reasons;
+
+    private Search(Network network) {
+      reasons = sut.breadthFirstSearch(
+          Maps.immutableEntry(start, Collections.<Alarm>emptyList()), Collections.emptyMap(),
+          network, this);
+    }
+
+    @Override
+    public Optional<AlertsOnGateReason> apply(FilterParams params) {
+      Port node = params.getCurrentNode();
+      List<Integer> visit = new ArrayList<>();
+      visit.add(node.getAfiId());
+      visit.add(params.getDepth());
+      visits.add(visit);
+      visitedAdjacentMaps.add(new HashMap<>(params.getVisitedAdjacentMap()));
+      if (node.equals(reasonPort)) {
+        return Optional.of(new AlertsOnGateReason(node, node, params.getStartNode(),
+            params.getDepth(), 0, Collections.emptyList()));
+      }
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.alertsongate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.siemens.dls.archiveanalytics.model.Trend;
+import com.siemens.dls.archiveanalytics.model.TrendSeries;
+import java.util.OptionalInt;
+import org.junit.Test;
+
+public class NegationDetectorTest {
+
+  private static final TrendSeries Q = TrendSeries.of(ImmutableList.of(new Trend(0, 192, 0),
+      new Trend(100, 192, 1), new Trend(200, 192, 0)));
+
+  @Test
+  public void testNegation() {
+    TrendSeries qn = TrendSeries.of(ImmutableList.of(new Trend(0, 192, 1),
+        new Trend(100, 192, 0), new Trend(200, 192, 1), new Trend(300, 192, 0)));
+    assertTrue(NegationDetector.isNegation(Q, qn));
+    assertFalse(NegationDetector.isNegation(qn, Q));
+    assertEquals(OptionalInt.of(300), NegationDetector.findFirstNotNegated(qn, Q));
+  }
+
+  @Test
+  public void testFirstNotNegated() {
+    TrendSeries qn = TrendSeries.of(ImmutableList.of(new Trend(0, 192, 1),
+        new Trend(100, 192, 1), new Trend(200, 192, 1)));
+    assertEquals(OptionalInt.of(100), NegationDetector.findFirstNotNegated(Q, qn));
+  }
+
+  @Test
+  public void testUnorderedAndDuplicateTimes() {
+    TrendSeries qn = TrendSeries.of(ImmutableList.of(new Trend(200, 192, 1),
+        new Trend(100, 192, 1), new Trend(100, 192, 0), new Trend(0, 192, 1)));
+    assertTrue(NegationDetector.isNegation(Q, qn));
+  }
+
+  @Test
+  public void testEmptyOutput() {
+    assertTrue(NegationDetector.isNegation(TrendSeries.empty(), Q));
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+public class BinaryTrendTest {
+
+  @Test
+  public void testEdges() {
+    BinaryTrend sut = new BinaryTrend().setTrends(ImmutableList.of(new Trend(0, 192, 0),
+        new Trend(100, 192, 1), new Trend(200, 0, 0), new Trend(300, 192, 0),
+        new Trend(400, 192, 1)));
+    assertArrayEquals(new int[]{100, 400}, sut.getRisingMillis());
+    assertArrayEquals(new int[]{0, 300}, sut.getFallingMillis());
+    assertSame(sut.getRisingMillis(), sut.getRisingMillis());
+  }
+
+  @Test
+  public void testEdgesAreResetWithTrends() {
+    BinaryTrend sut = new BinaryTrend().setTrends(ImmutableList.of(new Trend(100, 192, 1)));
+    assertArrayEquals(new int[]{100}, sut.getRisingMillis());
+    sut.setTrends(ImmutableList.of(new Trend(200, 192, 0), new Trend(300, 192, 1)));
+    assertArrayEquals(new int[]{300}, sut.getRisingMillis());
+    assertArrayEquals(new int[]{200}, sut.getFallingMillis());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class ConnectionIndexTest {
+
+  @Test
+  public void testForEachOut() {
+    ConnectionIndex sut = new ConnectionIndex();
+    long in = PortKey.pack(1, 20);
+    sut.add(in, PortKey.pack(2, 1000));
+    sut.add(in, PortKey.pack(3, 1010));
+    sut.add(in, PortKey.pack(2, 1000));
+    sut.add(PortKey.pack(1, 10), PortKey.pack(2, 1000));
+
+    Set<PortKey> outs = new HashSet<>();
+    sut.forEachOut(in, out -> outs.add(PortKey.fromLong(out)));
+
+    assertEquals(3, sut.size());
+    assertEquals(ImmutableSet.of(new PortKey(2, 1000), new PortKey(3, 1010)), outs);
+  }
+
+  @Test
+  public void testGrow() {
+    ConnectionIndex sut = new ConnectionIndex();
+    for (int i = 0; i < 10000; i++) {
+      sut.add(PortKey.pack(i % 100, i), PortKey.pack(-1, i));
+    }
+    for (int i = 0; i < 10000; i++) {
+      Set<Long> outs = new HashSet<>();
+      sut.forEachOut(PortKey.pack(i % 100, i), outs::add);
+      assertEquals(ImmutableSet.of(PortKey.pack(-1, i)), outs);
+    }
+    assertEquals(10000, sut.size());
+    for (int i = 0; i < 10000; i++) {
+      Set<Long> ins = new HashSet<>();
+      sut.forEachIn(PortKey.pack(-1, i), ins::add);
+      assertEquals(ImmutableSet.of(PortKey.pack(i % 100, i)), ins);
+    }
+  }
+
+  @Test
+  public void testForEachIn() {
+    ConnectionIndex sut = new ConnectionIndex();
+    long out = PortKey.pack(2, 1000);
+    sut.add(PortKey.pack(1, 10), out);
+    sut.add(PortKey.pack(1, 20), out);
+    sut.add(PortKey.pack(1, 30), PortKey.pack(3, 1010));
+
+    Set<PortKey> ins = new HashSet<>();
+    sut.forEachIn(out, in -> ins.add(PortKey.fromLong(in)));
+
+    assertEquals(ImmutableSet.of(new PortKey(1, 10), new PortKey(1, 20)), ins);
+  }
+
+  @Test
+  public void testToMultimap() {
+    ConnectionIndex sut = new ConnectionIndex();
+    sut.add(PortKey.pack(1, 20), PortKey.pack(2, 1000));
+
+    assertEquals(ImmutableSet.of(new Connection(new PortKey(2, 1000), new PortKey(1, 20))),
+        ImmutableSet.copyOf(sut.toMultimap().get(new PortKey(1, 20))));
+  }
+}
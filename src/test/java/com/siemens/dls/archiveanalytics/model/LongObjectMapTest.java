@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+public class LongObjectMapTest {
+
+  @Test
+  public void testPutGet() {
+    LongObjectMap<String> sut = new LongObjectMap<>();
+    assertNull(sut.put(PortKey.pack(1, 10), "a"));
+    assertNull(sut.put(0, "zero"));
+    assertEquals("a", sut.put(PortKey.pack(1, 10), "b"));
+
+    assertEquals(2, sut.size());
+    assertEquals("b", sut.get(PortKey.pack(1, 10)));
+    assertEquals("zero", sut.get(0));
+    assertTrue(sut.containsKey(0));
+    assertFalse(sut.containsKey(PortKey.pack(10, 1)));
+    assertNull(sut.get(PortKey.pack(10, 1)));
+  }
+
+  @Test
+  public void testGrow() {
+    LongObjectMap<Integer> sut = new LongObjectMap<>();
+    for (int i = 0; i < 10000; i++) {
+      sut.put(PortKey.pack(i, -i), i);
+    }
+    assertEquals(10000, sut.size());
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(Integer.valueOf(i), sut.get(PortKey.pack(i, -i)));
+    }
+  }
+
+  @Test
+  public void testUniqueIndex() {
+    Port p1 = new Port().setAfiId(1).setId(10);
+    Port p2 = new Port().setAfiId(1).setId(20);
+    LongObjectMap<Port> sut = LongObjectMap.uniqueIndex(ImmutableList.of(p1, p2),
+        Port::getPackedKey);
+    assertSame(p1, sut.get(PortKey.pack(1, 10)));
+    assertSame(p2, sut.get(p2.getPackedKey()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUniqueIndexDuplicate() {
+    LongObjectMap.uniqueIndex(ImmutableList.of("a", "b"), s -> 1L);
+  }
+}
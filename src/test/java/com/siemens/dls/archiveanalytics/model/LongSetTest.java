@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class LongSetTest {
+
+  @Test
+  public void testAddContains() {
+    LongSet sut = new LongSet();
+    assertTrue(sut.isEmpty());
+    assertTrue(sut.add(PortKey.pack(1, 10)));
+    assertTrue(sut.add(0));
+    assertFalse(sut.add(PortKey.pack(1, 10)));
+    assertFalse(sut.add(0));
+
+    assertEquals(2, sut.size());
+    assertTrue(sut.contains(PortKey.pack(1, 10)));
+    assertTrue(sut.contains(0));
+    assertFalse(sut.contains(PortKey.pack(10, 1)));
+  }
+
+  @Test
+  public void testGrow() {
+    LongSet sut = new LongSet();
+    for (int i = 0; i < 10000; i += 2) {
+      sut.add(PortKey.pack(i, i));
+    }
+    assertEquals(5000, sut.size());
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(i % 2 == 0, sut.contains(PortKey.pack(i, i)));
+    }
+  }
+
+  @Test
+  public void testForEach() {
+    LongSet sut = new LongSet(2);
+    sut.add(0);
+    sut.add(-1);
+    sut.add(42);
+    Set<Long> values = new HashSet<>();
+    sut.forEach(values::add);
+    assertEquals(ImmutableSet.of(0L, -1L, 42L), values);
+  }
+}
@@ -174,4 +174,20 @@ public class ModuleTest {
     Set<Port> portsByIds1 = m.findPortsByIds(98,99);
     assertThat(portsByIds1, empty());
   }
+
+  @Test
+  public void testGetPortByIdUnordered() {
+    Module m = new Module();
+    int[] ids = {1010, 3, 1000, -1, 7, 2, 20, 0, 11};
+    for (int id : ids) {
+      m.addPort(new Port().setId(id).setDirection(id < 1000 ? PortDirection.I : PortDirection.O));
+    }
+    for (int id : ids) {
+      assertEquals(id, m.getPortById(id).getId());
+    }
+    assertNull(m.getPortById(4));
+    assertNull(new Module().getPortById(4));
+    assertEquals(7, m.getInPorts().size());
+    assertEquals(2, m.getOutPorts().size());
+  }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static com.siemens.dls.archiveanalytics.TestUtils.conn;
+import static com.siemens.dls.archiveanalytics.TestUtils.inPort;
+import static com.siemens.dls.archiveanalytics.TestUtils.outPort;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class NetworkGraphTest {
+
+  @Test
+  public void testGraph() {
+    Module m1 = new Module().setId(1).setAfiTypeId(7);
+    Module m2 = new Module().setId(2);
+    Port p1 = inPort(m1, 20);
+    Port p2 = inPort(m1, 10);
+    Port p3 = outPort(m1, 1000);
+    Port p4 = outPort(m2, 1000);
+    Network net = new Network(ImmutableMap.of(1, m1, 2, m2), Stream.of(conn(p4, p1)),
+        Stream.of(p1, p2, p3, p4));
+
+    NetworkGraph sut = net.getGraph();
+
+    assertEquals(4, sut.getPortCount());
+    assertEquals(2, sut.getModuleCount());
+    int in1 = sut.indexOf(p1);
+    int in2 = sut.indexOf(1, 10);
+    int out = sut.indexOf(p4);
+    assertSame(p1, sut.getPort(in1));
+    assertEquals(NetworkGraph.NONE, sut.indexOf(2, 10));
+
+    int module = sut.getModuleOf(in1);
+    assertSame(m1, sut.getModule(module));
+    assertEquals(7, sut.getAfiTypeId(module));
+    assertEquals(2, sut.getInPortCount(module));
+    assertEquals(in1, sut.getInPort(module, 0));
+    assertEquals(in2, sut.getInPort(module, 1));
+    assertEquals(0, sut.getInPortCount(sut.getModuleOf(out)));
+
+    assertEquals(1, sut.getConnectedOutPortCount(in1));
+    assertEquals(out, sut.getConnectedOutPort(in1, 0));
+    assertEquals(out, sut.getConnectedOutPort(in1));
+    assertEquals(NetworkGraph.NONE, sut.getConnectedOutPort(in2));
+    assertEquals(NetworkGraph.NONE, sut.getConnectedOutPort(out));
+  }
+
+  @Test
+  public void testRebuiltAfterExtension() {
+    Module m1 = new Module().setId(1);
+    Port p1 = inPort(m1, 10);
+    Network net = new Network(ImmutableMap.of(1, m1),
+        Stream.of(new Connection(new PortKey(3, 1010), new PortKey(1, 10))), Stream.of(p1));
+    NetworkGraph before = net.getGraph();
+    assertSame(before, net.getGraph());
+
+    Module m3 = new Module().setId(3);
+    Port p2 = outPort(m3, 1010);
+    net.extendWith(ImmutableMap.of(3, m3), Stream.of(p2));
+    NetworkGraph after = net.getGraph();
+
+    assertNotSame(before, after);
+    assertEquals(NetworkGraph.NONE, before.getConnectedOutPort(before.indexOf(p1)));
+    assertEquals(after.indexOf(p2), after.getConnectedOutPort(after.indexOf(p1)));
+  }
+}
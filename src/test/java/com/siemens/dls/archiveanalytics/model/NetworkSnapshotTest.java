@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static com.siemens.dls.archiveanalytics.TestUtils.conn;
+import static com.siemens.dls.archiveanalytics.TestUtils.inPort;
+import static com.siemens.dls.archiveanalytics.TestUtils.outPort;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NetworkSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Module m1 = new Module().setId(1).setAfiTypeId(7).setNode(3).setSymbol("AND")
+        .setName("\u00c4 module");
+    Module m2 = new Module().setId(2).setAfiTypeId(8);
+    Map<Integer, Module> modules = ImmutableMap.of(1, m1, 2, m2);
+    Port p1 = inPort(m1, 10).setAbbrev("IN").setName("IN1").setArchive(true);
+    Port p2 = inPort(m1, 20).setAbbrev("IN").setName("IN2");
+    Port p3 = outPort(m2, 1000).setAbbrev("OUT").setAlarm(true).setAlarmTypeId(4)
+        .setMinValue(-1.5f).setMaxValue(100f).setEngineeringUnit("bar").setUniqueName("X.OUT");
+    p3.setConnAfiId(1);
+    p3.setConnPortId(10);
+    Network network = new Network(modules,
+        Stream.of(conn(p3, p1), new Connection(new PortKey(3, 1010), new PortKey(1, 20))),
+        Stream.of(p1, p2, p3));
+    Path file = folder.getRoot().toPath().resolve("network");
+
+    NetworkSnapshot.write(network, file);
+    Network sut = NetworkSnapshot.read(file);
+
+    assertEquals(modules, sut.getModules());
+    assertEquals("\u00c4 module", sut.getModules().get(1).getName());
+    assertEquals(ImmutableSet.of(p1, p2, p3), sut.getPorts());
+    assertEquals(network.getConnections(), sut.getConnections());
+    Port in1 = sut.getModules().get(1).findPortById(10).get();
+    Port in2 = sut.getModules().get(1).findPortById(20).get();
+    Port out = sut.getModules().get(2).findPortById(1000).get();
+    assertEquals(1, out.getConnAfiId());
+    assertEquals(10, out.getConnPortId());
+    assertEquals(out, in1.getConnectedOutPort().get());
+    assertEquals(ImmutableSet.of(in1), out.getConnectedPorts());
+    assertTrue(in2.isDangling());
+    assertFalse(in1.isDangling());
+    assertEquals(ImmutableSet.of(new PortKey(3, 1010)),
+        sut.getMissingPortKeys(ImmutableSet.of(in2)));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadOtherFile() throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+    NetworkSnapshot.read(file);
+  }
+}
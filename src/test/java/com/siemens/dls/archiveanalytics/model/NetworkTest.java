@@ -13,11 +13,14 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -86,6 +89,55 @@ public class NetworkTest {
     assertTrue(p3.getConnectedOutPort().isPresent());
     assertThat(p3.getConnectedOutPort().get(), is(p4));
   }
+
+  @Test
+  public void testExtendWithRepeatedly() {
+    Module m1 = new Module().setId(1);
+    Module m2 = new Module().setId(2);
+    Port p1 = inPort(m1, 10);
+    Port p2 = outPort(m2, 1000);
+    Network net = new Network(ImmutableMap.of(1, m1, 2, m2),
+        Stream.of(new Connection(new PortKey(3, 1010), new PortKey(1, 10)),
+            new Connection(new PortKey(2, 1000), new PortKey(1, 20))),
+        Stream.of(p1, p2));
+    assertTrue(p1.isConnected());
+    assertFalse(p1.getConnectedOutPort().isPresent());
+
+    // an input port connected to a port loaded before
+    Port p3 = inPort(m1, 20);
+    net.extendWith(ImmutableMap.of(), Stream.of(p3));
+    assertThat(p3.getConnectedOutPort().get(), is(p2));
+
+    // an output port that an input port loaded before has been waiting for
+    Module m3 = new Module().setId(3);
+    Port p4 = outPort(m3, 1010);
+    net.extendWith(ImmutableMap.of(3, m3), Stream.of(p4, p2));
+    assertThat(p1.getConnectedOutPort().get(), is(p4));
+    assertThat(p3.getConnectedOutPort().get(), is(p2));
+    assertEquals(ImmutableSet.of(p1), p4.getConnectedPorts());
+    assertEquals(ImmutableSet.of(p3), p2.getConnectedPorts());
+  }
+
+  @Test
+  public void testExtendWithConnections() {
+    Module m1 = new Module().setId(1);
+    Module m2 = new Module().setId(2);
+    Module m3 = new Module().setId(3);
+    Port p1 = outPort(m1, 1000);
+    Port p2 = inPort(m2, 10);
+    Port p3 = inPort(m3, 10);
+    List<Connection> connections = Arrays.asList(conn(p1, p2), conn(p1, p3));
+    Network net = new Network(ImmutableMap.of(1, m1), connections.stream(), Stream.of(p1));
+
+    // the connections of modules added later have been dropped during creation
+    net.extendWith(ImmutableMap.of(2, m2), Stream.of(p2));
+    assertFalse(p2.isConnected());
+
+    net.extendWith(ImmutableMap.of(3, m3), connections.stream(), Stream.of(p3));
+    assertThat(p3.getConnectedOutPort().get(), is(p1));
+    assertEquals(ImmutableSet.of(p3), p1.getConnectedPorts());
+    assertFalse(p2.isConnected());
+  }
 }
 
 /*
@@ -44,4 +44,17 @@ public class PortKeyTest {
     assertEquals(31 * sut.getAfiId() + sut.getPortId(), sut.hashCode());
     assertEquals("PortKey{afiId=42, portId=1337}", sut.toString());
   }
+
+  @Test
+  public void testPack() {
+    for (PortKey sut : new PortKey[]{new PortKey(42, 1337), new PortKey(-1, 0),
+        new PortKey(0, -1), new PortKey(Integer.MIN_VALUE, Integer.MAX_VALUE)}) {
+      long packed = sut.toLong();
+      assertEquals(PortKey.pack(sut.getAfiId(), sut.getPortId()), packed);
+      assertEquals(sut, PortKey.fromLong(packed));
+      assertEquals(sut.getAfiId(), PortKey.afiIdOf(packed));
+      assertEquals(sut.getPortId(), PortKey.portIdOf(packed));
+    }
+    assertFalse(new PortKey(1, 2).toLong() == new PortKey(2, 1).toLong());
+  }
 }
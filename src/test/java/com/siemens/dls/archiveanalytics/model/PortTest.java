@@ -32,4 +32,35 @@ public class PortTest {
     assertFalse("ports equal", p1.equals(p2));
     assertNotEquals("port hashcodes equal", p1.hashCode(), p2.hashCode());
   }
+
+  @Test
+  public void testAddToConnectedPorts() {
+    Port in1 = new Port().setAfiId(1).setId(10).setDirection(PortDirection.I);
+    Port in2 = new Port().setAfiId(1).setId(20).setDirection(PortDirection.I);
+    Port out1 = new Port().setAfiId(2).setId(1000).setDirection(PortDirection.O);
+    Port out2 = new Port().setAfiId(3).setId(1000).setDirection(PortDirection.O);
+    assertFalse(in1.getConnectedOutPort().isPresent());
+
+    in1.addToConnectedPorts(out1);
+    out1.addToConnectedPorts(in2);
+    out1.addToConnectedPorts(in1);
+    in1.addToConnectedPorts(out2);
+    in1.addToConnectedPorts(in2);
+
+    assertEquals(out1, in1.getConnectedOutPort().get());
+    assertEquals(out1, in2.getConnectedOutPort().get());
+    assertFalse(out1.getConnectedOutPort().isPresent());
+    assertEquals(ImmutableList.of(in1, in2), ImmutableList.copyOf(out1.getConnectedPorts()));
+    assertEquals(ImmutableList.of(out1, out2), ImmutableList.copyOf(in1.getConnectedPorts()));
+    assertTrue(out2.isConnected());
+    assertFalse(in1.isDangling());
+  }
+
+  @Test
+  public void testIsDangling() {
+    Port in = new Port().setDirection(PortDirection.I);
+    assertFalse(in.isDangling());
+    in.markConnected();
+    assertTrue(in.isDangling());
+  }
 }
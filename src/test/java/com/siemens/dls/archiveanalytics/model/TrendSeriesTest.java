@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+
+public class TrendSeriesTest {
+
+  private static final List<Trend> BINARY = ImmutableList.of(new Trend(0, 192, 0),
+      new Trend(100, 0, 1), new Trend(200, 192, 1), new Trend(300, 64, 0));
+
+  @Test
+  public void testOfAndToList() {
+    TrendSeries sut = TrendSeries.of(BINARY);
+    assertEquals(4, sut.size());
+    assertEquals(new Trend(200, 192, 1), sut.get(2));
+    assertEquals(BINARY, sut.toList());
+  }
+
+  @Test
+  public void testWithQualityAtLeast() {
+    TrendSeries sut = TrendSeries.of(BINARY);
+    TrendSeries accepted = sut.withQualityAtLeast(AbstractTrend.NOT_BAD_QUALITY_THRESHOLD);
+    assertEquals(ImmutableList.of(BINARY.get(0), BINARY.get(2), BINARY.get(3)), accepted.toList());
+    assertSame(accepted, accepted.withQualityAtLeast(AbstractTrend.NOT_BAD_QUALITY_THRESHOLD));
+  }
+
+  @Test
+  public void testCompactBinary() {
+    TrendSeries sut = TrendSeries.of(BINARY);
+    TrendSeries compact = sut.compactBinary();
+    assertNotSame(sut, compact);
+    assertEquals(sut, compact);
+    assertEquals(sut.hashCode(), compact.hashCode());
+    assertEquals(1d, compact.getValue(1), 0);
+    assertEquals(ImmutableList.of(BINARY.get(0), BINARY.get(2), BINARY.get(3)),
+        compact.withQualityAtLeast(AbstractTrend.NOT_BAD_QUALITY_THRESHOLD).toList());
+  }
+
+  @Test
+  public void testCompactBinaryKeepsOtherValues() {
+    TrendSeries sut = TrendSeries.of(ImmutableList.of(new Trend(0, 192, 1), new Trend(1, 192, 2)));
+    assertEquals(2d, sut.compactBinary().getValue(1), 0);
+  }
+
+  @Test
+  public void testTrimmed() {
+    TrendSeries sut = new TrendSeries(new int[]{1, 2, 0}, new short[]{192, 192, 0},
+        new double[]{.5, 1.5, 0}, 2);
+    TrendSeries trimmed = sut.trimmed();
+    assertEquals(sut, trimmed);
+    assertSame(trimmed, trimmed.trimmed());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testIndexBehindSize() {
+    new TrendSeries(new int[2], new short[2], new double[2], 1).getMillis(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testQualityOutOfRange() {
+    TrendSeries.of(ImmutableList.of(new Trend(0, 1 << 16, 0)));
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TrendWindowIndexTest {
+
+  private final TrendWindowIndex sut = new TrendWindowIndex(new int[]{100, 200, 200, 300});
+
+  @Test
+  public void testLastAtOrBefore() {
+    assertEquals(TrendWindowIndex.NOT_FOUND, sut.lastAtOrBefore(99));
+    assertEquals(0, sut.lastAtOrBefore(100));
+    assertEquals(2, sut.lastAtOrBefore(250));
+    assertEquals(3, sut.lastAtOrBefore(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void testFirstAfter() {
+    assertEquals(0, sut.firstAfter(Integer.MIN_VALUE));
+    assertEquals(1, sut.firstAfter(100));
+    assertEquals(3, sut.firstAfter(200));
+    assertEquals(sut.size(), sut.firstAfter(300));
+  }
+
+  @Test
+  public void testLastInRange() {
+    assertEquals(2, sut.lastInRange(150, 250));
+    assertEquals(TrendWindowIndex.NOT_FOUND, sut.lastInRange(201, 299));
+  }
+
+  @Test
+  public void testCountInRange() {
+    assertEquals(4, sut.countInRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    assertEquals(2, sut.countInRange(200, 200));
+    assertEquals(3, sut.countInRange(101, 300));
+    assertEquals(0, sut.countInRange(300, 200));
+  }
+
+  @Test
+  public void testEmpty() {
+    TrendWindowIndex empty = new TrendWindowIndex(new int[0]);
+    assertEquals(TrendWindowIndex.NOT_FOUND, empty.lastAtOrBefore(0));
+    assertEquals(0, empty.firstAfter(0));
+    assertEquals(0, empty.countInRange(0, 1));
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.io.CharStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class ByteDecodingReaderTest {
+
+  private static final String TEXT = "CT901|\u00B5;F\u00FCllstand 30 \u00B0C;\uD83D\uDE00;end\n";
+
+  private static String read(byte[] bytes, Charset charset, int bufferSize) throws IOException {
+    return CharStreams.toString(
+        ByteDecodingReader.of(new ByteArrayInputStream(bytes), charset, bufferSize));
+  }
+
+  @Test
+  public void testUtf8() throws IOException {
+    byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+    // tiny buffers split the multi-byte sequences
+    for (int bufferSize = 1; bufferSize < 8; bufferSize++) {
+      assertEquals(TEXT, read(bytes, StandardCharsets.UTF_8, bufferSize));
+    }
+  }
+
+  @Test
+  public void testIsoLatin1() throws IOException {
+    String text = "F\u00FCllstand 30 \u00B0C\n";
+    assertEquals(text, read(text.getBytes(StandardCharsets.ISO_8859_1),
+        StandardCharsets.ISO_8859_1, 3));
+  }
+
+  @Test
+  public void testMalformedUtf8IsReplacedLikeInputStreamReader() throws IOException {
+    byte[] bytes = {'a', (byte) 0xC3, 'b', (byte) 0xE2, (byte) 0x82, (byte) 0xED, (byte) 0xA0,
+        (byte) 0x80, (byte) 0xFF, (byte) 0xF0, (byte) 0x9F};
+    String expected = CharStreams.toString(
+        new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+    assertEquals(expected, read(bytes, StandardCharsets.UTF_8, 4));
+  }
+
+  @Test
+  public void testOtherCharsets() {
+    Reader reader = ByteDecodingReader.of(new ByteArrayInputStream(new byte[0]),
+        StandardCharsets.UTF_16);
+    assertTrue(reader instanceof InputStreamReader);
+  }
+}
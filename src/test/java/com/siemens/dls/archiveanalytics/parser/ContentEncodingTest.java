@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+public class ContentEncodingTest {
+
+  @Test
+  public void testOfKey() {
+    assertEquals(ContentEncoding.IDENTITY, ContentEncoding.of("eng/Ports.csv", null));
+    assertEquals(ContentEncoding.GZIP, ContentEncoding.of("eng/Ports.csv.gz", null));
+    assertEquals(ContentEncoding.ZSTD, ContentEncoding.of("eng/Ports.CSV.ZST", null));
+  }
+
+  @Test
+  public void testOfMetadata() {
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentEncoding("gzip");
+    assertEquals(ContentEncoding.GZIP, ContentEncoding.of("eng/Ports.csv", metadata));
+    metadata.setContentEncoding("identity");
+    assertEquals(ContentEncoding.ZSTD, ContentEncoding.of("eng/Ports.csv.zst", metadata));
+  }
+
+  @Test
+  public void testDecodeGzip() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write("id;name\n1;first\n".getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] content = ByteStreams.toByteArray(ContentEncoding.GZIP
+        .decode(new ByteArrayInputStream(compressed.toByteArray())));
+    assertEquals("id;name\n1;first\n", new String(content, StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.siemens.dls.archiveanalytics.model.PortDirection;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.junit.Test;
+
+public class CsvFieldDecoderTest {
+
+  private static final String[] NUMBERS = {"", "-", "+", ".", "0", "-0", "-0.0", "17", "+17",
+      "-2147483648", "2147483647", "2147483648", "1.", ".5", "1e5", "1E-5", "1e", "12.5e-3",
+      "1.5f", " 1", "NaN", "-Infinity", "16777217", "1.23456789", "0.1", "99999.99", "1..2", "x"};
+
+  @Test
+  public void testNumbersLikeNumberUtils() {
+    for (String number : NUMBERS) {
+      CsvLine line = CsvLine.of("a", number, "b");
+      assertEquals(number, NumberUtils.toInt(number), line.getInt(1));
+      assertEquals(number, Float.floatToIntBits(NumberUtils.toFloat(number)),
+          Float.floatToIntBits(line.getFloat(1)));
+      assertEquals(number, Double.doubleToLongBits(NumberUtils.toDouble(number)),
+          Double.doubleToLongBits(line.getDouble(1)));
+    }
+  }
+
+  @Test
+  public void testToBoolean() {
+    CsvLine line = CsvLine.of("X", "", "x", "XX");
+    assertTrue(CsvFieldDecoder.toBoolean(line, 0));
+    assertFalse(CsvFieldDecoder.toBoolean(line, 1));
+    assertFalse(CsvFieldDecoder.toBoolean(line, 2));
+    assertFalse(CsvFieldDecoder.toBoolean(line, 3));
+  }
+
+  @Test
+  public void testToFlag() {
+    CsvLine line = CsvLine.of("1", "0", "", "TRUE", "2");
+    assertTrue(CsvFieldDecoder.toFlag(line, 0));
+    assertFalse(CsvFieldDecoder.toFlag(line, 1));
+    assertFalse(CsvFieldDecoder.toFlag(line, 2));
+    assertTrue(CsvFieldDecoder.toFlag(line, 3));
+    assertFalse(CsvFieldDecoder.toFlag(line, 4));
+  }
+
+  @Test
+  public void testToLocalDateTime() {
+    CsvLine line = CsvLine.of("2016.09.01 00:03:36.296", "2016.02.30 12:00:00.000");
+    assertEquals(LocalDateTime.of(2016, 9, 1, 0, 3, 36, 296000000),
+        CsvFieldDecoder.toLocalDateTime(line, 0));
+    // resolved by the formatter like before
+    assertEquals(LocalDateTime.of(2016, 2, 29, 12, 0),
+        CsvFieldDecoder.toLocalDateTime(line, 1));
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testToLocalDateTimeInvalid() {
+    CsvFieldDecoder.toLocalDateTime(CsvLine.of("2016.09.01 24:03:36.296"), 0);
+  }
+
+  @Test
+  public void testToPortDirection() {
+    CsvLine line = CsvLine.of("I", "O");
+    assertEquals(PortDirection.I, CsvFieldDecoder.toPortDirection(line, 0));
+    assertEquals(PortDirection.O, CsvFieldDecoder.toPortDirection(line, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testToPortDirectionInvalid() {
+    CsvFieldDecoder.toPortDirection(CsvLine.of("IO"), 0);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CsvScanTest {
+
+  private static final String CSV = "id;name;type;unit;description\n"
+      + "1;a;O;bar;first\n"
+      + "2;b;I;;second\n"
+      + "3;c;O;;third\n"
+      + "4;d;O\n";
+
+  private static final S3Reader READER = new S3Reader(null, "bucket", "key") {
+    @Override
+    public Reader getReader() {
+      return new StringReader(CSV);
+    }
+  };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final CsvScan sut = new CsvScan(READER, new DlsCsvParser());
+
+  @Test
+  public void testSubscribe() throws IOException {
+    Supplier<List<String>> names = sut.subscribe(null, line -> line.getString(1));
+    Supplier<List<Integer>> inputs = sut.subscribe(
+        ProjectedFilter.of(line -> line.contentEquals(2, "I"), 2), line -> line.getInt(0));
+    sut.run();
+
+    assertEquals(ImmutableList.of("a", "b", "c", "d"), names.get());
+    assertEquals(ImmutableList.of(2), inputs.get());
+  }
+
+  @Test
+  public void testDefer() throws IOException {
+    Supplier<List<Integer>> inputs = sut.subscribe(
+        ProjectedFilter.of(line -> line.contentEquals(2, "I"), 2), line -> line.getInt(0));
+    CsvScan.Deferred outputs = sut
+        .defer(ProjectedFilter.of(line -> line.contentEquals(2, "O"), 2), 0, 2, 3);
+    sut.run();
+
+    // the second phase depends on the result of the first one
+    int minId = inputs.get().get(0);
+    assertEquals(ImmutableList.of("3;O;", "4;O;-"), outputs.select(
+        ProjectedFilter.of(line -> line.getInt(0) > minId, 0),
+        line -> line.getInt(0) + ";" + line.getString(2) + ";"
+            + (line.hasColumn(3) ? line.getString(3) : "-")));
+    assertEquals(ImmutableList.of("1;;O;bar", "3;;O;;-", "4;;O"),
+        outputs.select(null, CsvLine::toString));
+    sut.close();
+  }
+
+  @Test
+  public void testFiltersOncePerLine() throws IOException {
+    AtomicInteger inputFilterCalls = new AtomicInteger();
+    AtomicInteger outputFilterCalls = new AtomicInteger();
+    Supplier<List<Integer>> inputs = sut.subscribe(ProjectedFilter.of(line -> {
+      inputFilterCalls.incrementAndGet();
+      return line.contentEquals(2, "I");
+    }, 2), line -> line.getInt(0));
+    CsvScan.Deferred outputs = sut.defer(ProjectedFilter.of(line -> {
+      outputFilterCalls.incrementAndGet();
+      return line.contentEquals(2, "O");
+    }, 2), 0);
+    sut.run();
+
+    assertEquals(ImmutableList.of(2), inputs.get());
+    assertEquals(ImmutableList.of(1, 3, 4), outputs.select(null, line -> line.getInt(0)));
+    assertEquals(4, inputFilterCalls.get());
+    assertEquals(4, outputFilterCalls.get());
+    sut.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testDeferredConsumerFails() throws IOException {
+    File missing = new File(folder.getRoot(), "missing");
+    CsvScan scan = new CsvScan(READER, new DlsCsvParser(), missing.toPath());
+    Supplier<List<Integer>> inputs = scan.subscribe(
+        ProjectedFilter.of(line -> line.contentEquals(2, "I"), 2), line -> line.getInt(0));
+    CsvScan.Deferred outputs = scan
+        .defer(ProjectedFilter.of(line -> line.contentEquals(2, "O"), 2), 0);
+    scan.run();
+
+    // the other consumers still get their results
+    assertEquals(ImmutableList.of(2), inputs.get());
+    outputs.select(null, line -> line.getInt(0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testResultsBeforeRun() {
+    sut.subscribe(null, line -> line.getString(1)).get();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSubscribeAfterRun() throws IOException {
+    sut.run();
+    sut.subscribe(null, line -> line.getString(1));
+  }
+}
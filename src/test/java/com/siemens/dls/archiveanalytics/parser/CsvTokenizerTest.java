@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class CsvTokenizerTest {
+
+  private static final String CSV = "h1;h2;h3\n"
+      + "337428;10;IN1\n"
+      + "\n"
+      + "337428;;X;;\r\n"
+      + "last;line";
+
+  @Test
+  public void testNextSplitsLikeStringSplit() throws IOException {
+    CsvTokenizer sut = new CsvTokenizer(new StringReader(CSV), ';', 16);
+    sut.skipLines(1);
+    assertThat(sut.next().toArray(), arrayContaining("337428", "10", "IN1"));
+    assertThat(sut.next().toArray(), arrayContaining(""));
+    CsvLine line = sut.next();
+    assertEquals(3, line.size());
+    assertThat(line.toArray(), arrayContaining("337428", "", "X"));
+    assertThat(sut.next().toArray(), arrayContaining("last", "line"));
+    assertThat(sut.next(), nullValue());
+  }
+
+  @Test
+  public void testFieldViews() throws IOException {
+    CsvTokenizer sut = new CsvTokenizer(new StringReader(CSV), ';');
+    sut.skipLines(1);
+    CsvLine line = sut.next();
+    assertEquals(6, line.length(0));
+    assertEquals('I', line.charAt(2, 0));
+    assertTrue(line.contentEquals(2, "IN1"));
+    assertFalse(line.contentEquals(2, "IN2"));
+    assertThat(line.get(1).toString(), equalTo("10"));
+    assertThat(line.getString(0), equalTo("337428"));
+  }
+
+  @Test
+  public void testLinesLongerThanBuffer() throws IOException {
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      csv.append(i).append(';');
+    }
+    csv.append("end\nnext\n");
+    CsvTokenizer sut = new CsvTokenizer(new StringReader(csv.toString()), ';', 16);
+    CsvLine line = sut.next();
+    assertEquals(1001, line.size());
+    assertThat(line.getString(999), equalTo("999"));
+    assertThat(line.getString(1000), equalTo("end"));
+    assertThat(sut.next().getString(0), equalTo("next"));
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testMissingColumn() throws IOException {
+    CsvTokenizer sut = new CsvTokenizer(new StringReader(CSV), ';');
+    sut.skipLines(1);
+    sut.next().getString(3);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.CharStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskEngineeringDataCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final AmazonS3 client = mock(AmazonS3.class);
+  private String content;
+  private String eTag;
+  private DiskEngineeringDataCache sut;
+
+  @Before
+  public void setUp() {
+    sut = new DiskEngineeringDataCache(folder.getRoot().toPath().resolve("eng"));
+    when(client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+      GetObjectRequest request = invocation.getArgument(0);
+      if (request.getNonmatchingETagConstraints().contains(eTag)) {
+        return null;
+      }
+      S3Object object = new S3Object();
+      ObjectMetadata metadata = new ObjectMetadata();
+      metadata.setHeader("ETag", eTag);
+      object.setObjectMetadata(metadata);
+      object.setObjectContent(
+          new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+      return object;
+    });
+  }
+
+  private String read() throws IOException {
+    return CharStreams.toString(sut.getReader(client, "bucket", "eng/Ports.csv").getReader());
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath().resolve("eng"))) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void testServesUnchangedObjectFromDisk() throws IOException {
+    content = "afiid;portid\n1;10\n";
+    eTag = "\"1\"";
+    assertEquals(content, read());
+    assertEquals(1, countFiles());
+    assertEquals(content, read());
+    verify(client, times(2)).getObject(any(GetObjectRequest.class));
+  }
+
+  @Test
+  public void testReplacesChangedObject() throws IOException {
+    content = "afiid;portid\n1;10\n";
+    eTag = "\"1\"";
+    assertEquals(content, read());
+    content = "afiid;portid\n2;20\n";
+    eTag = "\"2\"";
+    assertEquals(content, read());
+    assertEquals(content, read());
+    assertEquals(1, countFiles());
+  }
+
+  @Test
+  public void testServesUnchangedObjectInChunks() throws IOException {
+    content = "afiid;portid\n1;10\n2;20\n3;30\n4;40\n";
+    eTag = "\"1\"";
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      for (int i = 0; i < 2; i++) {
+        S3Reader reader = sut.getParallelReader(client, "bucket", "eng/Ports.csv", pool, 8, 2);
+        assertEquals(content, CharStreams.toString(reader.getReader()));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, countFiles());
+    verify(client, times(2)).getObject(any(GetObjectRequest.class));
+  }
+}
@@ -1,25 +1,37 @@
 package com.siemens.dls.archiveanalytics.parser;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
 import com.siemens.dls.archiveanalytics.model.Alarm;
+import com.siemens.dls.archiveanalytics.model.AlarmType;
 import com.siemens.dls.archiveanalytics.model.AnalogTrend;
 import com.siemens.dls.archiveanalytics.model.Connection;
 import com.siemens.dls.archiveanalytics.model.Module;
+import com.siemens.dls.archiveanalytics.model.OperatorAction;
 import com.siemens.dls.archiveanalytics.model.Port;
 import com.siemens.dls.archiveanalytics.model.PortDirection;
 import com.siemens.dls.archiveanalytics.model.PortKey;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.commons.collections.IteratorUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -129,6 +141,52 @@ public class DlsCsvParserTest {
     assertEquals(connections, c);
   }
 
+  @Test
+  public void testLoadConnectionsInParallel() throws IOException {
+    S3Reader sequentialReader = mock(S3Reader.class);
+    when(sequentialReader.getReader()).thenReturn(new StringReader(CONNECTIONS_CSV));
+    List<Connection> expected = IteratorUtils
+        .toList(parser.loadConnections(sequentialReader, null));
+    assertThat(expected, hasSize(9));
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      S3Reader s3Reader = new ParallelRangeS3ReaderStub(CONNECTIONS_CSV).reader(pool, 50);
+      assertEquals(expected, IteratorUtils.toList(parser.loadConnections(s3Reader, null)));
+      List<Connection> unordered = IteratorUtils
+          .toList(new DlsCsvParser(false).loadConnections(s3Reader, null));
+      assertThat(unordered, containsInAnyOrder(expected.toArray()));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Serves a CSV from a mocked {@link AmazonS3}, including ranged GETs
+   */
+  private static class ParallelRangeS3ReaderStub {
+
+    private final AmazonS3 client = mock(AmazonS3.class);
+
+    private ParallelRangeS3ReaderStub(String csv) {
+      byte[] data = csv.getBytes(StandardCharsets.UTF_8);
+      ObjectMetadata metadata = new ObjectMetadata();
+      metadata.setContentLength(data.length);
+      when(client.getObjectMetadata("bucket", "key")).thenReturn(metadata);
+      when(client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+        GetObjectRequest request = invocation.getArgument(0);
+        long[] range = request.getRange();
+        S3Object object = new S3Object();
+        object.setObjectContent(new ByteArrayInputStream(Arrays.copyOfRange(data,
+            (int) range[0], (int) Math.min(range[1], data.length - 1) + 1)));
+        return object;
+      });
+    }
+
+    private ParallelRangeS3Reader reader(ForkJoinPool pool, int chunkSize) {
+      return new ParallelRangeS3Reader(client, "bucket", "key", pool, chunkSize, 2);
+    }
+  }
+
   @Test
   public void testLoadTrends() throws IOException {
     S3Reader s3Reader = mock(S3Reader.class);
@@ -157,6 +215,56 @@ public class DlsCsvParserTest {
     assertEquals(exp2, alarms.get(6));
   }
 
+  @Test
+  public void testLoadWithEmptyTrailingFields() {
+    S3Reader alarmReader = mock(S3Reader.class);
+    when(alarmReader.getReader()).thenReturn(new StringReader(
+        "Client;Time;Quality;TagName;AlarmType;Suppressed;Auto-Supprssed;Disp-Suppressed;Duration;TimeToNext;\n"
+            + "T0003;2016.09.01 00:03:36.296;192;10PGB20CP001||ZV52;5;0;0;0;;\n"));
+    List<Alarm> alarms = IteratorUtils.toList(parser.loadAlarms(alarmReader, null));
+    assertEquals(Arrays.asList(new Alarm().setTime(LocalDateTime.of(2016, 9, 1, 0, 3, 36, 296000000))
+        .setQuality(192).setTagname("10PGB20CP001||ZV52").setAlarmTypeId(5)), alarms);
+
+    S3Reader alarmTypeReader = mock(S3Reader.class);
+    when(alarmTypeReader.getReader()).thenReturn(new StringReader("id;abbrev\n7;\n8;HH\n"));
+    List<AlarmType> alarmTypes = IteratorUtils.toList(parser.loadAlarmTypes(alarmTypeReader));
+    assertEquals(Arrays.asList(new AlarmType().setId(7), new AlarmType().setId(8).setAbbrev("HH")),
+        alarmTypes);
+
+    S3Reader operatorActionReader = mock(S3Reader.class);
+    when(operatorActionReader.getReader()).thenReturn(new StringReader(
+        "Client;Time;Quality;Value;TagName;Afi;Kind\n"
+            + "12;2016.09.01 00:03:36.296;192;1.5;10PGB20CP001||ZV52;;\n"));
+    List<OperatorAction> operatorActions = IteratorUtils
+        .toList(parser.loadOperatorActions(operatorActionReader, null));
+    assertThat(operatorActions, hasSize(1));
+    assertEquals(12, operatorActions.get(0).getId());
+    assertEquals(1.5, operatorActions.get(0).getValue(), 0);
+    assertEquals(null, operatorActions.get(0).getAfi());
+    assertEquals(null, operatorActions.get(0).getKind());
+  }
+
+  @Test(expected = WrappedException.class)
+  public void testLoadAlarmsWithMalformedFields() {
+    S3Reader s3Reader = mock(S3Reader.class);
+    when(s3Reader.getReader()).thenReturn(new StringReader(
+        "Client;Time;Quality;TagName;AlarmType;Suppressed;Auto-Supprssed;Disp-Suppressed;Duration;TimeToNext;\n"
+            + "T0003;2016.09.01 00:03:36.296;192;10PGB20CP001||ZV52;5;1;off;;60;\n"
+            + "T0003;2016.09.01 00:03:37.296;192;10PGB20CP001||ZV52;x5;1;0;;60;\n"));
+    Iterator<Alarm> alarms = parser.loadAlarms(s3Reader, null);
+    // empty fields fall back to their defaults
+    assertEquals(new Alarm().setTime(LocalDateTime.of(2016, 9, 1, 0, 3, 36, 296000000))
+        .setQuality(192).setTagname("10PGB20CP001||ZV52").setAlarmTypeId(5).setSuppressed(true)
+        .setDuration(60), alarms.next());
+    try {
+      alarms.next();
+    } catch (WrappedException e) {
+      assertThat(e.getMessage(), containsString("column " + Alarm.ALARM_TYPE_ID_COLUMN_INDEX));
+      assertThat(e.getMessage(), containsString("2016.09.01 00:03:37.296"));
+      throw e;
+    }
+  }
+
   private static final String CONNECTIONS_CSV = "afiid1;portid1;portname1;type1;afiid2;portid2;portname2;type2;\n"
       + "337428;180;Y;float;341018;10;IN;float;\n"
       + "337428;190;Y OK;bool;484103;30;IN3;bool;\n"
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class FieldSetTest {
+
+  @Test
+  public void testContains() throws IOException {
+    FieldSet sut = FieldSet.of(Arrays.asList("PLANT.A", "PLANT.B", "", null, "PLANT.A"));
+    CsvTokenizer tokenizer = new CsvTokenizer(
+        new StringReader("1;PLANT.A;x\n2;PLANT.C\n3;;y\n4;PLANT.AB\n5;PLANT.B"), ';');
+    List<Boolean> contained = new ArrayList<>();
+    for (CsvLine line = tokenizer.next(); line != null; line = tokenizer.next()) {
+      contained.add(sut.contains(line, 1));
+    }
+
+    assertEquals(3, sut.size());
+    assertEquals(ImmutableList.of(true, false, true, false, true), contained);
+  }
+
+  @Test
+  public void testHashCollision() {
+    // "Aa" and "BB" have the same String.hashCode
+    FieldSet sut = FieldSet.of(ImmutableList.of("Aa"));
+    assertTrue(sut.contains(CsvLine.of("Aa"), 0));
+    assertFalse(sut.contains(CsvLine.of("BB"), 0));
+  }
+
+  @Test
+  public void testManyValues() {
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i += 2) {
+      values.add("TAG" + i);
+    }
+    FieldSet sut = FieldSet.of(values);
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(i % 2 == 0, sut.contains(CsvLine.of("1", "TAG" + i), 1));
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    assertFalse(FieldSet.of(ImmutableList.of()).contains(CsvLine.of("1", "TAG"), 1));
+  }
+
+  @Test
+  public void testFilter() {
+    ProjectedFilter sut = FieldSet.of(ImmutableList.of("TAG")).filter(1);
+    assertArrayEquals(new int[]{1}, sut.getColumns());
+    assertTrue(sut.allowLine(CsvLine.of("1", "TAG", "x")));
+    assertFalse(sut.allowLine(CsvLine.of("1", "TAG2", "x")));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Test;
+
+public class LineIndexTest {
+
+  private static final String CSV = "id;tagname;values\n"
+      + "1;b;x\n"
+      + "2;b;y\n"
+      + "3;a;z\n"
+      + "4\n"
+      + "5;c\r\n"
+      + "6;b;w";
+  private static final byte[] DATA = CSV.getBytes(StandardCharsets.UTF_8);
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testRanges() throws IOException {
+    LineIndex sut = LineIndex.build(new ByteArrayInputStream(DATA), 1, StandardCharsets.UTF_8,
+        "etag");
+
+    assertEquals("etag", sut.getETag());
+    assertEquals(ImmutableList.of(range("id;", "3;"), range("6;", null)),
+        sut.ranges(ImmutableList.of("b", "unknown"), 0, Long.MAX_VALUE));
+    assertEquals(ImmutableList.of(range("id;", "1;"), range("3;", "4\n"), range("5;", "6;")),
+        sut.ranges(ImmutableList.of("a", "c"), 0, Long.MAX_VALUE));
+    // the line of 4 is in the gap, joining the others would exceed the length
+    assertEquals(ImmutableList.of(range("id;", "1;"), range("1;", "3;"), range("3;", "6;"),
+        range("6;", null)),
+        sut.ranges(ImmutableList.of("a", "b", "c"), 2, CSV.indexOf("6;") - CSV.indexOf("3;")));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    LineIndex index = LineIndex.build(new ByteArrayInputStream(DATA), 0, StandardCharsets.UTF_8,
+        "etag");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.write(out);
+
+    LineIndex sut = LineIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+    assertEquals("etag", sut.getETag());
+    List<String> keys = ImmutableList.of("2", "4", "5");
+    assertEquals(index.ranges(keys, 0, Long.MAX_VALUE), sut.ranges(keys, 0, Long.MAX_VALUE));
+    assertEquals(ImmutableList.of(range("id;", "1;"), range("5;", "6;")),
+        sut.ranges(ImmutableList.of("5"), 0, Long.MAX_VALUE));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadOtherObject() throws IOException {
+    LineIndex.read(new ByteArrayInputStream(DATA));
+  }
+
+  @Test
+  public void testIndexedS3Reader() throws IOException {
+    AmazonS3 client = mock(AmazonS3.class);
+    when(client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+      GetObjectRequest request = invocation.getArgument(0);
+      assertTrue(request.getMatchingETagConstraints().contains("etag"));
+      long[] range = request.getRange();
+      S3Object object = new S3Object();
+      object.setObjectContent(new ByteArrayInputStream(
+          Arrays.copyOfRange(DATA, (int) range[0], (int) range[1] + 1)));
+      return object;
+    });
+    LineIndex index = LineIndex.build(new ByteArrayInputStream(DATA), 1, StandardCharsets.UTF_8,
+        "etag");
+    IndexedS3Reader sut = new IndexedS3Reader(client, "bucket", "key", executor, 1,
+        index.ranges(ImmutableList.of("a", "c"), 0, Long.MAX_VALUE), "etag");
+
+    assertEquals("id;tagname;values\n3;a;z\n5;c\r\n", CharStreams.toString(sut.getReader()));
+  }
+
+  /**
+   * @return the range from the line that starts with from to the line that starts with to or the
+   * end of the file
+   */
+  private static LineIndex.Range range(String from, String to) {
+    return new LineIndex.Range(CSV.indexOf(from), to == null ? DATA.length : CSV.indexOf(to));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.CharStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelRangeS3ReaderTest {
+
+  private static final String CSV = "id;name\n1;first\n22;second\n\n333;a much longer third\n4;x";
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+  private AmazonS3 client;
+
+  @Before
+  public void setUp() {
+    byte[] data = CSV.getBytes(StandardCharsets.UTF_8);
+    client = mock(AmazonS3.class);
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(data.length);
+    when(client.getObjectMetadata("bucket", "key")).thenReturn(metadata);
+    when(client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+      GetObjectRequest request = invocation.getArgument(0);
+      long[] range = request.getRange();
+      int to = (int) Math.min(range[1], data.length - 1);
+      S3Object object = new S3Object();
+      object.setObjectContent(
+          new ByteArrayInputStream(Arrays.copyOfRange(data, (int) range[0], to + 1)));
+      return object;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testGetReader() throws IOException {
+    for (int chunkSize = 1; chunkSize <= CSV.length() + 1; chunkSize++) {
+      ParallelRangeS3Reader sut = new ParallelRangeS3Reader(client, "bucket", "key", executor,
+          chunkSize, 2);
+      assertEquals(CSV, CharStreams.toString(sut.getReader()));
+    }
+  }
+
+  @Test
+  public void testUnorderedChunksAreCompleteLines() {
+    ParallelRangeS3Reader sut = new ParallelRangeS3Reader(client, "bucket", "key", executor, 5,
+        3);
+    List<LineChunk> chunks = new ArrayList<>();
+    sut.chunks(false).forEachRemaining(chunks::add);
+    chunks.sort(Comparator.comparingInt(LineChunk::getIndex));
+    StringBuilder lines = new StringBuilder();
+    for (LineChunk chunk : chunks) {
+      String text = new String(chunk.getBytes(), chunk.getOffset(), chunk.getLength(),
+          StandardCharsets.UTF_8);
+      assertTrue(text, text.isEmpty() || text.endsWith("\n") || CSV.endsWith(text));
+      lines.append(text);
+    }
+    assertEquals(CSV, lines.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testChunkSizeMustBePositive() {
+    new ParallelRangeS3Reader(client, "bucket", "key", executor, 0, 1);
+  }
+}
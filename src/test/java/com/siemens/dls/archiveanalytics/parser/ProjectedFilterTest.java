@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class ProjectedFilterTest {
+
+  @Test
+  public void testFilterOnDeclaredColumns() throws IOException {
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("337428;10;IN1\n-12;x;IN2"), ';');
+    CsvLineFilter sut = ProjectedFilter.of(line -> line.getInt(0) > 0, 0);
+    CsvLine line = tokenizer.next();
+    assertTrue(sut.allowLine(line));
+    assertEquals(3, line.size());
+    assertFalse(sut.allowLine(tokenizer.next()));
+  }
+
+  @Test
+  public void testHasColumnDoesNotNeedSize() throws IOException {
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("1;;;\n1;;;4"), ';');
+    CsvLineFilter sut = ProjectedFilter.of(line -> line.hasColumn(2), 2);
+    assertFalse(sut.allowLine(tokenizer.next()));
+    assertTrue(sut.allowLine(tokenizer.next()));
+  }
+
+  @Test
+  public void testAnd() {
+    CsvLineFilter sut = ProjectedFilter.of(line -> line.getInt(0) == 1, 0)
+        .and(line -> line.contentEquals(2, "IN1"));
+    assertTrue(sut.allowLine(CsvLine.of("1", "10", "IN1")));
+    assertFalse(sut.allowLine(CsvLine.of("1", "10", "IN2")));
+    assertFalse(sut.allowLine(CsvLine.of("2", "10", "IN1")));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUndeclaredColumn() {
+    ProjectedFilter.of(line -> line.getInt(1) == 10, 0).allowLine(CsvLine.of("1", "10"));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) Siemens AG 2018 ALL RIGHTS RESERVED.
+ *
+ * Digital Lifecycle Service (DLS)
+ */
+
+package com.siemens.dls.archiveanalytics.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.opencsv.exceptions.CsvDataTypeMismatchException;
+import com.siemens.dls.archiveanalytics.model.Trend;
+import com.siemens.dls.archiveanalytics.model.TrendSeries;
+import org.junit.Test;
+
+public class TrendStringDecoderTest {
+
+  @Test
+  public void testDecode() throws CsvDataTypeMismatchException {
+    TrendSeries series = TrendStringDecoder
+        .decode("0,195,6.0||5926600,192,0.0|7218880,192,1.0,ignored|7225480,-1,1e2|");
+    assertEquals(4, series.size());
+    assertEquals(new Trend(0, 195, 6.0), series.get(0));
+    assertEquals(7218880, series.getMillis(2));
+    assertEquals(192, series.getQuality(2));
+    assertEquals(1.0, series.getValue(2), 0);
+    assertEquals(new Trend(7225480, -1, 100.0), series.get(3));
+  }
+
+  @Test
+  public void testDecodeEmpty() throws CsvDataTypeMismatchException {
+    assertTrue(TrendStringDecoder.decode("").isEmpty());
+    assertTrue(TrendStringDecoder.decode("||").isEmpty());
+  }
+
+  @Test
+  public void testDecodeFromLine() throws CsvDataTypeMismatchException {
+    CsvLine line = CsvLine.of("client", "tag", "0,195,6.0|5926600,192,0.5");
+    assertEquals(TrendStringDecoder.decode("0,195,6.0|5926600,192,0.5"),
+        TrendStringDecoder.decode(line, 2));
+  }
+
+  @Test
+  public void testDecodeGrows() throws CsvDataTypeMismatchException {
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      value.append(i).append(",192,").append(i % 2).append('|');
+    }
+    TrendSeries series = TrendStringDecoder.decode(value.toString());
+    assertEquals(1000, series.size());
+    assertEquals(new Trend(999, 192, 1), series.get(999));
+  }
+
+  @Test(expected = CsvDataTypeMismatchException.class)
+  public void testDecodeMissingValue() throws CsvDataTypeMismatchException {
+    TrendStringDecoder.decode("0,195,6.0|5926600,192");
+  }
+
+  @Test(expected = CsvDataTypeMismatchException.class)
+  public void testDecodeEmptyValue() throws CsvDataTypeMismatchException {
+    TrendStringDecoder.decode("0,195,");
+  }
+
+  @Test(expected = CsvDataTypeMismatchException.class)
+  public void testDecodeMillisOverflow() throws CsvDataTypeMismatchException {
+    TrendStringDecoder.decode("2147483648,192,0.0");
+  }
+
+  @Test(expected = CsvDataTypeMismatchException.class)
+  public void testDecodeQualityOutOfRange() throws CsvDataTypeMismatchException {
+    TrendStringDecoder.decode("0,65536,0.0");
+  }
+}